@@ -0,0 +1,44 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.edgedeploy;
+
+import java.util.Map;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.sunrun.cfnresponse.CfnRequest;
+import pl.wrzasq.commons.aws.cloudformation.CustomResourceHandler;
+import pl.wrzasq.lambda.edgedeploy.model.EdgeDeployBatchRequest;
+import pl.wrzasq.lambda.edgedeploy.service.LambdaEdgeBatchManager;
+
+/**
+ * CloudFormation batch request handler.
+ *
+ * <p>Recommended memory: 512MB.</p>
+ */
+public class BatchHandler {
+    /**
+     * CloudFormation response handler.
+     */
+    private static CustomResourceHandler<EdgeDeployBatchRequest, Map<String, String>> handler;
+
+    static {
+        var deploy = new LambdaEdgeBatchManager(ServiceFactory.createLambdaEdgeManager());
+
+        BatchHandler.handler = new CustomResourceHandler<>(deploy::create, deploy::update, deploy::delete);
+    }
+
+    /**
+     * Handles invocation.
+     *
+     * @param request CloudFormation request.
+     * @param context AWS Lambda context.
+     */
+    public void handle(CfnRequest<EdgeDeployBatchRequest> request, Context context) {
+        BatchHandler.handler.handle(request, context);
+    }
+}
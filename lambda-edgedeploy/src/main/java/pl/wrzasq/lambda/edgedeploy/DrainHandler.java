@@ -0,0 +1,58 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.edgedeploy;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import lombok.AllArgsConstructor;
+import pl.wrzasq.lambda.edgedeploy.service.DeletionDrainer;
+
+/**
+ * Scheduled pending deletions handler.
+ *
+ * <p>Required environment variables:</p>
+ *
+ * <dl>
+ *     <dt><code>DELETION_TABLE</code></dt>
+ *     <dd>DynamoDB table with pending deletions.</dd>
+ * </dl>
+ *
+ * <p>Recommended memory: 256MB.</p>
+ */
+@AllArgsConstructor
+public class DrainHandler {
+    /**
+     * Pending deletions table.
+     */
+    private static final String DELETION_TABLE = System.getenv("DELETION_TABLE");
+
+    /**
+     * Pending deletions processor.
+     */
+    private DeletionDrainer drainer;
+
+    /**
+     * Default constructor.
+     */
+    public DrainHandler() {
+        this(
+            new DeletionDrainer(ServiceFactory.createLambda(), ServiceFactory.createDeletionQueue())
+        );
+    }
+
+    /**
+     * Handles invocation.
+     *
+     * @param inputStream Request input (schedule event, ignored).
+     * @param outputStream Output stream.
+     */
+    public void handle(InputStream inputStream, OutputStream outputStream) {
+        this.drainer.drain(DrainHandler.DELETION_TABLE);
+    }
+}
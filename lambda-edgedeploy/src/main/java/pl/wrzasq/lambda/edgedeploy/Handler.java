@@ -2,21 +2,16 @@
  * This file is part of the pl.wrzasq.lambda.
  *
  * @license http://mit-license.org/ The MIT license
- * @copyright 2018 - 2020 © by Rafał Wrzeszcz - Wrzasq.pl.
+ * @copyright 2018 - 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
  */
 
 package pl.wrzasq.lambda.edgedeploy;
 
-import com.amazonaws.regions.Regions;
-import com.amazonaws.services.lambda.AWSLambdaClientBuilder;
 import com.amazonaws.services.lambda.model.PublishVersionResult;
 import com.amazonaws.services.lambda.runtime.Context;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.sunrun.cfnresponse.CfnRequest;
 import pl.wrzasq.commons.aws.cloudformation.CustomResourceHandler;
-import pl.wrzasq.commons.json.ObjectMapperFactory;
 import pl.wrzasq.lambda.edgedeploy.model.EdgeDeployRequest;
-import pl.wrzasq.lambda.edgedeploy.service.LambdaEdgeManager;
 
 /**
  * CloudFormation request handler.
@@ -30,15 +25,7 @@ public class Handler {
     private static CustomResourceHandler<EdgeDeployRequest, PublishVersionResult> handler;
 
     static {
-        var objectMapper = ObjectMapperFactory.createObjectMapper();
-        var lambda = AWSLambdaClientBuilder.standard()
-            // Lambda@Edge needs to be deployed in Virginia!
-            .withRegion(Regions.US_EAST_1)
-            .build();
-
-        var s3 = AmazonS3ClientBuilder.defaultClient();
-
-        var deploy = new LambdaEdgeManager(lambda, s3, objectMapper);
+        var deploy = ServiceFactory.createLambdaEdgeManager();
 
         Handler.handler = new CustomResourceHandler<>(deploy::create, deploy::update, deploy::delete);
     }
@@ -0,0 +1,73 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.edgedeploy;
+
+import java.nio.file.Path;
+import java.time.Clock;
+
+import com.amazonaws.regions.Regions;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.services.lambda.AWSLambda;
+import com.amazonaws.services.lambda.AWSLambdaClientBuilder;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import pl.wrzasq.commons.json.ObjectMapperFactory;
+import pl.wrzasq.lambda.edgedeploy.service.DeletionQueue;
+import pl.wrzasq.lambda.edgedeploy.service.LambdaEdgeManager;
+import pl.wrzasq.lambda.edgedeploy.service.PackageCache;
+import pl.wrzasq.lambda.edgedeploy.service.PackageDownloader;
+import pl.wrzasq.lambda.edgedeploy.service.PackageUploader;
+
+/**
+ * Services setup shared by all handlers.
+ */
+public class ServiceFactory {
+    /**
+     * Local directory for built packages (survives between warm invocations).
+     */
+    private static final String CACHE_DIRECTORY = "edgedeploy-cache";
+
+    /**
+     * Creates Lambda client.
+     *
+     * @return AWS Lambda client.
+     */
+    public static AWSLambda createLambda() {
+        return AWSLambdaClientBuilder.standard()
+            // Lambda@Edge needs to be deployed in Virginia!
+            .withRegion(Regions.US_EAST_1)
+            .build();
+    }
+
+    /**
+     * Creates pending deletions queue.
+     *
+     * @return Deletion queue.
+     */
+    public static DeletionQueue createDeletionQueue() {
+        return new DeletionQueue(AmazonDynamoDBClientBuilder.defaultClient(), Clock.systemUTC());
+    }
+
+    /**
+     * Creates deployment manager.
+     *
+     * @return Lambda@Edge manager.
+     */
+    public static LambdaEdgeManager createLambdaEdgeManager() {
+        var s3 = AmazonS3ClientBuilder.defaultClient();
+
+        return new LambdaEdgeManager(
+            ServiceFactory.createLambda(),
+            s3,
+            ObjectMapperFactory.createObjectMapper(),
+            new PackageCache(s3, Path.of(System.getProperty("java.io.tmpdir"), ServiceFactory.CACHE_DIRECTORY)),
+            new PackageDownloader(s3),
+            new PackageUploader(s3),
+            ServiceFactory.createDeletionQueue()
+        );
+    }
+}
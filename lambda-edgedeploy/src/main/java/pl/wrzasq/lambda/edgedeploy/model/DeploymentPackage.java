@@ -0,0 +1,28 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.edgedeploy.model;
+
+import java.nio.ByteBuffer;
+
+import lombok.Data;
+
+/**
+ * Built Lambda deployment package.
+ */
+@Data
+public class DeploymentPackage {
+    /**
+     * Content key (digest of package source and configuration).
+     */
+    private final String key;
+
+    /**
+     * Package binary content.
+     */
+    private final ByteBuffer content;
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.edgedeploy.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * Lambda@Edge batch deploy CloudFormation request.
+ */
+@Data
+public class EdgeDeployBatchRequest {
+    /**
+     * Default number of functions deployed in parallel.
+     */
+    private static final int DEFAULT_CONCURRENCY = 4;
+
+    /**
+     * Package S3 bucket.
+     */
+    private String packageBucket;
+
+    /**
+     * Package S3 key.
+     */
+    private String packageKey;
+
+    /**
+     * Size (in bytes) of single byte range fetched when downloading package.
+     */
+    private long downloadPartSize = EdgeDeployRequest.DEFAULT_DOWNLOAD_PART_SIZE;
+
+    /**
+     * Maximum number of package parts downloaded in parallel.
+     */
+    private int downloadConcurrency = EdgeDeployRequest.DEFAULT_DOWNLOAD_CONCURRENCY;
+
+    /**
+     * Whether to append configuration to the original package instead of re-building it.
+     */
+    private boolean appendConfig;
+
+    /**
+     * S3 bucket for sharing built packages between deploy invocations (disabled by default).
+     */
+    private String cacheBucket;
+
+    /**
+     * S3 key prefix for shared built packages.
+     */
+    private String cachePrefix = "";
+
+    /**
+     * S3 bucket for staging built packages (by default packages are uploaded inline).
+     */
+    private String artifactBucket;
+
+    /**
+     * S3 key prefix for staged packages.
+     */
+    private String artifactPrefix = "";
+
+    /**
+     * DynamoDB table for pending deletions (when set, functions are deleted asynchronously).
+     */
+    private String deletionTable;
+
+    /**
+     * Maximum number of functions deployed in parallel.
+     */
+    private int concurrency = EdgeDeployBatchRequest.DEFAULT_CONCURRENCY;
+
+    /**
+     * Functions setups, by logical key (package-related properties are taken from the batch request).
+     */
+    private Map<String, EdgeDeployRequest> functions = new HashMap<>();
+}
@@ -2,7 +2,7 @@
  * This file is part of the pl.wrzasq.lambda.
  *
  * @license http://mit-license.org/ The MIT license
- * @copyright 2018 - 2019 © by Rafał Wrzeszcz - Wrzasq.pl.
+ * @copyright 2018 - 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
  */
 
 package pl.wrzasq.lambda.edgedeploy.model;
@@ -21,6 +21,16 @@ public class EdgeDeployRequest {
      */
     private static final String DEFAULT_CONFIG_FILE = "config.json";
 
+    /**
+     * Default size of single package download part (8MB).
+     */
+    static final long DEFAULT_DOWNLOAD_PART_SIZE = 8L * 1024 * 1024;
+
+    /**
+     * Default number of simultaneous package download parts.
+     */
+    static final int DEFAULT_DOWNLOAD_CONCURRENCY = 4;
+
     /**
      * Lambda function stackSetName.
      */
@@ -71,6 +81,16 @@ public class EdgeDeployRequest {
      */
     private String packageKey;
 
+    /**
+     * Size (in bytes) of single byte range fetched when downloading package.
+     */
+    private long downloadPartSize = EdgeDeployRequest.DEFAULT_DOWNLOAD_PART_SIZE;
+
+    /**
+     * Maximum number of package parts downloaded in parallel.
+     */
+    private int downloadConcurrency = EdgeDeployRequest.DEFAULT_DOWNLOAD_CONCURRENCY;
+
     /**
      * Filename for the injected configuration.
      */
@@ -80,4 +100,34 @@ public class EdgeDeployRequest {
      * Custom configuration to bundle with the package.
      */
     private Object config;
+
+    /**
+     * Whether to append configuration to the original package instead of re-building it.
+     */
+    private boolean appendConfig;
+
+    /**
+     * S3 bucket for sharing built packages between deploy invocations (disabled by default).
+     */
+    private String cacheBucket;
+
+    /**
+     * S3 key prefix for shared built packages.
+     */
+    private String cachePrefix = "";
+
+    /**
+     * S3 bucket for staging built packages (by default packages are uploaded inline).
+     */
+    private String artifactBucket;
+
+    /**
+     * S3 key prefix for staged packages.
+     */
+    private String artifactPrefix = "";
+
+    /**
+     * DynamoDB table for pending deletions (when set, functions are deleted asynchronously).
+     */
+    private String deletionTable;
 }
@@ -0,0 +1,33 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.edgedeploy.model;
+
+import java.time.Instant;
+
+import lombok.Data;
+
+/**
+ * Function deletion waiting for replicas cleanup.
+ */
+@Data
+public class PendingDeletion {
+    /**
+     * Lambda function name.
+     */
+    private final String functionName;
+
+    /**
+     * Number of already failed deletion attempts.
+     */
+    private final int attempts;
+
+    /**
+     * Earliest time of next deletion attempt.
+     */
+    private final Instant nextAttempt;
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.edgedeploy.service;
+
+import com.amazonaws.services.lambda.AWSLambda;
+import com.amazonaws.services.lambda.model.AWSLambdaException;
+import com.amazonaws.services.lambda.model.DeleteFunctionRequest;
+import com.amazonaws.services.lambda.model.ResourceNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pending deletions processor.
+ */
+public class DeletionDrainer {
+    /**
+     * Logger.
+     */
+    private Logger logger = LoggerFactory.getLogger(DeletionDrainer.class);
+
+    /**
+     * AWS Lambda API client.
+     */
+    private AWSLambda lambda;
+
+    /**
+     * Pending deletions storage.
+     */
+    private DeletionQueue queue;
+
+    /**
+     * Initializes object with given dependencies.
+     *
+     * @param lambda AWS Lambda client.
+     * @param queue Pending deletions storage.
+     */
+    public DeletionDrainer(AWSLambda lambda, DeletionQueue queue) {
+        this.lambda = lambda;
+        this.queue = queue;
+    }
+
+    /**
+     * Attempts to delete all due functions.
+     *
+     * @param table Queue table name.
+     */
+    public void drain(String table) {
+        for (var deletion : this.queue.listDue(table)) {
+            try {
+                this.lambda.deleteFunction(
+                    new DeleteFunctionRequest()
+                        .withFunctionName(deletion.getFunctionName())
+                );
+                this.logger.info("Deleted Lambda {}.", deletion.getFunctionName());
+            } catch (ResourceNotFoundException error) {
+                this.logger.warn("Lambda {} no longer exists.", deletion.getFunctionName());
+            } catch (AWSLambdaException error) {
+                // most likely replicas are still not removed
+                var next = this.queue.reschedule(table, deletion);
+                this.logger.info(
+                    "Failed to delete Lambda {} (attempt {}), next attempt at {}.",
+                    deletion.getFunctionName(),
+                    next.getAttempts(),
+                    next.getNextAttempt(),
+                    error
+                );
+                continue;
+            }
+
+            this.queue.remove(table, deletion.getFunctionName());
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.edgedeploy.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import pl.wrzasq.lambda.edgedeploy.model.PendingDeletion;
+
+/**
+ * DynamoDB-backed storage of pending function deletions.
+ *
+ * <p>
+ *     Table needs to have string hash key named <code>functionName</code>.
+ * </p>
+ */
+public class DeletionQueue {
+    /**
+     * Function name attribute (table hash key).
+     */
+    private static final String ATTRIBUTE_FUNCTION_NAME = "functionName";
+
+    /**
+     * Failed attempts counter attribute.
+     */
+    private static final String ATTRIBUTE_ATTEMPTS = "attempts";
+
+    /**
+     * Next attempt timestamp attribute (epoch seconds).
+     */
+    private static final String ATTRIBUTE_NEXT_ATTEMPT = "nextAttempt";
+
+    /**
+     * Delay before first retry.
+     */
+    private static final Duration INITIAL_DELAY = Duration.ofMinutes(15);
+
+    /**
+     * Maximum delay between retries.
+     */
+    private static final Duration MAX_DELAY = Duration.ofHours(6);
+
+    /**
+     * AWS DynamoDB API client.
+     */
+    private AmazonDynamoDB dynamoDb;
+
+    /**
+     * Time source.
+     */
+    private Clock clock;
+
+    /**
+     * Initializes object with given DynamoDB client.
+     *
+     * @param dynamoDb AWS DynamoDB client.
+     * @param clock Time source.
+     */
+    public DeletionQueue(AmazonDynamoDB dynamoDb, Clock clock) {
+        this.dynamoDb = dynamoDb;
+        this.clock = clock;
+    }
+
+    /**
+     * Records function for deletion.
+     *
+     * @param table Queue table name.
+     * @param functionName Lambda function name.
+     */
+    public void enqueue(String table, String functionName) {
+        this.save(table, new PendingDeletion(functionName, 0, this.clock.instant()));
+    }
+
+    /**
+     * Lists deletions due for next attempt.
+     *
+     * @param table Queue table name.
+     * @return Pending deletions.
+     */
+    public List<PendingDeletion> listDue(String table) {
+        var now = this.clock.instant();
+        var deletions = new ArrayList<PendingDeletion>();
+        Map<String, AttributeValue> lastKey = null;
+        do {
+            var result = this.dynamoDb.scan(
+                new ScanRequest()
+                    .withTableName(table)
+                    .withExclusiveStartKey(lastKey)
+            );
+
+            for (var item : result.getItems()) {
+                var deletion = new PendingDeletion(
+                    item.get(DeletionQueue.ATTRIBUTE_FUNCTION_NAME).getS(),
+                    Integer.parseInt(item.get(DeletionQueue.ATTRIBUTE_ATTEMPTS).getN()),
+                    Instant.ofEpochSecond(Long.parseLong(item.get(DeletionQueue.ATTRIBUTE_NEXT_ATTEMPT).getN()))
+                );
+                if (!deletion.getNextAttempt().isAfter(now)) {
+                    deletions.add(deletion);
+                }
+            }
+
+            lastKey = result.getLastEvaluatedKey();
+        } while (lastKey != null && !lastKey.isEmpty());
+
+        return deletions;
+    }
+
+    /**
+     * Schedules next attempt with exponential backoff.
+     *
+     * @param table Queue table name.
+     * @param deletion Failed deletion.
+     * @return Updated deletion state.
+     */
+    public PendingDeletion reschedule(String table, PendingDeletion deletion) {
+        var attempts = deletion.getAttempts() + 1;
+        var delay = DeletionQueue.INITIAL_DELAY.multipliedBy(1L << Math.min(attempts - 1, Integer.SIZE - 2));
+        if (delay.compareTo(DeletionQueue.MAX_DELAY) > 0) {
+            delay = DeletionQueue.MAX_DELAY;
+        }
+
+        var next = new PendingDeletion(deletion.getFunctionName(), attempts, this.clock.instant().plus(delay));
+        this.save(table, next);
+        return next;
+    }
+
+    /**
+     * Removes function from the queue.
+     *
+     * @param table Queue table name.
+     * @param functionName Lambda function name.
+     */
+    public void remove(String table, String functionName) {
+        this.dynamoDb.deleteItem(
+            new DeleteItemRequest()
+                .withTableName(table)
+                .withKey(Map.of(DeletionQueue.ATTRIBUTE_FUNCTION_NAME, new AttributeValue(functionName)))
+        );
+    }
+
+    /**
+     * Stores deletion state.
+     *
+     * @param table Queue table name.
+     * @param deletion Pending deletion.
+     */
+    private void save(String table, PendingDeletion deletion) {
+        this.dynamoDb.putItem(
+            new PutItemRequest()
+                .withTableName(table)
+                .withItem(
+                    Map.of(
+                        DeletionQueue.ATTRIBUTE_FUNCTION_NAME,
+                        new AttributeValue(deletion.getFunctionName()),
+                        DeletionQueue.ATTRIBUTE_ATTEMPTS,
+                        new AttributeValue().withN(String.valueOf(deletion.getAttempts())),
+                        DeletionQueue.ATTRIBUTE_NEXT_ATTEMPT,
+                        new AttributeValue().withN(String.valueOf(deletion.getNextAttempt().getEpochSecond()))
+                    )
+                )
+        );
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.edgedeploy.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import com.amazonaws.services.lambda.model.PublishVersionResult;
+import com.amazonaws.services.lambda.model.ResourceNotFoundException;
+import pl.wrzasq.commons.aws.cloudformation.CustomResourceResponse;
+import pl.wrzasq.lambda.edgedeploy.model.EdgeDeployBatchRequest;
+import pl.wrzasq.lambda.edgedeploy.model.EdgeDeployRequest;
+
+/**
+ * Multiple Lambda@Edge functions deployment from single package.
+ */
+public class LambdaEdgeBatchManager {
+    /**
+     * Physical ID parts separator.
+     */
+    private static final String ID_SEPARATOR = ",";
+
+    /**
+     * Single function manager.
+     */
+    private LambdaEdgeManager manager;
+
+    /**
+     * Initializes object with given function manager.
+     *
+     * @param manager Single function manager.
+     */
+    public LambdaEdgeBatchManager(LambdaEdgeManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Handles functions creation.
+     *
+     * @param input Resource creation request.
+     * @param physicalResourceId Physical ID of existing resource (if present).
+     * @return ARNs of published versions.
+     */
+    public CustomResourceResponse<Map<String, String>> create(
+        EdgeDeployBatchRequest input,
+        String physicalResourceId
+    ) {
+        return this.deploy(
+            input,
+            String.join(LambdaEdgeBatchManager.ID_SEPARATOR, new TreeMap<>(input.getFunctions()).keySet()),
+            (function, source) -> this.manager.createFromPackage(function, source).getData()
+        );
+    }
+
+    /**
+     * Handles functions update.
+     *
+     * <p>
+     *     Functions added to the batch are created. Functions removed from the batch are not deleted, as previous
+     *     resource state is not known.
+     * </p>
+     *
+     * @param input Resource update request.
+     * @param physicalResourceId Physical ID of existing resource (if present).
+     * @return ARNs of published versions.
+     */
+    public CustomResourceResponse<Map<String, String>> update(
+        EdgeDeployBatchRequest input,
+        String physicalResourceId
+    ) {
+        return this.deploy(
+            input,
+            physicalResourceId,
+            (function, source) -> {
+                try {
+                    return this.manager.updateFromPackage(function, source, physicalResourceId).getData();
+                } catch (ResourceNotFoundException error) {
+                    return this.manager.createFromPackage(function, source).getData();
+                }
+            }
+        );
+    }
+
+    /**
+     * Handles functions deletion.
+     *
+     * @param input Resource delete request.
+     * @param physicalResourceId Physical ID of existing resource (if present).
+     * @return Deleted functions names.
+     */
+    public CustomResourceResponse<Map<String, String>> delete(
+        EdgeDeployBatchRequest input,
+        String physicalResourceId
+    ) {
+        return this.execute(
+            input,
+            physicalResourceId,
+            function -> this.manager.delete(function, physicalResourceId).getData().getFunctionName()
+        );
+    }
+
+    /**
+     * Deploys all functions from single package download.
+     *
+     * @param input Batch request.
+     * @param physicalResourceId Physical ID of the resource.
+     * @param action Single function deployment.
+     * @return ARNs of published versions.
+     */
+    private CustomResourceResponse<Map<String, String>> deploy(
+        EdgeDeployBatchRequest input,
+        String physicalResourceId,
+        BiFunction<EdgeDeployRequest, PackageSource, PublishVersionResult> action
+    ) {
+        try (var source = this.manager.openPackage(LambdaEdgeBatchManager.buildFunctionRequest(input, null), true)) {
+            return this.execute(
+                input,
+                physicalResourceId,
+                function -> action.apply(function, source).getFunctionArn()
+            );
+        } catch (IOException error) {
+            throw new UncheckedIOException(error);
+        }
+    }
+
+    /**
+     * Runs action for all functions with bounded parallelism.
+     *
+     * @param input Batch request.
+     * @param physicalResourceId Physical ID of the resource.
+     * @param action Single function action.
+     * @return Results by function key.
+     */
+    private CustomResourceResponse<Map<String, String>> execute(
+        EdgeDeployBatchRequest input,
+        String physicalResourceId,
+        Function<EdgeDeployRequest, String> action
+    ) {
+        var functions = new TreeMap<>(input.getFunctions());
+        var executor = Executors.newFixedThreadPool(Math.max(1, Math.min(input.getConcurrency(), functions.size())));
+        try {
+            var futures = new LinkedHashMap<String, Future<String>>();
+            for (var entry : functions.entrySet()) {
+                var function = LambdaEdgeBatchManager.buildFunctionRequest(input, entry.getValue());
+                futures.put(entry.getKey(), executor.submit(() -> action.apply(function)));
+            }
+
+            var results = new HashMap<String, String>();
+            var errors = new ArrayList<Throwable>();
+            // wait for all functions, so that none is left in the middle of deployment
+            for (var entry : futures.entrySet()) {
+                try {
+                    results.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException error) {
+                    errors.add(error.getCause());
+                } catch (InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                    errors.add(error);
+                }
+            }
+
+            if (!errors.isEmpty()) {
+                var error = new IllegalStateException(
+                    String.format("Processing of %d function(s) failed.", errors.size()),
+                    errors.get(0)
+                );
+                errors.stream().skip(1).forEach(error::addSuppressed);
+                throw error;
+            }
+
+            return new CustomResourceResponse<>(results, physicalResourceId);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Builds single function request with batch package settings.
+     *
+     * @param input Batch request.
+     * @param function Function setup (may be null for package-only request).
+     * @return Complete function request.
+     */
+    private static EdgeDeployRequest buildFunctionRequest(EdgeDeployBatchRequest input, EdgeDeployRequest function) {
+        var request = function == null ? new EdgeDeployRequest() : function;
+        request.setPackageBucket(input.getPackageBucket());
+        request.setPackageKey(input.getPackageKey());
+        request.setDownloadPartSize(input.getDownloadPartSize());
+        request.setDownloadConcurrency(input.getDownloadConcurrency());
+        request.setAppendConfig(input.isAppendConfig());
+        request.setCacheBucket(input.getCacheBucket());
+        request.setCachePrefix(input.getCachePrefix());
+        request.setArtifactBucket(input.getArtifactBucket());
+        request.setArtifactPrefix(input.getArtifactPrefix());
+        request.setDeletionTable(input.getDeletionTable());
+        return request;
+    }
+}
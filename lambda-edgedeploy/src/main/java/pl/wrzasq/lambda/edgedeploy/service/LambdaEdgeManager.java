@@ -2,37 +2,70 @@
  * This file is part of the pl.wrzasq.lambda.
  *
  * @license http://mit-license.org/ The MIT license
- * @copyright 2018 - 2019 © by Rafał Wrzeszcz - Wrzasq.pl.
+ * @copyright 2018 - 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
  */
 
 package pl.wrzasq.lambda.edgedeploy.service;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
 import java.nio.ByteBuffer;
-import java.util.zip.ZipInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.zip.ZipException;
 
 import com.amazonaws.services.lambda.AWSLambda;
 import com.amazonaws.services.lambda.model.CreateFunctionRequest;
 import com.amazonaws.services.lambda.model.DeleteFunctionRequest;
 import com.amazonaws.services.lambda.model.FunctionCode;
+import com.amazonaws.services.lambda.model.FunctionConfiguration;
+import com.amazonaws.services.lambda.model.GetFunctionRequest;
+import com.amazonaws.services.lambda.model.ListVersionsByFunctionRequest;
 import com.amazonaws.services.lambda.model.PublishVersionRequest;
 import com.amazonaws.services.lambda.model.PublishVersionResult;
 import com.amazonaws.services.lambda.model.ResourceNotFoundException;
 import com.amazonaws.services.lambda.model.TracingConfig;
+import com.amazonaws.services.lambda.model.TracingMode;
 import com.amazonaws.services.lambda.model.UpdateFunctionCodeRequest;
 import com.amazonaws.services.lambda.model.UpdateFunctionConfigurationRequest;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.wrzasq.commons.aws.cloudformation.CustomResourceResponse;
+import pl.wrzasq.lambda.edgedeploy.model.DeploymentPackage;
 import pl.wrzasq.lambda.edgedeploy.model.EdgeDeployRequest;
+import pl.wrzasq.lambda.edgedeploy.zip.ZipAppender;
 import pl.wrzasq.lambda.edgedeploy.zip.ZipBuilder;
 
 /**
  * Lambda API implementation.
  */
 public class LambdaEdgeManager {
+    /**
+     * Suffix for staged package files.
+     */
+    private static final String PACKAGE_FILE_SUFFIX = ".zip";
+
+    /**
+     * Unpublished version qualifier.
+     */
+    private static final String VERSION_LATEST = "$LATEST";
+
+    /**
+     * Digest algorithm used for package hashing (the one used by Lambda for code hashes).
+     */
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
     /**
      * Logger.
      */
@@ -53,17 +86,53 @@ public class LambdaEdgeManager {
      */
     private ObjectMapper objectMapper;
 
+    /**
+     * Built packages storage.
+     */
+    private PackageCache packageCache;
+
+    /**
+     * Source packages downloader.
+     */
+    private PackageDownloader packageDownloader;
+
+    /**
+     * Built packages uploader.
+     */
+    private PackageUploader packageUploader;
+
+    /**
+     * Pending deletions storage.
+     */
+    private DeletionQueue deletionQueue;
+
     /**
      * Initializes object with given Lambda client.
      *
      * @param lambda AWS Lambda client.
      * @param s3 AWS S3 client.
      * @param objectMapper JSON generator.
+     * @param packageCache Built packages storage.
+     * @param packageDownloader Source packages downloader.
+     * @param packageUploader Built packages uploader.
+     * @param deletionQueue Pending deletions storage.
      */
-    public LambdaEdgeManager(AWSLambda lambda, AmazonS3 s3, ObjectMapper objectMapper) {
+    public LambdaEdgeManager(
+        AWSLambda lambda,
+        AmazonS3 s3,
+        ObjectMapper objectMapper,
+        PackageCache packageCache,
+        PackageDownloader packageDownloader,
+        PackageUploader packageUploader,
+        DeletionQueue deletionQueue
+    ) {
         this.lambda = lambda;
         this.s3 = s3;
         this.objectMapper = objectMapper;
+        this.packageCache = packageCache;
+        this.packageDownloader = packageDownloader;
+        this.packageUploader = packageUploader;
+        this.deletionQueue = deletionQueue;
     }
 
     /**
@@ -74,15 +143,32 @@ public class LambdaEdgeManager {
      * @return Data about published version.
      */
     public CustomResourceResponse<PublishVersionResult> create(EdgeDeployRequest input, String physicalResourceId) {
+        try (var source = this.openPackage(input, false)) {
+            return this.createFromPackage(input, source);
+        } catch (IOException error) {
+            throw new UncheckedIOException(error);
+        }
+    }
+
+    /**
+     * Creates function from given package.
+     *
+     * @param input Function setup.
+     * @param source Source package.
+     * @return Data about published version.
+     */
+    public CustomResourceResponse<PublishVersionResult> createFromPackage(
+        EdgeDeployRequest input,
+        PackageSource source
+    ) {
+        this.cancelDeletion(input);
+
         var result = this.lambda.createFunction(
             new CreateFunctionRequest()
                 .withFunctionName(input.getFunctionName())
                 .withDescription(input.getFunctionDescription())
                 .withRuntime(input.getRuntime())
-                .withCode(
-                    new FunctionCode()
-                        .withZipFile(this.buildZipFile(input))
-                )
+                .withCode(this.buildFunctionCode(input, this.buildZipFile(input, source)))
                 .withHandler(input.getHandler())
                 .withMemorySize(input.getMemory())
                 .withTimeout(input.getTimeout())
@@ -102,31 +188,98 @@ public class LambdaEdgeManager {
     /**
      * Handles function update.
      *
+     * <p>
+     *     Only changed parts of the function are updated. When nothing changed, latest published version is returned
+     *     instead of publishing new one (each new version triggers CloudFront distribution propagation).
+     * </p>
+     *
      * @param input Resource update request.
      * @param physicalResourceId Physical ID of existing resource (if present).
      * @return Data about published version.
      */
     public CustomResourceResponse<PublishVersionResult> update(EdgeDeployRequest input, String physicalResourceId) {
-        this.lambda.updateFunctionCode(
-            new UpdateFunctionCodeRequest()
-                .withFunctionName(input.getFunctionName())
-                .withZipFile(this.buildZipFile(input))
-        );
+        try (var source = this.openPackage(input, false)) {
+            return this.updateFromPackage(input, source, physicalResourceId);
+        } catch (IOException error) {
+            throw new UncheckedIOException(error);
+        }
+    }
 
-        this.lambda.updateFunctionConfiguration(
-            new UpdateFunctionConfigurationRequest()
+    /**
+     * Updates function from given package.
+     *
+     * @param input Function setup.
+     * @param source Source package.
+     * @param physicalResourceId Physical ID of existing resource.
+     * @return Data about published version.
+     */
+    public CustomResourceResponse<PublishVersionResult> updateFromPackage(
+        EdgeDeployRequest input,
+        PackageSource source,
+        String physicalResourceId
+    ) {
+        this.cancelDeletion(input);
+
+        var deploymentPackage = this.buildZipFile(input, source);
+        var codeSha256 = LambdaEdgeManager.computeCodeSha256(deploymentPackage.getContent());
+        var current = this.lambda.getFunction(
+            new GetFunctionRequest()
                 .withFunctionName(input.getFunctionName())
-                .withDescription(input.getFunctionDescription())
-                .withRuntime(input.getRuntime())
-                .withHandler(input.getHandler())
-                .withMemorySize(input.getMemory())
-                .withTimeout(input.getTimeout())
-                .withRole(input.getRoleArn())
-                .withTracingConfig(
-                    new TracingConfig()
-                        .withMode(input.getTracingMode())
-                )
-        );
+        )
+            .getConfiguration();
+
+        var codeChanged = !codeSha256.equals(current.getCodeSha256());
+        if (codeChanged) {
+            var code = this.buildFunctionCode(input, deploymentPackage);
+            this.lambda.updateFunctionCode(
+                new UpdateFunctionCodeRequest()
+                    .withFunctionName(input.getFunctionName())
+                    .withZipFile(code.getZipFile())
+                    .withS3Bucket(code.getS3Bucket())
+                    .withS3Key(code.getS3Key())
+            );
+        } else {
+            this.logger.info("Code of {} is up to date, skipping upload.", input.getFunctionName());
+        }
+
+        var configurationChanged = !LambdaEdgeManager.isConfigurationUpToDate(current, input);
+        if (configurationChanged) {
+            this.lambda.updateFunctionConfiguration(
+                new UpdateFunctionConfigurationRequest()
+                    .withFunctionName(input.getFunctionName())
+                    .withDescription(input.getFunctionDescription())
+                    .withRuntime(input.getRuntime())
+                    .withHandler(input.getHandler())
+                    .withMemorySize(input.getMemory())
+                    .withTimeout(input.getTimeout())
+                    .withRole(input.getRoleArn())
+                    .withTracingConfig(
+                        new TracingConfig()
+                            .withMode(input.getTracingMode())
+                    )
+            );
+        } else {
+            this.logger.info("Configuration of {} is up to date, skipping update.", input.getFunctionName());
+        }
+
+        if (!codeChanged && !configurationChanged) {
+            var latest = this.findLatestVersion(input.getFunctionName());
+            if (latest != null
+                && codeSha256.equals(latest.getCodeSha256())
+                && LambdaEdgeManager.isConfigurationUpToDate(latest, input)
+            ) {
+                this.logger.info(
+                    "Version {} of {} is up to date, skipping publication.",
+                    latest.getVersion(),
+                    input.getFunctionName()
+                );
+
+                return new CustomResourceResponse<>(
+                    LambdaEdgeManager.buildVersionResult(latest),
+                    physicalResourceId
+                );
+            }
+        }
 
         return new CustomResourceResponse<>(
             this.publishLambdaVersion(input.getFunctionName()),
@@ -142,6 +295,46 @@ public class LambdaEdgeManager {
      * @return Data about deleted version.
      */
     public CustomResourceResponse<PublishVersionResult> delete(EdgeDeployRequest input, String physicalResourceId) {
+        if (input.getDeletionTable() != null) {
+            this.deletionQueue.enqueue(input.getDeletionTable(), input.getFunctionName());
+            this.logger.info(
+                "Lambda {} scheduled for deletion in {}.",
+                input.getFunctionName(),
+                input.getDeletionTable()
+            );
+        } else {
+            this.deleteFunction(input);
+        }
+
+        return new CustomResourceResponse<>(
+            new PublishVersionResult()
+                .withFunctionName(input.getFunctionName()),
+            physicalResourceId
+        );
+    }
+
+    /**
+     * Removes function from pending deletions.
+     *
+     * <p>
+     *     Deletions are queued by function name, so when a function with the same name is deployed again (eg. stack
+     *     re-created after deletion) the pending entry would otherwise delete the new, live function.
+     * </p>
+     *
+     * @param input Function setup.
+     */
+    private void cancelDeletion(EdgeDeployRequest input) {
+        if (input.getDeletionTable() != null) {
+            this.deletionQueue.remove(input.getDeletionTable(), input.getFunctionName());
+        }
+    }
+
+    /**
+     * Deletes function immediately.
+     *
+     * @param input Function setup.
+     */
+    private void deleteFunction(EdgeDeployRequest input) {
         try {
             this.lambda.deleteFunction(
                 new DeleteFunctionRequest()
@@ -150,11 +343,24 @@ public class LambdaEdgeManager {
         } catch (ResourceNotFoundException error) {
             this.logger.warn("Attempt to delete non-existing Lambda {}.", input.getFunctionName(), error);
         }
+    }
 
-        return new CustomResourceResponse<>(
-            new PublishVersionResult()
-                .withFunctionName(input.getFunctionName()),
-            physicalResourceId
+    /**
+     * Creates source package handle.
+     *
+     * @param input Function setup (package location and download settings).
+     * @param shared Whether package will be used by multiple builds.
+     * @return Source package.
+     */
+    public PackageSource openPackage(EdgeDeployRequest input, boolean shared) {
+        return new PackageSource(
+            this.s3,
+            this.packageDownloader,
+            input.getPackageBucket(),
+            input.getPackageKey(),
+            input.getDownloadPartSize(),
+            input.getDownloadConcurrency(),
+            shared
         );
     }
 
@@ -172,29 +378,260 @@ public class LambdaEdgeManager {
     }
 
     /**
-     * Builds deployment ZIP package.
+     * Finds most recent published version of the function.
+     *
+     * @param functionName Function name.
+     * @return Latest version configuration (null if no version was published yet).
+     */
+    private FunctionConfiguration findLatestVersion(String functionName) {
+        FunctionConfiguration latest = null;
+        String marker = null;
+        do {
+            var result = this.lambda.listVersionsByFunction(
+                new ListVersionsByFunctionRequest()
+                    .withFunctionName(functionName)
+                    .withMarker(marker)
+            );
+
+            for (var version : result.getVersions()) {
+                if (!LambdaEdgeManager.VERSION_LATEST.equals(version.getVersion())
+                    && (latest == null || Long.parseLong(version.getVersion()) > Long.parseLong(latest.getVersion()))
+                ) {
+                    latest = version;
+                }
+            }
+
+            marker = result.getNextMarker();
+        } while (marker != null);
+
+        return latest;
+    }
+
+    /**
+     * Checks whether function configuration matches desired setup.
+     *
+     * @param configuration Function configuration.
+     * @param input Desired function setup.
+     * @return Configuration state.
+     */
+    private static boolean isConfigurationUpToDate(FunctionConfiguration configuration, EdgeDeployRequest input) {
+        var tracingMode = configuration.getTracingConfig() == null
+            ? TracingMode.PassThrough.toString()
+            : configuration.getTracingConfig().getMode();
+
+        // Lambda exposes missing description as empty string
+        return Objects.toString(input.getFunctionDescription(), "").equals(configuration.getDescription())
+            && input.getRuntime().toString().equals(configuration.getRuntime())
+            && Objects.equals(input.getHandler(), configuration.getHandler())
+            && Objects.equals(input.getMemory(), configuration.getMemorySize())
+            && Objects.equals(input.getTimeout(), configuration.getTimeout())
+            && Objects.equals(input.getRoleArn(), configuration.getRole())
+            && input.getTracingMode().toString().equals(tracingMode);
+    }
+
+    /**
+     * Exposes existing version in the format of publication result.
+     *
+     * @param version Version configuration.
+     * @return Version data.
+     */
+    private static PublishVersionResult buildVersionResult(FunctionConfiguration version) {
+        return new PublishVersionResult()
+            .withFunctionName(version.getFunctionName())
+            .withFunctionArn(version.getFunctionArn())
+            .withVersion(version.getVersion())
+            .withDescription(version.getDescription())
+            .withRuntime(version.getRuntime())
+            .withHandler(version.getHandler())
+            .withMemorySize(version.getMemorySize())
+            .withTimeout(version.getTimeout())
+            .withRole(version.getRole())
+            .withTracingConfig(version.getTracingConfig())
+            .withCodeSha256(version.getCodeSha256())
+            .withCodeSize(version.getCodeSize())
+            .withLastModified(version.getLastModified())
+            .withMasterArn(version.getMasterArn())
+            .withRevisionId(version.getRevisionId());
+    }
+
+    /**
+     * Resolves deployment ZIP package.
+     *
+     * <p>
+     *     Packages are cached by source object version and injected configuration, so unchanged package is not being
+     *     re-built.
+     * </p>
      *
      * @param input Function setup.
+     * @param source Source package.
      * @return ZIP file buffer.
      */
-    private ByteBuffer buildZipFile(EdgeDeployRequest input) {
-        var zip = new ZipBuilder();
-        try (
-            var archive = new ZipInputStream(
-                this.s3.getObject(input.getPackageBucket(), input.getPackageKey()).getObjectContent()
-            )
-        ) {
-            zip.copyFrom(archive);
+    private DeploymentPackage buildZipFile(EdgeDeployRequest input, PackageSource source) {
+        try {
+            var config = this.objectMapper.writer()
+                .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                .writeValueAsBytes(input.getConfig());
 
-            // dump custom configuration from request
-            zip.writeEntry(
-                input.getConfigFile(),
-                this.objectMapper.writeValueAsBytes(input.getConfig())
-            );
+            var key = LambdaEdgeManager.buildPackageKey(input, source.getMetadata(), config);
 
-            return zip.dump();
+            return new DeploymentPackage(
+                key,
+                this.packageCache.resolve(
+                    key,
+                    input.getCacheBucket(),
+                    input.getCachePrefix(),
+                    file -> this.buildZipFile(input, source, config, file)
+                )
+            );
         } catch (IOException error) {
             throw new RuntimeException(error);
         }
     }
+
+    /**
+     * Builds deployment ZIP package.
+     *
+     * <p>
+     *     Source package is downloaded into temporary file (in parallel byte ranges), so that its entries can be copied
+     *     without re-compression.
+     * </p>
+     *
+     * @param input Function setup.
+     * @param source Source package.
+     * @param config Serialized configuration.
+     * @param file Target file.
+     * @throws IOException When building package fails.
+     */
+    private void buildZipFile(EdgeDeployRequest input, PackageSource source, byte[] config, Path file)
+        throws IOException {
+        if (input.isAppendConfig()) {
+            source.transferTo(file);
+            if (this.appendConfig(input, config, file)) {
+                return;
+            }
+        }
+
+        var zip = new ZipBuilder(file, true);
+        try (var archive = new ZipFile(source.resolve().toFile())) {
+            zip.copyFrom(archive);
+        }
+
+        // dump custom configuration from request
+        zip.writeEntry(input.getConfigFile(), config);
+
+        zip.dump();
+    }
+
+    /**
+     * Injects configuration into downloaded package in place.
+     *
+     * @param input Function setup.
+     * @param config Serialized configuration.
+     * @param file Package file.
+     * @return Whether configuration was injected.
+     * @throws IOException When updating package fails.
+     */
+    private boolean appendConfig(EdgeDeployRequest input, byte[] config, Path file) throws IOException {
+        try {
+            new ZipAppender(file).writeEntry(input.getConfigFile(), config);
+            return true;
+        } catch (ZipException error) {
+            // appender doesn't modify the file when it fails, so we can still rebuild it
+            this.logger.warn(
+                "Can not append configuration to s3://{}/{}, rebuilding entire package.",
+                input.getPackageBucket(),
+                input.getPackageKey(),
+                error
+            );
+            return false;
+        }
+    }
+
+    /**
+     * Builds function code reference.
+     *
+     * <p>
+     *     When artifact bucket is configured package is staged in S3, otherwise it's passed inline (which is subject
+     *     to direct upload size limit).
+     * </p>
+     *
+     * @param input Function setup.
+     * @param deploymentPackage Built package.
+     * @return Function code specification.
+     */
+    private FunctionCode buildFunctionCode(EdgeDeployRequest input, DeploymentPackage deploymentPackage) {
+        if (input.getArtifactBucket() == null) {
+            return new FunctionCode()
+                .withZipFile(deploymentPackage.getContent());
+        }
+
+        var bucket = input.getArtifactBucket();
+        var key = input.getArtifactPrefix() + deploymentPackage.getKey() + LambdaEdgeManager.PACKAGE_FILE_SUFFIX;
+        // keys are content-addressed, so existing object is always the same package
+        if (this.s3.doesObjectExist(bucket, key)) {
+            this.logger.info("Package s3://{}/{} already staged.", bucket, key);
+        } else {
+            this.logger.info("Staging package in s3://{}/{}.", bucket, key);
+            this.packageUploader.upload(bucket, key, deploymentPackage.getContent());
+        }
+
+        return new FunctionCode()
+            .withS3Bucket(bucket)
+            .withS3Key(key);
+    }
+
+    /**
+     * Computes package content key.
+     *
+     * @param input Function setup.
+     * @param metadata Source package metadata.
+     * @param config Serialized configuration.
+     * @return Package key.
+     */
+    private static String buildPackageKey(EdgeDeployRequest input, ObjectMetadata metadata, byte[] config) {
+        var digest = LambdaEdgeManager.createDigest();
+        for (
+            var part : Arrays.asList(
+                input.getPackageBucket(),
+                input.getPackageKey(),
+                metadata.getVersionId(),
+                metadata.getETag(),
+                input.getConfigFile(),
+                input.isAppendConfig()
+            )
+        ) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            // separator, so that parts boundaries can't be shifted
+            digest.update((byte) 0);
+        }
+        digest.update(config);
+
+        return String.format("%064x", new BigInteger(1, digest.digest()));
+    }
+
+    /**
+     * Computes package hash the way Lambda service does.
+     *
+     * @param zipFile Package content.
+     * @return Base64-encoded SHA-256 digest.
+     */
+    private static String computeCodeSha256(ByteBuffer zipFile) {
+        var digest = LambdaEdgeManager.createDigest();
+        digest.update(zipFile.duplicate());
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    /**
+     * Creates digest calculator.
+     *
+     * @return Message digest.
+     */
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance(LambdaEdgeManager.DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException error) {
+            // SHA-256 is a mandatory algorithm for every Java platform
+            throw new IllegalStateException(error);
+        }
+    }
 }
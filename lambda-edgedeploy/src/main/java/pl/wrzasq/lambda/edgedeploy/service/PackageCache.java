@@ -0,0 +1,218 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.edgedeploy.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content-addressed storage of built packages.
+ *
+ * <p>
+ *     Packages are kept in local directory (which survives between warm invocations) and optionally in S3 location,
+ *     shared by all containers.
+ * </p>
+ *
+ * <p>
+ *     Packages are built concurrently, but placing, mapping and evicting files is serialized per storage directory, so
+ *     eviction never removes a file that is about to be mapped. Already mapped content stays valid after the file is
+ *     removed.
+ * </p>
+ */
+public class PackageCache {
+    /**
+     * Package building logic.
+     */
+    @FunctionalInterface
+    public interface PackageBuilder {
+        /**
+         * Builds package.
+         *
+         * @param file Target file.
+         * @throws IOException When building package fails.
+         */
+        void build(Path file) throws IOException;
+    }
+
+    /**
+     * Maximum number of packages kept locally.
+     */
+    private static final int MAX_LOCAL_ENTRIES = 4;
+
+    /**
+     * Suffix for cached package files.
+     */
+    private static final String PACKAGE_FILE_SUFFIX = ".zip";
+
+    /**
+     * Suffix for packages being built.
+     */
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    /**
+     * Locks guarding local storage directories.
+     */
+    private static final Map<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * Logger.
+     */
+    private Logger logger = LoggerFactory.getLogger(PackageCache.class);
+
+    /**
+     * AWS S3 API client.
+     */
+    private AmazonS3 s3;
+
+    /**
+     * Local storage directory.
+     */
+    private Path directory;
+
+    /**
+     * Local storage lock.
+     */
+    private Object lock;
+
+    /**
+     * Initializes cache.
+     *
+     * @param s3 AWS S3 client.
+     * @param directory Local storage directory.
+     */
+    public PackageCache(AmazonS3 s3, Path directory) {
+        this.s3 = s3;
+        this.directory = directory;
+        this.lock = PackageCache.LOCKS.computeIfAbsent(directory.toAbsolutePath().normalize(), path -> new Object());
+    }
+
+    /**
+     * Resolves package content.
+     *
+     * @param key Package content key.
+     * @param bucket S3 bucket for shared cache (may be null to use local storage only).
+     * @param prefix S3 key prefix for shared cache.
+     * @param builder Package building logic, used when package is not cached.
+     * @return Read-only package content.
+     * @throws IOException When resolving package fails.
+     */
+    public ByteBuffer resolve(String key, String bucket, String prefix, PackageBuilder builder) throws IOException {
+        var file = this.directory.resolve(key + PackageCache.PACKAGE_FILE_SUFFIX);
+
+        synchronized (this.lock) {
+            if (Files.exists(file)) {
+                this.logger.info("Package {} found in local cache.", key);
+
+                // keeps recently used packages from being evicted
+                Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+                return PackageCache.map(file);
+            }
+        }
+
+        Files.createDirectories(this.directory);
+        var temporary = Files.createTempFile(this.directory, key, PackageCache.TEMPORARY_FILE_SUFFIX);
+        try {
+            this.populate(temporary, key, bucket, prefix, builder);
+
+            synchronized (this.lock) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                var content = PackageCache.map(file);
+                this.evict(file);
+                return content;
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Maps package file into memory.
+     *
+     * @param file Package file.
+     * @return Read-only package content.
+     * @throws IOException When mapping file fails.
+     */
+    private static ByteBuffer map(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Fills package file either from shared cache or by building it.
+     *
+     * @param file Target file.
+     * @param key Package content key.
+     * @param bucket S3 bucket for shared cache.
+     * @param prefix S3 key prefix for shared cache.
+     * @param builder Package building logic.
+     * @throws IOException When building package fails.
+     */
+    private void populate(
+        Path file,
+        String key,
+        String bucket,
+        String prefix,
+        PackageBuilder builder
+    )
+        throws IOException {
+        if (bucket == null) {
+            builder.build(file);
+            return;
+        }
+
+        var objectKey = prefix + key + PackageCache.PACKAGE_FILE_SUFFIX;
+        if (this.s3.doesObjectExist(bucket, objectKey)) {
+            this.logger.info("Package {} found in s3://{}/{}.", key, bucket, objectKey);
+
+            this.s3.getObject(new GetObjectRequest(bucket, objectKey), file.toFile());
+        } else {
+            builder.build(file);
+
+            this.logger.info("Storing package {} in s3://{}/{}.", key, bucket, objectKey);
+            this.s3.putObject(bucket, objectKey, file.toFile());
+        }
+    }
+
+    /**
+     * Removes least recently used packages above the limit.
+     *
+     * @param current Just placed package, which is always kept.
+     * @throws IOException When listing local storage fails.
+     */
+    private void evict(Path current) throws IOException {
+        try (var files = Files.list(this.directory)) {
+            var packages = files
+                .filter(path -> path.toString().endsWith(PackageCache.PACKAGE_FILE_SUFFIX))
+                .filter(path -> !path.equals(current))
+                .sorted(Comparator.comparingLong(path -> path.toFile().lastModified()))
+                .collect(Collectors.toList());
+
+            for (var i = 0; i <= packages.size() - PackageCache.MAX_LOCAL_ENTRIES; ++i) {
+                this.logger.info("Evicting {} from local cache.", packages.get(i));
+                Files.deleteIfExists(packages.get(i));
+            }
+        }
+    }
+}
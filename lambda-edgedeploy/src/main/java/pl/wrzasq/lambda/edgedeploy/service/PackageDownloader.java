@@ -0,0 +1,177 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.edgedeploy.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+
+/**
+ * Parallel S3 object downloader.
+ */
+public class PackageDownloader {
+    /**
+     * Size of bytes buffer for copying part content.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * AWS S3 API client.
+     */
+    private AmazonS3 s3;
+
+    /**
+     * Initializes object with given S3 client.
+     *
+     * @param s3 AWS S3 client.
+     */
+    public PackageDownloader(AmazonS3 s3) {
+        this.s3 = s3;
+    }
+
+    /**
+     * Downloads object into local file.
+     *
+     * <p>
+     *     Target file is pre-allocated to the object size and each byte range is written directly at its offset.
+     *     Parts are requested for the exact object version described by metadata (ETag is checked as well), so the
+     *     result is never assembled from two different uploads.
+     * </p>
+     *
+     * @param bucket Source bucket.
+     * @param key Source key.
+     * @param metadata Source object metadata.
+     * @param target Destination file.
+     * @param partSize Size of single range request (in bytes).
+     * @param concurrency Maximum number of simultaneous range requests.
+     * @throws IOException When downloading fails.
+     */
+    public void download(
+        String bucket,
+        String key,
+        ObjectMetadata metadata,
+        Path target,
+        long partSize,
+        int concurrency
+    )
+        throws IOException {
+        if (partSize < 1 || concurrency < 1) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Invalid download settings - part size: %d, concurrency: %d.",
+                    partSize,
+                    concurrency
+                )
+            );
+        }
+
+        var size = metadata.getContentLength();
+        var parts = (size + partSize - 1) / partSize;
+
+        try (
+            var channel = FileChannel.open(
+                target,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING
+            )
+        ) {
+            if (size > 0) {
+                // pre-allocate entire file by writing it's last byte
+                channel.write(ByteBuffer.allocate(1), size - 1);
+            }
+
+            var executor = Executors.newFixedThreadPool((int) Math.max(1, Math.min(concurrency, parts)));
+            try {
+                var futures = new ArrayList<Future<?>>();
+                for (var start = 0L; start < size; start += partSize) {
+                    var request = new GetObjectRequest(bucket, key, metadata.getVersionId())
+                        .withRange(start, Math.min(start + partSize, size) - 1)
+                        .withMatchingETagConstraint(metadata.getETag());
+                    futures.add(executor.submit(() -> this.downloadPart(request, channel)));
+                }
+
+                for (var future : futures) {
+                    PackageDownloader.await(future);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Downloads single byte range.
+     *
+     * @param request Range request.
+     * @param channel Destination file channel.
+     */
+    private void downloadPart(GetObjectRequest request, FileChannel channel) {
+        var object = this.s3.getObject(request);
+        // constraints not met - object was overwritten in the meantime
+        if (object == null) {
+            throw new UncheckedIOException(
+                new IOException(
+                    String.format(
+                        "s3://%s/%s was modified during download.",
+                        request.getBucketName(),
+                        request.getKey()
+                    )
+                )
+            );
+        }
+
+        var position = request.getRange()[0];
+        try (var stream = object.getObjectContent()) {
+            var buffer = new byte[PackageDownloader.BUFFER_SIZE];
+            int count;
+            while ((count = stream.read(buffer)) > 0) {
+                var chunk = ByteBuffer.wrap(buffer, 0, count);
+                while (chunk.hasRemaining()) {
+                    position += channel.write(chunk, position);
+                }
+            }
+        } catch (IOException error) {
+            throw new UncheckedIOException(error);
+        }
+    }
+
+    /**
+     * Waits for part download to finish.
+     *
+     * @param future Part download task.
+     * @throws IOException When part download failed.
+     */
+    private static void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            throw new IOException(error);
+        } catch (ExecutionException error) {
+            var cause = error.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.edgedeploy.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+
+/**
+ * Source package downloaded on demand.
+ *
+ * <p>
+ *     Package is downloaded at most once, so the same source can be shared by multiple package builds.
+ * </p>
+ */
+public class PackageSource implements Closeable {
+    /**
+     * Prefix for temporary package files.
+     */
+    private static final String FILE_PREFIX = "edgedeploy";
+
+    /**
+     * Suffix for temporary package files.
+     */
+    private static final String FILE_SUFFIX = ".zip";
+
+    /**
+     * AWS S3 API client.
+     */
+    private AmazonS3 s3;
+
+    /**
+     * Package downloader.
+     */
+    private PackageDownloader downloader;
+
+    /**
+     * Package S3 bucket.
+     */
+    private String bucket;
+
+    /**
+     * Package S3 key.
+     */
+    private String key;
+
+    /**
+     * Size of single download part.
+     */
+    private long partSize;
+
+    /**
+     * Maximum number of parallel part downloads.
+     */
+    private int concurrency;
+
+    /**
+     * Whether package is used by multiple builds (so it can't be moved away).
+     */
+    private boolean shared;
+
+    /**
+     * Package object metadata.
+     */
+    private ObjectMetadata metadata;
+
+    /**
+     * Local package copy.
+     */
+    private Path file;
+
+    /**
+     * Initializes package source.
+     *
+     * @param s3 AWS S3 client.
+     * @param downloader Package downloader.
+     * @param bucket Package S3 bucket.
+     * @param key Package S3 key.
+     * @param partSize Size of single download part.
+     * @param concurrency Maximum number of parallel part downloads.
+     * @param shared Whether package is used by multiple builds.
+     */
+    public PackageSource(
+        AmazonS3 s3,
+        PackageDownloader downloader,
+        String bucket,
+        String key,
+        long partSize,
+        int concurrency,
+        boolean shared
+    ) {
+        this.s3 = s3;
+        this.downloader = downloader;
+        this.bucket = bucket;
+        this.key = key;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+        this.shared = shared;
+    }
+
+    /**
+     * Returns package metadata.
+     *
+     * @return Package object metadata.
+     */
+    public synchronized ObjectMetadata getMetadata() {
+        if (this.metadata == null) {
+            this.metadata = this.s3.getObjectMetadata(this.bucket, this.key);
+        }
+
+        return this.metadata;
+    }
+
+    /**
+     * Returns local package copy.
+     *
+     * @return Package file.
+     * @throws IOException When downloading package fails.
+     */
+    public synchronized Path resolve() throws IOException {
+        if (this.file == null) {
+            var file = Files.createTempFile(PackageSource.FILE_PREFIX, PackageSource.FILE_SUFFIX);
+            try {
+                this.downloader.download(
+                    this.bucket,
+                    this.key,
+                    this.getMetadata(),
+                    file,
+                    this.partSize,
+                    this.concurrency
+                );
+            } catch (IOException | RuntimeException error) {
+                Files.delete(file);
+                throw error;
+            }
+            this.file = file;
+        }
+
+        return this.file;
+    }
+
+    /**
+     * Places package copy in given location.
+     *
+     * <p>
+     *     Exclusive source is moved to avoid copying the data - it will be downloaded again if needed afterwards.
+     * </p>
+     *
+     * @param target Destination file.
+     * @throws IOException When transferring package fails.
+     */
+    public synchronized void transferTo(Path target) throws IOException {
+        var source = this.resolve();
+        if (this.shared) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+            this.file = null;
+        }
+    }
+
+    /**
+     * Removes local package copy.
+     *
+     * @throws IOException When removing file fails.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.file != null) {
+            Files.deleteIfExists(this.file);
+            this.file = null;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.edgedeploy.service;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+
+/**
+ * S3 multipart uploader for built packages.
+ */
+public class PackageUploader {
+    /**
+     * Size of single upload part (S3 requires at least 5MB for all but the last part).
+     */
+    private static final int PART_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * AWS S3 API client.
+     */
+    private AmazonS3 s3;
+
+    /**
+     * Initializes object with given S3 client.
+     *
+     * @param s3 AWS S3 client.
+     */
+    public PackageUploader(AmazonS3 s3) {
+        this.s3 = s3;
+    }
+
+    /**
+     * Uploads package content.
+     *
+     * <p>
+     *     Each part is streamed from a view of the given buffer, so content is never copied on the heap. Part streams
+     *     can be rewound, so the SDK can retry single part after transient failure. Unfinished upload is aborted on
+     *     failure to not leave orphaned parts in the bucket.
+     * </p>
+     *
+     * @param bucket Target bucket.
+     * @param key Target key.
+     * @param content Package content.
+     */
+    public void upload(String bucket, String key, ByteBuffer content) {
+        var uploadId = this.s3.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, key))
+            .getUploadId();
+
+        try {
+            var size = content.remaining();
+            var parts = new ArrayList<PartETag>();
+            var position = 0;
+            do {
+                var partSize = Math.min(PackageUploader.PART_SIZE, size - position);
+                var part = content.duplicate();
+                part.position(part.position() + position);
+                part.limit(part.position() + partSize);
+
+                var request = new UploadPartRequest()
+                    .withBucketName(bucket)
+                    .withKey(key)
+                    .withUploadId(uploadId)
+                    .withPartNumber(parts.size() + 1)
+                    .withPartSize(partSize)
+                    .withInputStream(new PartInputStream(part));
+                // whole part can be rewound for retries
+                request.getRequestClientOptions().setReadLimit(partSize + 1);
+
+                parts.add(this.s3.uploadPart(request).getPartETag());
+
+                position += partSize;
+            } while (position < size);
+
+            this.s3.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, uploadId, parts));
+        } catch (RuntimeException error) {
+            this.s3.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, uploadId));
+            throw error;
+        }
+    }
+
+    /**
+     * Resettable stream of single part content.
+     */
+    private static final class PartInputStream extends InputStream {
+        /**
+         * Part content.
+         */
+        private final ByteBuffer content;
+
+        /**
+         * Marked position.
+         */
+        private int mark;
+
+        /**
+         * Initializes stream.
+         *
+         * @param content Part content.
+         */
+        PartInputStream(ByteBuffer content) {
+            this.content = content;
+            this.mark = content.position();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read() {
+            return this.content.hasRemaining() ? this.content.get() & 0xff : -1;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!this.content.hasRemaining()) {
+                return -1;
+            }
+
+            var count = Math.min(length, this.content.remaining());
+            this.content.get(buffer, offset, count);
+            return count;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long skip(long count) {
+            var skipped = (int) Math.max(0, Math.min(count, this.content.remaining()));
+            this.content.position(this.content.position() + skipped);
+            return skipped;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int available() {
+            return this.content.remaining();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized void mark(int readLimit) {
+            // content is already in memory, so there is no real read limit
+            this.mark = this.content.position();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized void reset() {
+            this.content.position(this.mark);
+        }
+    }
+}
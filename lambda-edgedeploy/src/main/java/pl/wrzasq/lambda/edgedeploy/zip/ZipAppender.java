@@ -0,0 +1,445 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.edgedeploy.zip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * In-place ZIP archive updater.
+ *
+ * <p>
+ *     Existing local file entries are left untouched - new entry is written in place of the old central directory,
+ *     followed by the rewritten central directory. Replaced entry stays in the file as unreferenced data. Only plain
+ *     (non-ZIP64) archives are supported.
+ * </p>
+ */
+public class ZipAppender {
+    /**
+     * Local file header signature.
+     */
+    private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+
+    /**
+     * Central directory file header signature.
+     */
+    private static final int CENTRAL_FILE_HEADER_SIGNATURE = 0x02014b50;
+
+    /**
+     * End of central directory record signature.
+     */
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+    /**
+     * ZIP64 end of central directory locator signature.
+     */
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    /**
+     * Local file header size (without variable fields).
+     */
+    private static final int LOCAL_FILE_HEADER_SIZE = 30;
+
+    /**
+     * Central directory file header size (without variable fields).
+     */
+    private static final int CENTRAL_FILE_HEADER_SIZE = 46;
+
+    /**
+     * End of central directory record size (without comment).
+     */
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+    /**
+     * ZIP64 end of central directory locator size.
+     */
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+
+    /**
+     * Maximum archive comment length.
+     */
+    private static final int MAX_COMMENT_SIZE = 0xffff;
+
+    /**
+     * Maximum value of 16-bit fields.
+     */
+    private static final int MAX_SHORT = 0xffff;
+
+    /**
+     * Maximum value of 32-bit fields.
+     */
+    private static final long MAX_INT = 0xffffffffL;
+
+    /**
+     * Version needed to extract deflated entries (2.0).
+     */
+    private static final short VERSION_NEEDED = 20;
+
+    /**
+     * Version made by - Unix host, specification 2.0.
+     */
+    private static final short VERSION_MADE_BY = (3 << 8) | 20;
+
+    /**
+     * General purpose flag - UTF-8 names.
+     */
+    private static final short FLAG_UTF8 = 0x0800;
+
+    /**
+     * Entry DOS date (1980-01-01), same as in deterministic mode of {@link ZipBuilder}.
+     */
+    private static final short DOS_DATE = (1 << 5) | 1;
+
+    /**
+     * Entry Unix mode (regular file, 0644).
+     */
+    private static final int UNIX_MODE = 0100644;
+
+    /**
+     * Size of bytes buffer for compression.
+     */
+    private static final int BUFFER_SIZE = 1024;
+
+    /**
+     * Offset of file name length in central directory file header.
+     */
+    private static final int CENTRAL_NAME_LENGTH_OFFSET = 28;
+
+    /**
+     * Offset of extra field length in central directory file header.
+     */
+    private static final int CENTRAL_EXTRA_LENGTH_OFFSET = 30;
+
+    /**
+     * Offset of file comment length in central directory file header.
+     */
+    private static final int CENTRAL_COMMENT_LENGTH_OFFSET = 32;
+
+    /**
+     * Offset of number of entries on current disk in end of central directory record.
+     */
+    private static final int EOCD_DISK_ENTRIES_OFFSET = 8;
+
+    /**
+     * Offset of total number of entries in end of central directory record.
+     */
+    private static final int EOCD_ENTRIES_OFFSET = 10;
+
+    /**
+     * Offset of central directory size in end of central directory record.
+     */
+    private static final int EOCD_SIZE_OFFSET = 12;
+
+    /**
+     * Offset of central directory offset in end of central directory record.
+     */
+    private static final int EOCD_OFFSET_OFFSET = 16;
+
+    /**
+     * Offset of archive comment length in end of central directory record.
+     */
+    private static final int EOCD_COMMENT_LENGTH_OFFSET = 20;
+
+    /**
+     * Archive file.
+     */
+    private Path file;
+
+    /**
+     * Initializes updater for given file.
+     *
+     * @param file Archive file.
+     */
+    public ZipAppender(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Creates or replaces archive entry.
+     *
+     * <p>
+     *     Archive is validated before any modification, so when this method throws {@link ZipException} the file is
+     *     left intact.
+     * </p>
+     *
+     * @param name Entry name.
+     * @param content Binary content of the file.
+     * @throws IOException When archive can not be updated.
+     */
+    public void writeEntry(String name, byte[] content) throws IOException {
+        try (
+            var channel = FileChannel.open(this.file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+        ) {
+            var end = ZipAppender.readEndOfCentralDirectory(channel);
+            var entriesCount = Short.toUnsignedInt(end.getShort(ZipAppender.EOCD_ENTRIES_OFFSET));
+            var directorySize = Integer.toUnsignedLong(end.getInt(ZipAppender.EOCD_SIZE_OFFSET));
+            var directoryOffset = Integer.toUnsignedLong(end.getInt(ZipAppender.EOCD_OFFSET_OFFSET));
+            if (entriesCount == ZipAppender.MAX_SHORT
+                || directorySize == ZipAppender.MAX_INT
+                || directoryOffset == ZipAppender.MAX_INT
+            ) {
+                throw new ZipException("ZIP64 archives are not supported.");
+            }
+
+            var directory = ZipAppender.read(channel, directoryOffset, (int) directorySize);
+            var nameBytes = name.getBytes(StandardCharsets.UTF_8);
+
+            // re-use all central directory records, except the one being replaced
+            var records = new ByteArrayOutputStream();
+            var count = 0;
+            while (directory.remaining() >= ZipAppender.CENTRAL_FILE_HEADER_SIZE) {
+                var start = directory.position();
+                if (directory.getInt(start) != ZipAppender.CENTRAL_FILE_HEADER_SIGNATURE) {
+                    throw new ZipException("Invalid central directory record.");
+                }
+
+                var nameLength = Short.toUnsignedInt(
+                    directory.getShort(start + ZipAppender.CENTRAL_NAME_LENGTH_OFFSET)
+                );
+                var length = ZipAppender.CENTRAL_FILE_HEADER_SIZE
+                    + nameLength
+                    + Short.toUnsignedInt(directory.getShort(start + ZipAppender.CENTRAL_EXTRA_LENGTH_OFFSET))
+                    + Short.toUnsignedInt(directory.getShort(start + ZipAppender.CENTRAL_COMMENT_LENGTH_OFFSET));
+                if (start + length > directory.limit()) {
+                    throw new ZipException("Invalid central directory record.");
+                }
+                var record = new byte[length];
+                directory.get(record);
+
+                var recordName = Arrays.copyOfRange(
+                    record,
+                    ZipAppender.CENTRAL_FILE_HEADER_SIZE,
+                    ZipAppender.CENTRAL_FILE_HEADER_SIZE + nameLength
+                );
+                if (!Arrays.equals(recordName, nameBytes)) {
+                    records.write(record);
+                    ++count;
+                }
+            }
+
+            var compressed = ZipAppender.deflate(content);
+            var crc = new CRC32();
+            crc.update(content);
+
+            var localHeader = ZipAppender.buildLocalHeader(
+                nameBytes,
+                crc.getValue(),
+                compressed.length,
+                content.length
+            );
+            var directoryEnd = directoryOffset + localHeader.remaining() + compressed.length;
+            if (count + 1 >= ZipAppender.MAX_SHORT
+                || directoryEnd + records.size() + ZipAppender.CENTRAL_FILE_HEADER_SIZE + nameBytes.length
+                    >= ZipAppender.MAX_INT
+            ) {
+                throw new ZipException("Updated archive would require ZIP64 format.");
+            }
+
+            records.write(
+                ZipAppender.buildCentralHeader(
+                    nameBytes,
+                    crc.getValue(),
+                    compressed.length,
+                    content.length,
+                    directoryOffset
+                ).array()
+            );
+            ++count;
+
+            end.putShort(ZipAppender.EOCD_DISK_ENTRIES_OFFSET, (short) count);
+            end.putShort(ZipAppender.EOCD_ENTRIES_OFFSET, (short) count);
+            end.putInt(ZipAppender.EOCD_SIZE_OFFSET, records.size());
+            end.putInt(ZipAppender.EOCD_OFFSET_OFFSET, (int) directoryEnd);
+
+            // everything validated - from now on archive gets modified
+            channel.position(directoryOffset);
+            ZipAppender.writeFully(channel, localHeader);
+            ZipAppender.writeFully(channel, ByteBuffer.wrap(compressed));
+            ZipAppender.writeFully(channel, ByteBuffer.wrap(records.toByteArray()));
+            ZipAppender.writeFully(channel, end.rewind());
+            channel.truncate(channel.position());
+        }
+    }
+
+    /**
+     * Locates and reads end of central directory record (including archive comment).
+     *
+     * @param channel Archive file.
+     * @return End of central directory record.
+     * @throws IOException When record can not be read.
+     */
+    private static ByteBuffer readEndOfCentralDirectory(FileChannel channel) throws IOException {
+        var size = channel.size();
+        var tailSize = (int) Math.min(
+            size,
+            ZipAppender.END_OF_CENTRAL_DIRECTORY_SIZE + ZipAppender.MAX_COMMENT_SIZE
+        );
+        var tailOffset = size - tailSize;
+        var tail = ZipAppender.read(channel, tailOffset, tailSize);
+
+        for (var position = tailSize - ZipAppender.END_OF_CENTRAL_DIRECTORY_SIZE; position >= 0; --position) {
+            var commentLength = Short.toUnsignedInt(
+                tail.getShort(position + ZipAppender.EOCD_COMMENT_LENGTH_OFFSET)
+            );
+            if (tail.getInt(position) == ZipAppender.END_OF_CENTRAL_DIRECTORY_SIGNATURE
+                && position + ZipAppender.END_OF_CENTRAL_DIRECTORY_SIZE + commentLength == tailSize
+            ) {
+                if (tailOffset + position >= ZipAppender.ZIP64_LOCATOR_SIZE
+                    && ZipAppender.read(
+                        channel,
+                        tailOffset + position - ZipAppender.ZIP64_LOCATOR_SIZE,
+                        Integer.BYTES
+                    )
+                        .getInt() == ZipAppender.ZIP64_LOCATOR_SIGNATURE
+                ) {
+                    throw new ZipException("ZIP64 archives are not supported.");
+                }
+
+                var end = ByteBuffer.allocate(ZipAppender.END_OF_CENTRAL_DIRECTORY_SIZE + commentLength)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+                end.put(tail.position(position));
+                return end.rewind();
+            }
+        }
+
+        throw new ZipException("End of central directory record not found.");
+    }
+
+    /**
+     * Builds local file header.
+     *
+     * @param name Entry name.
+     * @param crc Content checksum.
+     * @param compressedSize Compressed content size.
+     * @param size Uncompressed content size.
+     * @return Header.
+     */
+    private static ByteBuffer buildLocalHeader(byte[] name, long crc, int compressedSize, int size) {
+        var header = ByteBuffer.allocate(ZipAppender.LOCAL_FILE_HEADER_SIZE + name.length)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .putInt(ZipAppender.LOCAL_FILE_HEADER_SIGNATURE)
+            .putShort(ZipAppender.VERSION_NEEDED)
+            .putShort(ZipAppender.FLAG_UTF8)
+            .putShort((short) ZipEntry.DEFLATED)
+            .putShort((short) 0)
+            .putShort(ZipAppender.DOS_DATE)
+            .putInt((int) crc)
+            .putInt(compressedSize)
+            .putInt(size)
+            .putShort((short) name.length)
+            .putShort((short) 0)
+            .put(name);
+        return header.rewind();
+    }
+
+    /**
+     * Builds central directory file header.
+     *
+     * @param name Entry name.
+     * @param crc Content checksum.
+     * @param compressedSize Compressed content size.
+     * @param size Uncompressed content size.
+     * @param offset Local header offset.
+     * @return Header.
+     */
+    private static ByteBuffer buildCentralHeader(
+        byte[] name,
+        long crc,
+        int compressedSize,
+        int size,
+        long offset
+    ) {
+        return ByteBuffer.allocate(ZipAppender.CENTRAL_FILE_HEADER_SIZE + name.length)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .putInt(ZipAppender.CENTRAL_FILE_HEADER_SIGNATURE)
+            .putShort(ZipAppender.VERSION_MADE_BY)
+            .putShort(ZipAppender.VERSION_NEEDED)
+            .putShort(ZipAppender.FLAG_UTF8)
+            .putShort((short) ZipEntry.DEFLATED)
+            .putShort((short) 0)
+            .putShort(ZipAppender.DOS_DATE)
+            .putInt((int) crc)
+            .putInt(compressedSize)
+            .putInt(size)
+            .putShort((short) name.length)
+            // extra field, comment, disk number and internal attributes
+            .putShort((short) 0)
+            .putShort((short) 0)
+            .putShort((short) 0)
+            .putShort((short) 0)
+            .putInt(ZipAppender.UNIX_MODE << 16)
+            .putInt((int) offset)
+            .put(name);
+    }
+
+    /**
+     * Compresses content with raw DEFLATE.
+     *
+     * @param content Input data.
+     * @return Compressed data.
+     */
+    private static byte[] deflate(byte[] content) {
+        var deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+
+            var output = new ByteArrayOutputStream();
+            var buffer = new byte[ZipAppender.BUFFER_SIZE];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Reads file fragment.
+     *
+     * @param channel Source file.
+     * @param offset Fragment offset.
+     * @param size Fragment size.
+     * @return Fragment content.
+     * @throws IOException When reading fails.
+     */
+    private static ByteBuffer read(FileChannel channel, long offset, int size) throws IOException {
+        var buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new ZipException("Unexpected end of archive.");
+            }
+        }
+        return buffer.rewind();
+    }
+
+    /**
+     * Writes entire buffer at current channel position.
+     *
+     * @param channel Target file.
+     * @param buffer Data.
+     * @throws IOException When writing fails.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
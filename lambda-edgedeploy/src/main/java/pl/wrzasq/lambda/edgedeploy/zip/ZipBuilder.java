@@ -2,7 +2,7 @@
  * This file is part of the pl.wrzasq.lambda.
  *
  * @license http://mit-license.org/ The MIT license
- * @copyright 2018 - 2019 © by Rafał Wrzeszcz - Wrzasq.pl.
+ * @copyright 2018 - 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
  */
 
 package pl.wrzasq.lambda.edgedeploy.zip;
@@ -11,9 +11,25 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.compress.archivers.zip.UnixStat;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipExtraField;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 
 /**
  * Utility class for building ZIP archive stream.
@@ -32,20 +48,139 @@ public class ZipBuilder {
         void write() throws IOException;
     }
 
+    /**
+     * Internal interface for exposing built archive.
+     */
+    @FunctionalInterface
+    private interface ContentDumper {
+        /**
+         * Exposes archive content.
+         *
+         * @return Archive binary content.
+         * @throws IOException When reading archive content fails.
+         */
+        ByteBuffer dump() throws IOException;
+    }
+
     /**
      * Size of bytes buffer for resource processing.
      */
     private static final int BUFFER_SIZE = 1024;
 
     /**
-     * Output stream.
+     * Modification time set for all entries in deterministic mode (lowest date representable in DOS format).
+     */
+    private static final LocalDateTime DETERMINISTIC_TIME = LocalDateTime.of(1980, 1, 1, 0, 0);
+
+    /**
+     * Compression level used in deterministic mode.
      */
-    private ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private static final int DETERMINISTIC_LEVEL = Deflater.BEST_COMPRESSION;
+
+    /**
+     * Unix permissions for regular files in deterministic mode.
+     */
+    private static final int MODE_FILE = 0644;
+
+    /**
+     * Unix permissions for executable files and directories in deterministic mode.
+     */
+    private static final int MODE_EXECUTABLE = 0755;
+
+    /**
+     * Unix execute permission bits.
+     */
+    private static final int MODE_EXECUTE_BITS = 0111;
 
     /**
      * ZIP compression stream.
      */
-    private ZipOutputStream zip = new ZipOutputStream(this.output);
+    private ZipArchiveOutputStream zip;
+
+    /**
+     * Output content provider.
+     */
+    private ContentDumper dumper;
+
+    /**
+     * Names of already written entries.
+     */
+    private Set<String> entries = new HashSet<>();
+
+    /**
+     * Reproducible output flag.
+     */
+    private boolean deterministic;
+
+    /**
+     * Initializes in-memory archive.
+     */
+    public ZipBuilder() {
+        this(false);
+    }
+
+    /**
+     * Initializes in-memory archive.
+     *
+     * @param deterministic Reproducible output flag.
+     */
+    public ZipBuilder(boolean deterministic) {
+        var output = new ByteArrayOutputStream();
+
+        this.zip = new ZipArchiveOutputStream(output);
+        this.dumper = () -> ByteBuffer.wrap(output.toByteArray());
+        this.initialize(deterministic);
+    }
+
+    /**
+     * Initializes archive streamed directly into the file.
+     *
+     * <p>
+     *     Archive content is never held on the heap - dumped buffer is a read-only memory mapping of the file, so it
+     *     stays valid even after the file is removed.
+     * </p>
+     *
+     * @param file Target file.
+     * @throws IOException When opening target file fails.
+     */
+    public ZipBuilder(Path file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * Initializes archive streamed directly into the file.
+     *
+     * @param file Target file.
+     * @param deterministic Reproducible output flag.
+     * @throws IOException When opening target file fails.
+     */
+    public ZipBuilder(Path file, boolean deterministic) throws IOException {
+        this.zip = new ZipArchiveOutputStream(file.toFile());
+        this.dumper = () -> {
+            try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        };
+        this.initialize(deterministic);
+    }
+
+    /**
+     * Sets up output mode.
+     *
+     * <p>
+     *     In deterministic mode same input always produces byte-identical archive: all entries get fixed modification
+     *     time, normalized permissions and no extra fields or comments, entries of copied archives are sorted by name
+     *     and compression level doesn't depend on defaults.
+     * </p>
+     *
+     * @param deterministic Reproducible output flag.
+     */
+    private void initialize(boolean deterministic) {
+        this.deterministic = deterministic;
+        if (deterministic) {
+            this.zip.setLevel(ZipBuilder.DETERMINISTIC_LEVEL);
+        }
+    }
 
     /**
      * Creates new ZIP archive entry.
@@ -86,16 +221,25 @@ public class ZipBuilder {
      * @throws IOException When writing to stream fails.
      */
     private void writeEntry(String name, ContentWriter handler) throws IOException {
-        this.zip.putNextEntry(
-            new ZipEntry(name)
-        );
+        this.registerEntry(name);
+
+        var entry = new ZipArchiveEntry(name);
+        entry.setMethod(ZipEntry.DEFLATED);
+        this.normalize(entry);
+
+        this.zip.putArchiveEntry(entry);
         handler.write();
-        this.zip.closeEntry();
+        this.zip.closeArchiveEntry();
     }
 
     /**
      * Copies another archive into current one.
      *
+     * <p>
+     *     Each entry is inflated and compressed again - use {@link #copyFrom(ZipFile)} whenever source archive can be
+     *     accessed randomly.
+     * </p>
+     *
      * @param archive Source.
      * @throws IOException When reading source archive fails.
      */
@@ -107,6 +251,36 @@ public class ZipBuilder {
         }
     }
 
+    /**
+     * Copies another archive into current one.
+     *
+     * <p>
+     *     Entries are copied byte-for-byte in their compressed form - CRC, sizes and compression method are taken from
+     *     source central directory. In deterministic mode entries are copied in name order, otherwise in their
+     *     physical order.
+     * </p>
+     *
+     * @param archive Source.
+     * @throws IOException When reading source archive fails.
+     */
+    public void copyFrom(ZipFile archive) throws IOException {
+        var sources = Collections.list(archive.getEntriesInPhysicalOrder());
+        if (this.deterministic) {
+            sources.sort(Comparator.comparing(ZipArchiveEntry::getName));
+        }
+
+        for (var entry : sources) {
+            this.registerEntry(entry.getName());
+
+            var target = entry;
+            if (this.deterministic) {
+                target = new ZipArchiveEntry(entry);
+                this.normalize(target);
+            }
+            this.zip.addRawArchiveEntry(target, archive.getRawInputStream(entry));
+        }
+    }
+
     /**
      * Closes active stream.
      *
@@ -115,8 +289,58 @@ public class ZipBuilder {
      */
     public ByteBuffer dump() throws IOException {
         this.zip.close();
-        this.output.close();
 
-        return ByteBuffer.wrap(this.output.toByteArray());
+        return this.dumper.dump();
+    }
+
+    /**
+     * Strips build-specific metadata from entry in deterministic mode.
+     *
+     * @param entry Archive entry.
+     */
+    private void normalize(ZipArchiveEntry entry) {
+        if (!this.deterministic) {
+            return;
+        }
+
+        // DOS time is stored in local time, so it needs to be calculated in current zone to always be the same
+        entry.setTime(ZipBuilder.DETERMINISTIC_TIME.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        entry.setExtraFields(new ZipExtraField[0]);
+        entry.setComment(null);
+        entry.setUnixMode(ZipBuilder.normalizeMode(entry));
+    }
+
+    /**
+     * Computes normalized Unix mode.
+     *
+     * <p>
+     *     Only entry type and executable flag are preserved.
+     * </p>
+     *
+     * @param entry Archive entry.
+     * @return Unix mode.
+     */
+    private static int normalizeMode(ZipArchiveEntry entry) {
+        if (entry.isUnixSymlink()) {
+            return UnixStat.LINK_FLAG | UnixStat.DEFAULT_LINK_PERM;
+        } else if (entry.isDirectory()) {
+            return UnixStat.DIR_FLAG | ZipBuilder.MODE_EXECUTABLE;
+        } else if ((entry.getUnixMode() & ZipBuilder.MODE_EXECUTE_BITS) != 0) {
+            return UnixStat.FILE_FLAG | ZipBuilder.MODE_EXECUTABLE;
+        } else {
+            return UnixStat.FILE_FLAG | ZipBuilder.MODE_FILE;
+        }
+    }
+
+    /**
+     * Marks entry name as used.
+     *
+     * @param name Entry name.
+     * @throws ZipException When entry already exists in archive.
+     */
+    private void registerEntry(String name) throws ZipException {
+        if (!this.entries.add(name)) {
+            throw new ZipException(String.format("duplicate entry: %s", name));
+        }
     }
 }
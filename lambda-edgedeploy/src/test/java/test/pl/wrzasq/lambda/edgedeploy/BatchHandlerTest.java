@@ -0,0 +1,67 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.edgedeploy;
+
+import java.util.Map;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.sunrun.cfnresponse.CfnRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.commons.aws.cloudformation.CustomResourceHandler;
+import pl.wrzasq.lambda.edgedeploy.BatchHandler;
+import pl.wrzasq.lambda.edgedeploy.model.EdgeDeployBatchRequest;
+
+@ExtendWith(MockitoExtension.class)
+public class BatchHandlerTest {
+    @Mock
+    private CustomResourceHandler<EdgeDeployBatchRequest, Map<String, String>> handler;
+
+    @Mock
+    private Context context;
+
+    private CustomResourceHandler<EdgeDeployBatchRequest, Map<String, String>> originalHandler;
+
+    @BeforeEach
+    public void setUp() throws NoSuchFieldException, IllegalAccessException {
+        this.originalHandler = this.setHandler(this.handler);
+    }
+
+    @AfterEach
+    public void tearDown() throws NoSuchFieldException, IllegalAccessException {
+        this.setHandler(this.originalHandler);
+    }
+
+    @Test
+    public void handle() {
+        var request = new CfnRequest<EdgeDeployBatchRequest>();
+        request.setRequestType("Create");
+        request.setResourceProperties(new EdgeDeployBatchRequest());
+
+        new BatchHandler().handle(request, this.context);
+
+        Mockito.verify(this.handler).handle(request, this.context);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CustomResourceHandler<EdgeDeployBatchRequest, Map<String, String>> setHandler(
+        CustomResourceHandler<EdgeDeployBatchRequest, Map<String, String>> sender
+    )
+        throws NoSuchFieldException, IllegalAccessException {
+        var hack = BatchHandler.class.getDeclaredField("handler");
+        hack.setAccessible(true);
+        var original = (CustomResourceHandler<EdgeDeployBatchRequest, Map<String, String>>) hack.get(null);
+        hack.set(null, sender);
+        return original;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.edgedeploy;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.edgedeploy.DrainHandler;
+import pl.wrzasq.lambda.edgedeploy.service.DeletionDrainer;
+
+@ExtendWith(MockitoExtension.class)
+public class DrainHandlerTest {
+    @Mock
+    private InputStream inputStream;
+
+    @Mock
+    private OutputStream outputStream;
+
+    @Mock
+    private DeletionDrainer drainer;
+
+    @Test
+    public void handle() {
+        // for code coverage
+        new DrainHandler();
+
+        var handler = new DrainHandler(this.drainer);
+
+        handler.handle(this.inputStream, this.outputStream);
+
+        Mockito
+            .verify(this.drainer)
+            .drain(System.getenv("DELETION_TABLE"));
+    }
+}
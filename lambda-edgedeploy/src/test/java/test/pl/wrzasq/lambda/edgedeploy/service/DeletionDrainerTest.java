@@ -0,0 +1,77 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.edgedeploy.service;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.amazonaws.services.lambda.AWSLambda;
+import com.amazonaws.services.lambda.model.DeleteFunctionRequest;
+import com.amazonaws.services.lambda.model.DeleteFunctionResult;
+import com.amazonaws.services.lambda.model.InvalidParameterValueException;
+import com.amazonaws.services.lambda.model.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.edgedeploy.model.PendingDeletion;
+import pl.wrzasq.lambda.edgedeploy.service.DeletionDrainer;
+import pl.wrzasq.lambda.edgedeploy.service.DeletionQueue;
+
+@ExtendWith(MockitoExtension.class)
+public class DeletionDrainerTest {
+    private static final String TABLE = "pending";
+
+    @Mock
+    private AWSLambda lambda;
+
+    @Mock
+    private DeletionQueue queue;
+
+    @Test
+    public void drain() {
+        var drainer = new DeletionDrainer(this.lambda, this.queue);
+
+        var deleted = new PendingDeletion("deleted", 0, Instant.EPOCH);
+        var missing = new PendingDeletion("missing", 1, Instant.EPOCH);
+        var replicated = new PendingDeletion("replicated", 2, Instant.EPOCH);
+
+        Mockito
+            .when(this.queue.listDue(DeletionDrainerTest.TABLE))
+            .thenReturn(List.of(deleted, missing, replicated));
+        Mockito
+            .when(this.lambda.deleteFunction(Mockito.any(DeleteFunctionRequest.class)))
+            .thenAnswer(invocation -> {
+                DeleteFunctionRequest request = invocation.getArgument(0);
+                switch (request.getFunctionName()) {
+                    case "missing":
+                        throw new ResourceNotFoundException("not found");
+                    case "replicated":
+                        throw new InvalidParameterValueException("replicated function");
+                    default:
+                        return new DeleteFunctionResult();
+                }
+            });
+        Mockito
+            .when(this.queue.reschedule(DeletionDrainerTest.TABLE, replicated))
+            .thenReturn(new PendingDeletion("replicated", 3, Instant.EPOCH));
+
+        drainer.drain(DeletionDrainerTest.TABLE);
+
+        Mockito.verify(this.lambda).deleteFunction(new DeleteFunctionRequest().withFunctionName("deleted"));
+        Mockito.verify(this.queue).remove(DeletionDrainerTest.TABLE, "deleted");
+        Mockito.verify(this.queue).remove(DeletionDrainerTest.TABLE, "missing");
+        Mockito
+            .verify(
+                this.queue,
+                Mockito.never().description("DeletionDrainer.drain() should keep failed deletion in the queue.")
+            )
+            .remove(DeletionDrainerTest.TABLE, "replicated");
+    }
+}
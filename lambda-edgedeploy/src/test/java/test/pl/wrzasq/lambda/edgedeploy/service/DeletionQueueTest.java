@@ -0,0 +1,153 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.edgedeploy.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.edgedeploy.model.PendingDeletion;
+import pl.wrzasq.lambda.edgedeploy.service.DeletionQueue;
+
+@ExtendWith(MockitoExtension.class)
+public class DeletionQueueTest {
+    private static final String TABLE = "pending";
+
+    private static final Instant NOW = Instant.ofEpochSecond(1000000);
+
+    @Mock
+    private AmazonDynamoDB dynamoDb;
+
+    @Captor
+    private ArgumentCaptor<PutItemRequest> putRequest;
+
+    @Test
+    public void enqueue() {
+        var queue = this.createQueue();
+
+        queue.enqueue(DeletionQueueTest.TABLE, "test");
+
+        Mockito.verify(this.dynamoDb).putItem(this.putRequest.capture());
+
+        Assertions.assertEquals(
+            Map.of(
+                "functionName", new AttributeValue("test"),
+                "attempts", new AttributeValue().withN("0"),
+                "nextAttempt", new AttributeValue().withN("1000000")
+            ),
+            this.putRequest.getValue().getItem(),
+            "DeletionQueue.enqueue() should store function due immediately."
+        );
+        Assertions.assertEquals(
+            DeletionQueueTest.TABLE,
+            this.putRequest.getValue().getTableName(),
+            "DeletionQueue.enqueue() should store item in given table."
+        );
+    }
+
+    @Test
+    public void listDue() {
+        var queue = this.createQueue();
+        var lastKey = Map.of("functionName", new AttributeValue("due"));
+
+        Mockito
+            .when(this.dynamoDb.scan(new ScanRequest().withTableName(DeletionQueueTest.TABLE)))
+            .thenReturn(
+                new ScanResult()
+                    .withItems(List.of(DeletionQueueTest.buildItem("due", 999999)))
+                    .withLastEvaluatedKey(lastKey)
+            );
+        Mockito
+            .when(
+                this.dynamoDb.scan(
+                    new ScanRequest()
+                        .withTableName(DeletionQueueTest.TABLE)
+                        .withExclusiveStartKey(lastKey)
+                )
+            )
+            .thenReturn(
+                new ScanResult()
+                    .withItems(List.of(DeletionQueueTest.buildItem("later", 1000001)))
+            );
+
+        Assertions.assertEquals(
+            List.of(new PendingDeletion("due", 2, Instant.ofEpochSecond(999999))),
+            queue.listDue(DeletionQueueTest.TABLE),
+            "DeletionQueue.listDue() should return only deletions due for next attempt from all pages."
+        );
+    }
+
+    @Test
+    public void reschedule() {
+        var queue = this.createQueue();
+
+        var next = queue.reschedule(DeletionQueueTest.TABLE, new PendingDeletion("test", 2, Instant.EPOCH));
+
+        Assertions.assertEquals(
+            new PendingDeletion("test", 3, DeletionQueueTest.NOW.plus(Duration.ofMinutes(60))),
+            next,
+            "DeletionQueue.reschedule() should increase delay exponentially."
+        );
+        Mockito.verify(this.dynamoDb).putItem(Mockito.any(PutItemRequest.class));
+    }
+
+    @Test
+    public void rescheduleCapped() {
+        var queue = this.createQueue();
+
+        var next = queue.reschedule(DeletionQueueTest.TABLE, new PendingDeletion("test", 100, Instant.EPOCH));
+
+        Assertions.assertEquals(
+            DeletionQueueTest.NOW.plus(Duration.ofHours(6)),
+            next.getNextAttempt(),
+            "DeletionQueue.reschedule() should limit maximum delay."
+        );
+    }
+
+    @Test
+    public void remove() {
+        var queue = this.createQueue();
+
+        queue.remove(DeletionQueueTest.TABLE, "test");
+
+        Mockito.verify(this.dynamoDb).deleteItem(
+            new DeleteItemRequest()
+                .withTableName(DeletionQueueTest.TABLE)
+                .withKey(Map.of("functionName", new AttributeValue("test")))
+        );
+    }
+
+    private DeletionQueue createQueue() {
+        return new DeletionQueue(this.dynamoDb, Clock.fixed(DeletionQueueTest.NOW, ZoneOffset.UTC));
+    }
+
+    private static Map<String, AttributeValue> buildItem(String functionName, long nextAttempt) {
+        return Map.of(
+            "functionName", new AttributeValue(functionName),
+            "attempts", new AttributeValue().withN("2"),
+            "nextAttempt", new AttributeValue().withN(String.valueOf(nextAttempt))
+        );
+    }
+}
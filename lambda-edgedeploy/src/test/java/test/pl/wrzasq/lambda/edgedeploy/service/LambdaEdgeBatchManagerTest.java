@@ -0,0 +1,196 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.edgedeploy.service;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.amazonaws.services.lambda.model.PublishVersionResult;
+import com.amazonaws.services.lambda.model.ResourceNotFoundException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.commons.aws.cloudformation.CustomResourceResponse;
+import pl.wrzasq.lambda.edgedeploy.model.EdgeDeployBatchRequest;
+import pl.wrzasq.lambda.edgedeploy.model.EdgeDeployRequest;
+import pl.wrzasq.lambda.edgedeploy.service.LambdaEdgeBatchManager;
+import pl.wrzasq.lambda.edgedeploy.service.LambdaEdgeManager;
+import pl.wrzasq.lambda.edgedeploy.service.PackageSource;
+
+@ExtendWith(MockitoExtension.class)
+public class LambdaEdgeBatchManagerTest {
+    private static final String PACKAGE_BUCKET = "test";
+
+    private static final String PACKAGE_KEY = "package.zip";
+
+    private static final String PHYSICAL_ID = "origin,viewer";
+
+    @Mock
+    private LambdaEdgeManager manager;
+
+    @Mock
+    private PackageSource source;
+
+    @Test
+    public void create() throws IOException {
+        var batch = new LambdaEdgeBatchManager(this.manager);
+        var input = LambdaEdgeBatchManagerTest.buildRequest();
+
+        Mockito
+            .when(this.manager.openPackage(Mockito.any(), Mockito.eq(true)))
+            .thenReturn(this.source);
+        Mockito
+            .when(this.manager.createFromPackage(Mockito.any(), Mockito.same(this.source)))
+            .thenAnswer(invocation -> LambdaEdgeBatchManagerTest.buildResponse(invocation.getArgument(0)));
+
+        var response = batch.create(input, null);
+
+        Mockito
+            .verify(
+                this.manager,
+                Mockito.times(1).description("LambdaEdgeBatchManager.create() should download package only once.")
+            )
+            .openPackage(Mockito.any(), Mockito.anyBoolean());
+        Mockito.verify(this.manager).createFromPackage(
+            Mockito.argThat(
+                (EdgeDeployRequest request) -> "viewer-request".equals(request.getFunctionName())
+                    && LambdaEdgeBatchManagerTest.PACKAGE_BUCKET.equals(request.getPackageBucket())
+                    && LambdaEdgeBatchManagerTest.PACKAGE_KEY.equals(request.getPackageKey())
+            ),
+            Mockito.same(this.source)
+        );
+        Mockito.verify(this.source).close();
+
+        Assertions.assertEquals(
+            Map.of("viewer", "arn:viewer-request:1", "origin", "arn:origin-request:1"),
+            response.getData(),
+            "LambdaEdgeBatchManager.create() should return ARNs of all published versions."
+        );
+        Assertions.assertEquals(
+            LambdaEdgeBatchManagerTest.PHYSICAL_ID,
+            response.getPhysicalResourceId(),
+            "LambdaEdgeBatchManager.create() should build physical ID from function keys."
+        );
+    }
+
+    @Test
+    public void update() {
+        var batch = new LambdaEdgeBatchManager(this.manager);
+        var input = LambdaEdgeBatchManagerTest.buildRequest();
+
+        Mockito
+            .when(this.manager.openPackage(Mockito.any(), Mockito.eq(true)))
+            .thenReturn(this.source);
+        Mockito
+            .when(this.manager.updateFromPackage(Mockito.any(), Mockito.same(this.source), Mockito.any()))
+            .thenAnswer(invocation -> {
+                EdgeDeployRequest request = invocation.getArgument(0);
+                if ("origin-request".equals(request.getFunctionName())) {
+                    throw new ResourceNotFoundException("");
+                }
+                return LambdaEdgeBatchManagerTest.buildResponse(request);
+            });
+        Mockito
+            .when(this.manager.createFromPackage(Mockito.any(), Mockito.same(this.source)))
+            .thenAnswer(invocation -> LambdaEdgeBatchManagerTest.buildResponse(invocation.getArgument(0)));
+
+        var response = batch.update(input, LambdaEdgeBatchManagerTest.PHYSICAL_ID);
+
+        Mockito
+            .verify(this.manager)
+            .createFromPackage(
+                Mockito.argThat((EdgeDeployRequest request) -> "origin-request".equals(request.getFunctionName())),
+                Mockito.same(this.source)
+            );
+
+        Assertions.assertEquals(
+            Map.of("viewer", "arn:viewer-request:1", "origin", "arn:origin-request:1"),
+            response.getData(),
+            "LambdaEdgeBatchManager.update() should create functions added to the batch."
+        );
+        Assertions.assertEquals(
+            LambdaEdgeBatchManagerTest.PHYSICAL_ID,
+            response.getPhysicalResourceId(),
+            "LambdaEdgeBatchManager.update() should keep physical ID."
+        );
+    }
+
+    @Test
+    public void updateFailed() {
+        var batch = new LambdaEdgeBatchManager(this.manager);
+        var input = LambdaEdgeBatchManagerTest.buildRequest();
+
+        Mockito
+            .when(this.manager.openPackage(Mockito.any(), Mockito.eq(true)))
+            .thenReturn(this.source);
+        Mockito
+            .when(this.manager.updateFromPackage(Mockito.any(), Mockito.same(this.source), Mockito.any()))
+            .thenThrow(IllegalArgumentException.class);
+
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> batch.update(input, LambdaEdgeBatchManagerTest.PHYSICAL_ID),
+            "LambdaEdgeBatchManager.update() should fail when any function fails."
+        );
+
+        Mockito
+            .verify(
+                this.manager,
+                Mockito.times(2).description("LambdaEdgeBatchManager.update() should process all functions.")
+            )
+            .updateFromPackage(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void delete() {
+        var batch = new LambdaEdgeBatchManager(this.manager);
+        var input = LambdaEdgeBatchManagerTest.buildRequest();
+
+        Mockito
+            .when(this.manager.delete(Mockito.any(), Mockito.eq(LambdaEdgeBatchManagerTest.PHYSICAL_ID)))
+            .thenAnswer(invocation -> LambdaEdgeBatchManagerTest.buildResponse(invocation.getArgument(0)));
+
+        var response = batch.delete(input, LambdaEdgeBatchManagerTest.PHYSICAL_ID);
+
+        Mockito
+            .verify(this.manager, Mockito.never())
+            .openPackage(Mockito.any(), Mockito.anyBoolean());
+
+        Assertions.assertEquals(
+            Map.of("viewer", "viewer-request", "origin", "origin-request"),
+            response.getData(),
+            "LambdaEdgeBatchManager.delete() should delete all functions."
+        );
+    }
+
+    private static EdgeDeployBatchRequest buildRequest() {
+        var viewer = new EdgeDeployRequest();
+        viewer.setFunctionName("viewer-request");
+        var origin = new EdgeDeployRequest();
+        origin.setFunctionName("origin-request");
+
+        var input = new EdgeDeployBatchRequest();
+        input.setPackageBucket(LambdaEdgeBatchManagerTest.PACKAGE_BUCKET);
+        input.setPackageKey(LambdaEdgeBatchManagerTest.PACKAGE_KEY);
+        input.setConcurrency(2);
+        input.setFunctions(Map.of("viewer", viewer, "origin", origin));
+        return input;
+    }
+
+    private static CustomResourceResponse<PublishVersionResult> buildResponse(EdgeDeployRequest request) {
+        return new CustomResourceResponse<>(
+            new PublishVersionResult()
+                .withFunctionName(request.getFunctionName())
+                .withFunctionArn(String.format("arn:%s:1", request.getFunctionName())),
+            null
+        );
+    }
+}
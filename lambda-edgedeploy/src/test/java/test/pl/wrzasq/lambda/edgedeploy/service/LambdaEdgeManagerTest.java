@@ -2,7 +2,7 @@
  * This file is part of the pl.wrzasq.lambda.
  *
  * @license http://mit-license.org/ The MIT license
- * @copyright 2018 - 2020 © by Rafał Wrzeszcz - Wrzasq.pl.
+ * @copyright 2018 - 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
  */
 
 package test.pl.wrzasq.lambda.edgedeploy.service;
@@ -10,6 +10,12 @@ package test.pl.wrzasq.lambda.edgedeploy.service;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Scanner;
@@ -20,6 +26,12 @@ import com.amazonaws.services.lambda.AWSLambda;
 import com.amazonaws.services.lambda.model.CreateFunctionRequest;
 import com.amazonaws.services.lambda.model.CreateFunctionResult;
 import com.amazonaws.services.lambda.model.DeleteFunctionRequest;
+import com.amazonaws.services.lambda.model.FunctionConfiguration;
+import com.amazonaws.services.lambda.model.GetFunctionRequest;
+import com.amazonaws.services.lambda.model.GetFunctionResult;
+import com.amazonaws.services.lambda.model.ListVersionsByFunctionRequest;
+import com.amazonaws.services.lambda.model.ListVersionsByFunctionResult;
+import com.amazonaws.services.lambda.model.TracingConfigResponse;
 import com.amazonaws.services.lambda.model.PublishVersionRequest;
 import com.amazonaws.services.lambda.model.ResourceNotFoundException;
 import com.amazonaws.services.lambda.model.Runtime;
@@ -27,15 +39,22 @@ import com.amazonaws.services.lambda.model.TracingMode;
 import com.amazonaws.services.lambda.model.UpdateFunctionCodeRequest;
 import com.amazonaws.services.lambda.model.UpdateFunctionConfigurationRequest;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
@@ -43,7 +62,11 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import pl.wrzasq.commons.json.ObjectMapperFactory;
 import pl.wrzasq.lambda.edgedeploy.model.EdgeDeployRequest;
+import pl.wrzasq.lambda.edgedeploy.service.DeletionQueue;
 import pl.wrzasq.lambda.edgedeploy.service.LambdaEdgeManager;
+import pl.wrzasq.lambda.edgedeploy.service.PackageCache;
+import pl.wrzasq.lambda.edgedeploy.service.PackageDownloader;
+import pl.wrzasq.lambda.edgedeploy.service.PackageUploader;
 import pl.wrzasq.lambda.edgedeploy.zip.ZipBuilder;
 
 @ExtendWith(MockitoExtension.class)
@@ -70,6 +93,16 @@ public class LambdaEdgeManagerTest {
 
     private static final String FUNCTION_ARN = "arn:aws:lambda:test";
 
+    private static final String PACKAGE_ETAG = "abc";
+
+    private static final long PACKAGE_SIZE = 10;
+
+    private static final String ARTIFACT_BUCKET = "artifacts";
+
+    private static final String ARTIFACT_PREFIX = "edge/";
+
+    private static final String CODE_SHA256 = "def";
+
     private static final String VARIABLE_1_KEY = "id";
 
     private static final String VARIABLE_1_VALUE = "foo";
@@ -87,6 +120,12 @@ public class LambdaEdgeManagerTest {
     @Mock
     private S3ObjectInputStream s3ObjectInputStream;
 
+    @Mock
+    private PackageUploader packageUploader;
+
+    @Mock
+    private DeletionQueue deletionQueue;
+
     private ObjectMapper objectMapper = ObjectMapperFactory.createObjectMapper();
 
     @Captor
@@ -104,6 +143,9 @@ public class LambdaEdgeManagerTest {
     @Captor
     ArgumentCaptor<PublishVersionRequest> publishRequest;
 
+    @TempDir
+    Path directory;
+
     @BeforeEach
     public void setUp()
     {
@@ -112,7 +154,7 @@ public class LambdaEdgeManagerTest {
 
     @Test
     public void create() throws IOException {
-        var manager = new LambdaEdgeManager(this.lambda, this.s3, this.objectMapper);
+        var manager = this.createManager();
 
         var input = this.buildRequest();
 
@@ -126,7 +168,10 @@ public class LambdaEdgeManagerTest {
         var buffer = zip.dump();
 
         Mockito
-            .when(this.s3.getObject(LambdaEdgeManagerTest.PACKAGE_BUCKET, LambdaEdgeManagerTest.PACKAGE_KEY))
+            .when(this.s3.getObjectMetadata(LambdaEdgeManagerTest.PACKAGE_BUCKET, LambdaEdgeManagerTest.PACKAGE_KEY))
+            .thenReturn(this.buildObjectMetadata(buffer.remaining()));
+        Mockito
+            .when(this.s3.getObject(Mockito.any(GetObjectRequest.class)))
             .thenReturn(this.buildS3Object(new ByteArrayInputStream(buffer.array())));
 
         Mockito
@@ -187,7 +232,7 @@ public class LambdaEdgeManagerTest {
 
         try (
             var stream = new ZipInputStream(
-                new ByteArrayInputStream(createRequest.getCode().getZipFile().array())
+                new ByteBufferBackedInputStream(createRequest.getCode().getZipFile())
             )
         ) {
             var hasIndex = false;
@@ -270,14 +315,123 @@ public class LambdaEdgeManagerTest {
         );
     }
 
+    @Test
+    public void createAppendConfig() throws IOException {
+        var manager = this.createManager();
+
+        var input = this.buildRequest();
+        input.setAppendConfig(true);
+        input.setConfig(Map.of(LambdaEdgeManagerTest.VARIABLE_1_KEY, LambdaEdgeManagerTest.VARIABLE_1_VALUE));
+
+        var zip = new ZipBuilder();
+        zip.writeEntry("index.js", new ByteArrayInputStream(new byte[]{'e', 'x', 'p', 'o', 'r', 't', '{', '}'}));
+        var buffer = zip.dump();
+
+        Mockito
+            .when(this.s3.getObjectMetadata(LambdaEdgeManagerTest.PACKAGE_BUCKET, LambdaEdgeManagerTest.PACKAGE_KEY))
+            .thenReturn(this.buildObjectMetadata(buffer.remaining()));
+        Mockito
+            .when(this.s3.getObject(Mockito.any(GetObjectRequest.class)))
+            .thenReturn(this.buildS3Object(new ByteArrayInputStream(buffer.array())));
+        Mockito
+            .when(this.lambda.createFunction(this.createRequest.capture()))
+            .thenReturn(
+                new CreateFunctionResult()
+                    .withFunctionArn(LambdaEdgeManagerTest.FUNCTION_ARN)
+            );
+
+        manager.create(input, null);
+
+        var zipFile = this.createRequest.getValue().getCode().getZipFile();
+        var output = new byte[zipFile.remaining()];
+        zipFile.duplicate().get(output);
+
+        try (
+            var source = new ZipFile(new SeekableInMemoryByteChannel(buffer.array()));
+            var archive = new ZipFile(new SeekableInMemoryByteChannel(output))
+        ) {
+            var index = source.getEntry("index.js");
+            var entriesEnd = (int) (index.getDataOffset() + index.getCompressedSize());
+
+            Assertions.assertArrayEquals(
+                Arrays.copyOf(buffer.array(), entriesEnd),
+                Arrays.copyOf(output, entriesEnd),
+                "LambdaEdgeManager.create() should keep original package entries in place."
+            );
+            try (var stream = archive.getInputStream(archive.getEntry("config.json"))) {
+                Assertions.assertEquals(
+                    LambdaEdgeManagerTest.VARIABLE_1_VALUE,
+                    this.objectMapper.readValue(stream, new TypeReference<Map<String, Object>>() {})
+                        .get(LambdaEdgeManagerTest.VARIABLE_1_KEY),
+                    "LambdaEdgeManager.create() should append configuration to the package."
+                );
+            }
+        }
+    }
+
+    @Test
+    public void createStaged() throws IOException {
+        var manager = this.createManager();
+
+        var input = this.buildRequest();
+        input.setArtifactBucket(LambdaEdgeManagerTest.ARTIFACT_BUCKET);
+        input.setArtifactPrefix(LambdaEdgeManagerTest.ARTIFACT_PREFIX);
+
+        var zip = new ZipBuilder();
+        zip.writeEntry("index.js", new ByteArrayInputStream(new byte[]{'e', 'x', 'p', 'o', 'r', 't', '{', '}'}));
+        var buffer = zip.dump();
+
+        Mockito
+            .when(this.s3.getObjectMetadata(LambdaEdgeManagerTest.PACKAGE_BUCKET, LambdaEdgeManagerTest.PACKAGE_KEY))
+            .thenReturn(this.buildObjectMetadata(buffer.remaining()));
+        Mockito
+            .when(this.s3.getObject(Mockito.any(GetObjectRequest.class)))
+            .thenReturn(this.buildS3Object(new ByteArrayInputStream(buffer.array())));
+        Mockito
+            .when(this.s3.doesObjectExist(Mockito.eq(LambdaEdgeManagerTest.ARTIFACT_BUCKET), Mockito.anyString()))
+            .thenReturn(false);
+        Mockito
+            .when(this.lambda.createFunction(this.createRequest.capture()))
+            .thenReturn(
+                new CreateFunctionResult()
+                    .withFunctionArn(LambdaEdgeManagerTest.FUNCTION_ARN)
+            );
+
+        manager.create(input, null);
+
+        var code = this.createRequest.getValue().getCode();
+        Mockito.verify(this.packageUploader).upload(
+            Mockito.eq(LambdaEdgeManagerTest.ARTIFACT_BUCKET),
+            Mockito.eq(code.getS3Key()),
+            Mockito.any()
+        );
+
+        Assertions.assertNull(
+            code.getZipFile(),
+            "LambdaEdgeManager.create() should not pass staged package inline."
+        );
+        Assertions.assertEquals(
+            LambdaEdgeManagerTest.ARTIFACT_BUCKET,
+            code.getS3Bucket(),
+            "LambdaEdgeManager.create() should reference package from artifact bucket."
+        );
+        Assertions.assertTrue(
+            code.getS3Key().startsWith(LambdaEdgeManagerTest.ARTIFACT_PREFIX),
+            "LambdaEdgeManager.create() should stage package under artifact prefix."
+        );
+    }
+
     @Test
     public void createZipIoException() throws IOException {
-        var manager = new LambdaEdgeManager(this.lambda, this.s3, this.objectMapper);
+        var manager = this.createManager();
 
         var input = this.buildRequest();
 
         Mockito
-            .when(this.s3.getObject(LambdaEdgeManagerTest.PACKAGE_BUCKET, LambdaEdgeManagerTest.PACKAGE_KEY))
+            .when(this.s3.getObjectMetadata(LambdaEdgeManagerTest.PACKAGE_BUCKET, LambdaEdgeManagerTest.PACKAGE_KEY))
+            .thenReturn(this.buildObjectMetadata(LambdaEdgeManagerTest.PACKAGE_SIZE));
+        Mockito
+            .when(this.s3.getObject(Mockito.any(GetObjectRequest.class)))
             .thenReturn(this.buildS3Object(this.s3ObjectInputStream));
 
         Mockito
@@ -293,7 +447,7 @@ public class LambdaEdgeManagerTest {
 
     @Test
     public void update() throws IOException {
-        var manager = new LambdaEdgeManager(this.lambda, this.s3, this.objectMapper);
+        var manager = this.createManager();
 
         var configFile = "data.json";
 
@@ -306,9 +460,22 @@ public class LambdaEdgeManagerTest {
         var buffer = zip.dump();
 
         Mockito
-            .when(this.s3.getObject(LambdaEdgeManagerTest.PACKAGE_BUCKET, LambdaEdgeManagerTest.PACKAGE_KEY))
+            .when(this.s3.getObjectMetadata(LambdaEdgeManagerTest.PACKAGE_BUCKET, LambdaEdgeManagerTest.PACKAGE_KEY))
+            .thenReturn(this.buildObjectMetadata(buffer.remaining()));
+        Mockito
+            .when(this.s3.getObject(Mockito.any(GetObjectRequest.class)))
             .thenReturn(this.buildS3Object(new ByteArrayInputStream(buffer.array())));
 
+        Mockito
+            .when(this.lambda.getFunction(Mockito.any(GetFunctionRequest.class)))
+            .thenReturn(
+                new GetFunctionResult()
+                    .withConfiguration(
+                        new FunctionConfiguration()
+                            .withCodeSha256(LambdaEdgeManagerTest.CODE_SHA256)
+                    )
+            );
+
         var response = manager.update(
             input,
             LambdaEdgeManagerTest.FUNCTION_ARN
@@ -365,7 +532,7 @@ public class LambdaEdgeManagerTest {
 
         try (
             var stream = new ZipInputStream(
-                new ByteArrayInputStream(updateCodeRequest.getZipFile().array())
+                new ByteBufferBackedInputStream(updateCodeRequest.getZipFile())
             )
         ) {
             var hasIndex = false;
@@ -411,9 +578,217 @@ public class LambdaEdgeManagerTest {
         );
     }
 
+    @Test
+    public void updateCodeUnchanged() throws IOException, NoSuchAlgorithmException {
+        var manager = this.createManager();
+
+        var input = this.buildRequest();
+        input.setConfig(new HashMap<String, Object>());
+
+        var zip = new ZipBuilder();
+        zip.writeEntry("index.js", new ByteArrayInputStream(new byte[]{'e', 'x', 'p', 'o', 'r', 't', '{', '}'}));
+        var buffer = zip.dump();
+
+        Mockito
+            .when(this.s3.getObjectMetadata(LambdaEdgeManagerTest.PACKAGE_BUCKET, LambdaEdgeManagerTest.PACKAGE_KEY))
+            .thenReturn(this.buildObjectMetadata(buffer.remaining()));
+        Mockito
+            .when(this.s3.getObject(Mockito.any(GetObjectRequest.class)))
+            .thenReturn(this.buildS3Object(new ByteArrayInputStream(buffer.array())));
+        Mockito
+            .when(this.lambda.getFunction(Mockito.any(GetFunctionRequest.class)))
+            .thenReturn(
+                new GetFunctionResult()
+                    .withConfiguration(
+                        new FunctionConfiguration()
+                            .withCodeSha256(LambdaEdgeManagerTest.CODE_SHA256)
+                    )
+            );
+
+        manager.update(input, LambdaEdgeManagerTest.FUNCTION_ARN);
+
+        Mockito.verify(this.lambda).updateFunctionCode(this.updateCodeRequest.capture());
+
+        // current function code is exactly the same as the one built
+        Mockito
+            .when(this.lambda.getFunction(Mockito.any(GetFunctionRequest.class)))
+            .thenReturn(
+                new GetFunctionResult()
+                    .withConfiguration(
+                        new FunctionConfiguration()
+                            .withCodeSha256(this.computeCodeSha256(this.updateCodeRequest.getValue().getZipFile()))
+                    )
+            );
+
+        manager.update(input, LambdaEdgeManagerTest.FUNCTION_ARN);
+
+        Mockito
+            .verify(
+                this.lambda,
+                Mockito.times(1).description("LambdaEdgeManager.update() should skip uploading unchanged code.")
+            )
+            .updateFunctionCode(Mockito.any());
+        Mockito
+            .verify(
+                this.s3,
+                Mockito.times(1).description("LambdaEdgeManager.update() should re-use already built package.")
+            )
+            .getObject(Mockito.any(GetObjectRequest.class));
+    }
+
+    @Test
+    public void updateStagedExisting() throws IOException {
+        var manager = this.createManager();
+
+        var input = this.buildRequest();
+        input.setArtifactBucket(LambdaEdgeManagerTest.ARTIFACT_BUCKET);
+
+        var zip = new ZipBuilder();
+        zip.writeEntry("index.js", new ByteArrayInputStream(new byte[]{'e', 'x', 'p', 'o', 'r', 't', '{', '}'}));
+        var buffer = zip.dump();
+
+        Mockito
+            .when(this.s3.getObjectMetadata(LambdaEdgeManagerTest.PACKAGE_BUCKET, LambdaEdgeManagerTest.PACKAGE_KEY))
+            .thenReturn(this.buildObjectMetadata(buffer.remaining()));
+        Mockito
+            .when(this.s3.getObject(Mockito.any(GetObjectRequest.class)))
+            .thenReturn(this.buildS3Object(new ByteArrayInputStream(buffer.array())));
+        Mockito
+            .when(this.s3.doesObjectExist(Mockito.eq(LambdaEdgeManagerTest.ARTIFACT_BUCKET), Mockito.anyString()))
+            .thenReturn(true);
+        Mockito
+            .when(this.lambda.getFunction(Mockito.any(GetFunctionRequest.class)))
+            .thenReturn(
+                new GetFunctionResult()
+                    .withConfiguration(
+                        new FunctionConfiguration()
+                            .withCodeSha256(LambdaEdgeManagerTest.CODE_SHA256)
+                    )
+            );
+
+        manager.update(input, LambdaEdgeManagerTest.FUNCTION_ARN);
+
+        Mockito.verify(this.lambda).updateFunctionCode(this.updateCodeRequest.capture());
+        Mockito.verifyNoInteractions(this.packageUploader);
+
+        var request = this.updateCodeRequest.getValue();
+        Assertions.assertNull(
+            request.getZipFile(),
+            "LambdaEdgeManager.update() should not pass staged package inline."
+        );
+        Assertions.assertEquals(
+            LambdaEdgeManagerTest.ARTIFACT_BUCKET,
+            request.getS3Bucket(),
+            "LambdaEdgeManager.update() should reference package from artifact bucket."
+        );
+        Assertions.assertTrue(
+            request.getS3Key().endsWith(".zip"),
+            "LambdaEdgeManager.update() should reference staged package key."
+        );
+    }
+
+    @Test
+    public void updateNoop() throws IOException, NoSuchAlgorithmException {
+        var manager = this.createManager();
+
+        var input = this.buildRequest();
+        input.setConfig(new HashMap<String, Object>());
+
+        var codeSha256 = this.initializeUnchangedPackage(manager, input);
+
+        Mockito
+            .when(this.lambda.getFunction(Mockito.any(GetFunctionRequest.class)))
+            .thenReturn(
+                new GetFunctionResult()
+                    .withConfiguration(this.buildFunctionConfiguration(codeSha256, "$LATEST"))
+            );
+        Mockito
+            .when(
+                this.lambda.listVersionsByFunction(
+                    new ListVersionsByFunctionRequest()
+                        .withFunctionName(LambdaEdgeManagerTest.FUNCTION_NAME)
+                )
+            )
+            .thenReturn(
+                new ListVersionsByFunctionResult()
+                    .withVersions(
+                        this.buildFunctionConfiguration(codeSha256, "$LATEST"),
+                        this.buildFunctionConfiguration(codeSha256, "9")
+                    )
+                    .withNextMarker("next")
+            );
+        Mockito
+            .when(
+                this.lambda.listVersionsByFunction(
+                    new ListVersionsByFunctionRequest()
+                        .withFunctionName(LambdaEdgeManagerTest.FUNCTION_NAME)
+                        .withMarker("next")
+                )
+            )
+            .thenReturn(
+                new ListVersionsByFunctionResult()
+                    .withVersions(
+                        this.buildFunctionConfiguration(codeSha256, "10")
+                    )
+            );
+
+        var response = manager.update(input, LambdaEdgeManagerTest.FUNCTION_ARN);
+
+        // only the initial update
+        Mockito.verify(this.lambda, Mockito.times(1)).updateFunctionCode(Mockito.any());
+        Mockito.verify(this.lambda, Mockito.times(1)).updateFunctionConfiguration(Mockito.any());
+        Mockito.verify(this.lambda, Mockito.times(1)).publishVersion(Mockito.any());
+
+        Assertions.assertEquals(
+            "10",
+            response.getData().getVersion(),
+            "LambdaEdgeManager.update() should return latest existing version if nothing changed."
+        );
+        Assertions.assertEquals(
+            LambdaEdgeManagerTest.FUNCTION_ARN,
+            response.getPhysicalResourceId(),
+            "LambdaEdgeManager.update() should keep function ARN as it's physical ID."
+        );
+    }
+
+    @Test
+    public void updateNoopOutdatedVersion() throws IOException, NoSuchAlgorithmException {
+        var manager = this.createManager();
+
+        var input = this.buildRequest();
+        input.setConfig(new HashMap<String, Object>());
+
+        var codeSha256 = this.initializeUnchangedPackage(manager, input);
+
+        Mockito
+            .when(this.lambda.getFunction(Mockito.any(GetFunctionRequest.class)))
+            .thenReturn(
+                new GetFunctionResult()
+                    .withConfiguration(this.buildFunctionConfiguration(codeSha256, "$LATEST"))
+            );
+        Mockito
+            .when(this.lambda.listVersionsByFunction(Mockito.any()))
+            .thenReturn(
+                new ListVersionsByFunctionResult()
+                    .withVersions(
+                        this.buildFunctionConfiguration(codeSha256, "$LATEST"),
+                        this.buildFunctionConfiguration(LambdaEdgeManagerTest.CODE_SHA256, "1")
+                    )
+            );
+
+        manager.update(input, LambdaEdgeManagerTest.FUNCTION_ARN);
+
+        Mockito
+            .verify(
+                this.lambda,
+                Mockito.times(2).description("LambdaEdgeManager.update() should publish version if latest one differs.")
+            )
+            .publishVersion(Mockito.any());
+    }
+
     @Test
     public void delete() {
-        var manager = new LambdaEdgeManager(this.lambda, this.s3, this.objectMapper);
+        var manager = this.createManager();
 
         var input = this.buildRequest();
 
@@ -435,9 +810,60 @@ public class LambdaEdgeManagerTest {
         );
     }
 
+    @Test
+    public void deleteAsync() {
+        var manager = this.createManager();
+
+        var input = this.buildRequest();
+        input.setDeletionTable("pending");
+
+        var result = manager.delete(input, null);
+
+        Mockito.verify(this.deletionQueue).enqueue("pending", LambdaEdgeManagerTest.FUNCTION_NAME);
+        Mockito.verifyNoInteractions(this.lambda);
+
+        Assertions.assertEquals(
+            LambdaEdgeManagerTest.FUNCTION_NAME,
+            result.getData().getFunctionName(),
+            "LambdaEdgeManager.delete() should return scheduled function name."
+        );
+    }
+
+    @Test
+    public void createAfterDeleteAsync() throws IOException {
+        var manager = this.createManager();
+
+        var input = this.buildRequest();
+        input.setDeletionTable("pending");
+
+        var zip = new ZipBuilder();
+        var buffer = zip.dump();
+
+        Mockito
+            .when(this.s3.getObjectMetadata(LambdaEdgeManagerTest.PACKAGE_BUCKET, LambdaEdgeManagerTest.PACKAGE_KEY))
+            .thenReturn(this.buildObjectMetadata(buffer.remaining()));
+        Mockito
+            .when(this.s3.getObject(Mockito.any(GetObjectRequest.class)))
+            .thenReturn(this.buildS3Object(new ByteArrayInputStream(buffer.array())));
+        Mockito
+            .when(this.lambda.createFunction(Mockito.any(CreateFunctionRequest.class)))
+            .thenReturn(
+                new CreateFunctionResult()
+                    .withFunctionArn(LambdaEdgeManagerTest.FUNCTION_ARN)
+            );
+
+        manager.delete(input, null);
+        manager.create(input, null);
+
+        var order = Mockito.inOrder(this.deletionQueue, this.lambda);
+        order.verify(this.deletionQueue).enqueue("pending", LambdaEdgeManagerTest.FUNCTION_NAME);
+        order.verify(this.deletionQueue).remove("pending", LambdaEdgeManagerTest.FUNCTION_NAME);
+        order.verify(this.lambda).createFunction(Mockito.any(CreateFunctionRequest.class));
+    }
+
     @Test
     public void deleteNotFound() {
-        var manager = new LambdaEdgeManager(this.lambda, this.s3, this.objectMapper);
+        var manager = this.createManager();
 
         var input = this.buildRequest();
 
@@ -474,6 +900,74 @@ public class LambdaEdgeManagerTest {
         return request;
     }
 
+    private String initializeUnchangedPackage(LambdaEdgeManager manager, EdgeDeployRequest input)
+        throws IOException, NoSuchAlgorithmException {
+        var zip = new ZipBuilder();
+        zip.writeEntry("index.js", new ByteArrayInputStream(new byte[]{'e', 'x', 'p', 'o', 'r', 't', '{', '}'}));
+        var buffer = zip.dump();
+
+        Mockito
+            .when(this.s3.getObjectMetadata(LambdaEdgeManagerTest.PACKAGE_BUCKET, LambdaEdgeManagerTest.PACKAGE_KEY))
+            .thenReturn(this.buildObjectMetadata(buffer.remaining()));
+        Mockito
+            .when(this.s3.getObject(Mockito.any(GetObjectRequest.class)))
+            .thenReturn(this.buildS3Object(new ByteArrayInputStream(buffer.array())));
+        Mockito
+            .when(this.lambda.getFunction(Mockito.any(GetFunctionRequest.class)))
+            .thenReturn(
+                new GetFunctionResult()
+                    .withConfiguration(new FunctionConfiguration())
+            );
+
+        // initial deployment to get the package built
+        manager.update(input, LambdaEdgeManagerTest.FUNCTION_ARN);
+        Mockito.verify(this.lambda).updateFunctionCode(this.updateCodeRequest.capture());
+
+        return this.computeCodeSha256(this.updateCodeRequest.getValue().getZipFile());
+    }
+
+    private FunctionConfiguration buildFunctionConfiguration(String codeSha256, String version) {
+        return new FunctionConfiguration()
+            .withFunctionName(LambdaEdgeManagerTest.FUNCTION_NAME)
+            .withVersion(version)
+            .withCodeSha256(codeSha256)
+            .withDescription(LambdaEdgeManagerTest.FUNCTION_DESCRIPTION)
+            .withRuntime(LambdaEdgeManagerTest.RUNTIME)
+            .withHandler(LambdaEdgeManagerTest.HANDLER)
+            .withMemorySize(LambdaEdgeManagerTest.MEMORY)
+            .withTimeout(LambdaEdgeManagerTest.TIMEOUT)
+            .withRole(LambdaEdgeManagerTest.ROLE_ARN)
+            .withTracingConfig(
+                new TracingConfigResponse()
+                    .withMode(LambdaEdgeManagerTest.TRACING_MODE)
+            );
+    }
+
+    private String computeCodeSha256(ByteBuffer zipFile) throws NoSuchAlgorithmException {
+        var digest = MessageDigest.getInstance("SHA-256");
+        digest.update(zipFile.duplicate());
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    private LambdaEdgeManager createManager() {
+        return new LambdaEdgeManager(
+            this.lambda,
+            this.s3,
+            this.objectMapper,
+            new PackageCache(this.s3, this.directory),
+            new PackageDownloader(this.s3),
+            this.packageUploader,
+            this.deletionQueue
+        );
+    }
+
+    private ObjectMetadata buildObjectMetadata(long size) {
+        var metadata = new ObjectMetadata();
+        metadata.setHeader(Headers.ETAG, LambdaEdgeManagerTest.PACKAGE_ETAG);
+        metadata.setContentLength(size);
+        return metadata;
+    }
+
     private S3Object buildS3Object(InputStream inputStream) {
         var s3Object = new S3Object();
         s3Object.setObjectContent(inputStream);
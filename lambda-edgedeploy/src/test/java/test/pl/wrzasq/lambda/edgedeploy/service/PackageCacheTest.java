@@ -0,0 +1,175 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.edgedeploy.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.edgedeploy.service.PackageCache;
+
+@ExtendWith(MockitoExtension.class)
+public class PackageCacheTest {
+    private static final String KEY = "abc";
+
+    private static final String BUCKET = "cache";
+
+    private static final String PREFIX = "edge/";
+
+    private static final byte[] CONTENT = new byte[]{'t', 'e', 's', 't'};
+
+    @Mock
+    private AmazonS3 s3;
+
+    @Mock
+    private PackageCache.PackageBuilder builder;
+
+    @Captor
+    private ArgumentCaptor<GetObjectRequest> getObjectRequest;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void resolveLocal() throws IOException {
+        var cache = new PackageCache(this.s3, this.directory);
+
+        Mockito
+            .doAnswer(invocation -> Files.write(invocation.getArgument(0), PackageCacheTest.CONTENT))
+            .when(this.builder)
+            .build(Mockito.any());
+
+        cache.resolve(PackageCacheTest.KEY, null, PackageCacheTest.PREFIX, this.builder);
+        var buffer = cache.resolve(PackageCacheTest.KEY, null, PackageCacheTest.PREFIX, this.builder);
+
+        Mockito
+            .verify(
+                this.builder,
+                Mockito.times(1).description("PackageCache.resolve() should build package only once.")
+            )
+            .build(Mockito.any());
+        Mockito.verifyNoInteractions(this.s3);
+
+        var content = new byte[buffer.remaining()];
+        buffer.get(content);
+        Assertions.assertArrayEquals(
+            PackageCacheTest.CONTENT,
+            content,
+            "PackageCache.resolve() should return package content."
+        );
+    }
+
+    @Test
+    public void resolveRemoteHit() throws IOException {
+        var cache = new PackageCache(this.s3, this.directory);
+
+        Mockito
+            .when(this.s3.doesObjectExist(PackageCacheTest.BUCKET, "edge/abc.zip"))
+            .thenReturn(true);
+
+        cache.resolve(PackageCacheTest.KEY, PackageCacheTest.BUCKET, PackageCacheTest.PREFIX, this.builder);
+
+        Mockito.verify(this.s3).getObject(this.getObjectRequest.capture(), Mockito.any(File.class));
+        Mockito.verifyNoInteractions(this.builder);
+
+        Assertions.assertEquals(
+            PackageCacheTest.BUCKET,
+            this.getObjectRequest.getValue().getBucketName(),
+            "PackageCache.resolve() should fetch package from shared cache bucket."
+        );
+        Assertions.assertEquals(
+            "edge/abc.zip",
+            this.getObjectRequest.getValue().getKey(),
+            "PackageCache.resolve() should fetch package from shared cache location."
+        );
+    }
+
+    @Test
+    public void resolveRemoteMiss() throws IOException {
+        var cache = new PackageCache(this.s3, this.directory);
+
+        Mockito
+            .when(this.s3.doesObjectExist(PackageCacheTest.BUCKET, "edge/abc.zip"))
+            .thenReturn(false);
+
+        cache.resolve(PackageCacheTest.KEY, PackageCacheTest.BUCKET, PackageCacheTest.PREFIX, this.builder);
+
+        Mockito.verify(this.builder).build(Mockito.any());
+        Mockito.verify(this.s3).putObject(
+            Mockito.eq(PackageCacheTest.BUCKET),
+            Mockito.eq("edge/abc.zip"),
+            Mockito.any(File.class)
+        );
+    }
+
+    @Test
+    public void resolveEvicts() throws IOException {
+        var cache = new PackageCache(this.s3, this.directory);
+
+        for (var i = 0; i < 6; ++i) {
+            cache.resolve(PackageCacheTest.KEY + i, null, PackageCacheTest.PREFIX, this.builder);
+        }
+
+        try (var files = Files.list(this.directory)) {
+            Assertions.assertEquals(
+                4,
+                files.count(),
+                "PackageCache.resolve() should keep limited number of packages locally."
+            );
+        }
+    }
+
+    @Test
+    public void resolveConcurrent() throws InterruptedException, ExecutionException {
+        var cache = new PackageCache(this.s3, this.directory);
+        PackageCache.PackageBuilder builder = file -> Files.write(file, PackageCacheTest.CONTENT);
+
+        // more distinct packages than local storage limit, so evictions interleave with other builds
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var futures = new ArrayList<Future<byte[]>>();
+            for (var i = 0; i < 32; ++i) {
+                var key = PackageCacheTest.KEY + i;
+                futures.add(
+                    executor.submit(() -> {
+                        var buffer = cache.resolve(key, null, PackageCacheTest.PREFIX, builder);
+                        var content = new byte[buffer.remaining()];
+                        buffer.get(content);
+                        return content;
+                    })
+                );
+            }
+
+            for (var future : futures) {
+                Assertions.assertArrayEquals(
+                    PackageCacheTest.CONTENT,
+                    future.get(),
+                    "PackageCache.resolve() should return package content when other packages are evicted."
+                );
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.edgedeploy.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.edgedeploy.service.PackageDownloader;
+
+@ExtendWith(MockitoExtension.class)
+public class PackageDownloaderTest {
+    private static final String BUCKET = "test";
+
+    private static final String KEY = "package.zip";
+
+    private static final String VERSION_ID = "v1";
+
+    private static final String ETAG = "abc";
+
+    private static final byte[] CONTENT = new byte[]{'0', '1', '2', '3', '4', '5', '6', '7', '8', '9'};
+
+    @Mock
+    private AmazonS3 s3;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void download() throws IOException {
+        var downloader = new PackageDownloader(this.s3);
+        var target = this.directory.resolve("package.zip");
+
+        Mockito
+            .when(this.s3.getObject(Mockito.any(GetObjectRequest.class)))
+            .thenAnswer(invocation -> {
+                GetObjectRequest request = invocation.getArgument(0);
+                var range = request.getRange();
+                var object = new S3Object();
+                object.setObjectContent(
+                    new ByteArrayInputStream(
+                        Arrays.copyOfRange(PackageDownloaderTest.CONTENT, (int) range[0], (int) range[1] + 1)
+                    )
+                );
+                return object;
+            });
+
+        downloader.download(
+            PackageDownloaderTest.BUCKET,
+            PackageDownloaderTest.KEY,
+            PackageDownloaderTest.buildObjectMetadata(),
+            target,
+            3,
+            2
+        );
+
+        Mockito
+            .verify(
+                this.s3,
+                Mockito.times(4).description("PackageDownloader.download() should fetch object in ranged parts.")
+            )
+            .getObject(Mockito.any(GetObjectRequest.class));
+        Mockito.verify(this.s3).getObject(
+            Mockito.argThat(
+                (GetObjectRequest request) -> PackageDownloaderTest.VERSION_ID.equals(request.getVersionId())
+                    && request.getMatchingETagConstraints().contains(PackageDownloaderTest.ETAG)
+                    && request.getRange()[0] == 9
+                    && request.getRange()[1] == 9
+            )
+        );
+
+        Assertions.assertArrayEquals(
+            PackageDownloaderTest.CONTENT,
+            Files.readAllBytes(target),
+            "PackageDownloader.download() should assemble all parts into target file."
+        );
+    }
+
+    @Test
+    public void downloadModified() {
+        var downloader = new PackageDownloader(this.s3);
+
+        Mockito
+            .when(this.s3.getObject(Mockito.any(GetObjectRequest.class)))
+            .thenReturn(null);
+
+        Assertions.assertThrows(
+            IOException.class,
+            () -> downloader.download(
+                PackageDownloaderTest.BUCKET,
+                PackageDownloaderTest.KEY,
+                PackageDownloaderTest.buildObjectMetadata(),
+                this.directory.resolve("package.zip"),
+                100,
+                2
+            ),
+            "PackageDownloader.download() should fail when object changes during download."
+        );
+    }
+
+    @Test
+    public void downloadInvalidSettings() {
+        var downloader = new PackageDownloader(this.s3);
+
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> downloader.download(
+                PackageDownloaderTest.BUCKET,
+                PackageDownloaderTest.KEY,
+                PackageDownloaderTest.buildObjectMetadata(),
+                this.directory.resolve("package.zip"),
+                0,
+                2
+            ),
+            "PackageDownloader.download() should reject non-positive part size."
+        );
+        Mockito.verifyNoInteractions(this.s3);
+    }
+
+    private static ObjectMetadata buildObjectMetadata() {
+        var metadata = new ObjectMetadata();
+        metadata.setHeader(Headers.ETAG, PackageDownloaderTest.ETAG);
+        metadata.setHeader(Headers.S3_VERSION_ID, PackageDownloaderTest.VERSION_ID);
+        metadata.setContentLength(PackageDownloaderTest.CONTENT.length);
+        return metadata;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.edgedeploy.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.edgedeploy.service.PackageDownloader;
+import pl.wrzasq.lambda.edgedeploy.service.PackageSource;
+
+@ExtendWith(MockitoExtension.class)
+public class PackageSourceTest {
+    private static final String BUCKET = "test";
+
+    private static final String KEY = "package.zip";
+
+    private static final byte[] CONTENT = new byte[]{'t', 'e', 's', 't'};
+
+    @Mock
+    private AmazonS3 s3;
+
+    @Mock
+    private PackageDownloader downloader;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void resolveShared() throws IOException {
+        this.stubDownload();
+
+        Path file;
+        try (var source = this.createSource(true)) {
+            var target = this.directory.resolve("first.zip");
+            source.transferTo(target);
+            source.transferTo(this.directory.resolve("second.zip"));
+            file = source.resolve();
+
+            Assertions.assertArrayEquals(
+                PackageSourceTest.CONTENT,
+                Files.readAllBytes(target),
+                "PackageSource.transferTo() should copy package content."
+            );
+        }
+
+        Mockito
+            .verify(
+                this.downloader,
+                Mockito.times(1).description("PackageSource.resolve() should download package only once.")
+            )
+            .download(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyLong(), Mockito.anyInt());
+        Mockito
+            .verify(
+                this.s3,
+                Mockito.times(1).description("PackageSource.getMetadata() should fetch metadata only once.")
+            )
+            .getObjectMetadata(PackageSourceTest.BUCKET, PackageSourceTest.KEY);
+        Assertions.assertFalse(
+            Files.exists(file),
+            "PackageSource.close() should remove downloaded package."
+        );
+    }
+
+    @Test
+    public void transferToExclusive() throws IOException {
+        this.stubDownload();
+
+        try (var source = this.createSource(false)) {
+            var file = source.resolve();
+            var target = this.directory.resolve("target.zip");
+            source.transferTo(target);
+
+            Assertions.assertFalse(
+                Files.exists(file),
+                "PackageSource.transferTo() should move exclusive package."
+            );
+            Assertions.assertArrayEquals(
+                PackageSourceTest.CONTENT,
+                Files.readAllBytes(target),
+                "PackageSource.transferTo() should move package content."
+            );
+        }
+    }
+
+    private PackageSource createSource(boolean shared) {
+        return new PackageSource(
+            this.s3,
+            this.downloader,
+            PackageSourceTest.BUCKET,
+            PackageSourceTest.KEY,
+            1,
+            1,
+            shared
+        );
+    }
+
+    private void stubDownload() throws IOException {
+        Mockito
+            .when(this.s3.getObjectMetadata(PackageSourceTest.BUCKET, PackageSourceTest.KEY))
+            .thenReturn(new ObjectMetadata());
+        Mockito
+            .doAnswer(invocation -> Files.write(invocation.getArgument(3), PackageSourceTest.CONTENT))
+            .when(this.downloader)
+            .download(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyLong(), Mockito.anyInt());
+    }
+}
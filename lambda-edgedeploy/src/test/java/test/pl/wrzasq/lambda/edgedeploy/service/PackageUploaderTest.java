@@ -0,0 +1,154 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.edgedeploy.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.edgedeploy.service.PackageUploader;
+
+@ExtendWith(MockitoExtension.class)
+public class PackageUploaderTest {
+    private static final String BUCKET = "artifacts";
+
+    private static final String KEY = "package.zip";
+
+    private static final String UPLOAD_ID = "upload";
+
+    private static final int PART_SIZE = 8 * 1024 * 1024;
+
+    @Mock
+    private AmazonS3 s3;
+
+    @Captor
+    private ArgumentCaptor<UploadPartRequest> uploadPartRequest;
+
+    @Captor
+    private ArgumentCaptor<CompleteMultipartUploadRequest> completeRequest;
+
+    @Test
+    public void upload() throws IOException {
+        var uploader = new PackageUploader(this.s3);
+
+        Mockito
+            .when(this.s3.initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class)))
+            .thenReturn(PackageUploaderTest.buildInitiateResult());
+        Mockito
+            .when(this.s3.uploadPart(this.uploadPartRequest.capture()))
+            .thenAnswer(invocation -> {
+                UploadPartRequest request = invocation.getArgument(0);
+                var result = new UploadPartResult();
+                result.setPartNumber(request.getPartNumber());
+                result.setETag("etag" + request.getPartNumber());
+                return result;
+            });
+
+        uploader.upload(
+            PackageUploaderTest.BUCKET,
+            PackageUploaderTest.KEY,
+            ByteBuffer.allocate(PackageUploaderTest.PART_SIZE + 3)
+        );
+
+        Mockito.verify(this.s3).completeMultipartUpload(this.completeRequest.capture());
+
+        var parts = this.uploadPartRequest.getAllValues();
+        Assertions.assertEquals(
+            2,
+            parts.size(),
+            "PackageUploader.upload() should split content into parts."
+        );
+        Assertions.assertEquals(
+            PackageUploaderTest.PART_SIZE,
+            parts.get(0).getPartSize(),
+            "PackageUploader.upload() should send full-sized parts first."
+        );
+        Assertions.assertEquals(
+            3,
+            parts.get(1).getPartSize(),
+            "PackageUploader.upload() should send remaining content as last part."
+        );
+        var stream = parts.get(1).getInputStream();
+        Assertions.assertTrue(
+            stream.markSupported(),
+            "PackageUploader.upload() should send rewindable part content."
+        );
+        stream.mark(parts.get(1).getRequestClientOptions().getReadLimit());
+        Assertions.assertEquals(
+            3,
+            stream.readAllBytes().length,
+            "PackageUploader.upload() should stream part content from buffer."
+        );
+        stream.reset();
+        Assertions.assertEquals(
+            3,
+            stream.readAllBytes().length,
+            "PackageUploader.upload() should allow re-sending part content after retry."
+        );
+        Assertions.assertTrue(
+            parts.get(0).getRequestClientOptions().getReadLimit() > PackageUploaderTest.PART_SIZE,
+            "PackageUploader.upload() should allow rewinding whole part."
+        );
+        Assertions.assertEquals(
+            2,
+            this.completeRequest.getValue().getPartETags().size(),
+            "PackageUploader.upload() should complete upload with all parts."
+        );
+        Assertions.assertEquals(
+            PackageUploaderTest.UPLOAD_ID,
+            this.completeRequest.getValue().getUploadId(),
+            "PackageUploader.upload() should complete initiated upload."
+        );
+    }
+
+    @Test
+    public void uploadFailed() {
+        var uploader = new PackageUploader(this.s3);
+
+        Mockito
+            .when(this.s3.initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class)))
+            .thenReturn(PackageUploaderTest.buildInitiateResult());
+        Mockito
+            .when(this.s3.uploadPart(Mockito.any()))
+            .thenThrow(SdkClientException.class);
+
+        Assertions.assertThrows(
+            SdkClientException.class,
+            () -> uploader.upload(PackageUploaderTest.BUCKET, PackageUploaderTest.KEY, ByteBuffer.allocate(10)),
+            "PackageUploader.upload() should propagate upload error."
+        );
+
+        Mockito
+            .verify(this.s3)
+            .abortMultipartUpload(Mockito.any(AbortMultipartUploadRequest.class));
+        Mockito
+            .verify(this.s3, Mockito.never())
+            .completeMultipartUpload(Mockito.any());
+    }
+
+    private static InitiateMultipartUploadResult buildInitiateResult() {
+        var result = new InitiateMultipartUploadResult();
+        result.setUploadId(PackageUploaderTest.UPLOAD_ID);
+        return result;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.edgedeploy.zip;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.ZipException;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.wrzasq.lambda.edgedeploy.zip.ZipAppender;
+
+public class ZipAppenderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void writeEntry() throws IOException {
+        var file = this.buildArchive(null, "index.js", "lib.js");
+        var original = Files.readAllBytes(file);
+        long entriesEnd;
+        try (var archive = new ZipFile(file.toFile())) {
+            var last = archive.getEntry("lib.js");
+            entriesEnd = last.getDataOffset() + last.getCompressedSize();
+        }
+
+        new ZipAppender(file).writeEntry("config.json", "{\"a\":1}".getBytes(StandardCharsets.UTF_8));
+
+        try (var archive = new ZipFile(file.toFile())) {
+            Assertions.assertEquals(
+                List.of("index.js", "lib.js", "config.json"),
+                ZipAppenderTest.listEntries(archive),
+                "ZipAppender.writeEntry() should append new entry after existing ones."
+            );
+            Assertions.assertEquals(
+                "{\"a\":1}",
+                ZipAppenderTest.readEntry(archive, "config.json"),
+                "ZipAppender.writeEntry() should write entry content."
+            );
+            Assertions.assertEquals(
+                "lib.js",
+                ZipAppenderTest.readEntry(archive, "lib.js"),
+                "ZipAppender.writeEntry() should keep existing entries content."
+            );
+        }
+
+        var updated = Files.readAllBytes(file);
+        Assertions.assertArrayEquals(
+            Arrays.copyOf(original, (int) entriesEnd),
+            Arrays.copyOf(updated, (int) entriesEnd),
+            "ZipAppender.writeEntry() should leave existing local entries in place."
+        );
+    }
+
+    @Test
+    public void writeEntryReplace() throws IOException {
+        var file = this.buildArchive("comment", "index.js", "config.json");
+
+        new ZipAppender(file).writeEntry("config.json", "{}".getBytes(StandardCharsets.UTF_8));
+
+        try (var archive = new ZipFile(file.toFile())) {
+            Assertions.assertEquals(
+                List.of("index.js", "config.json"),
+                ZipAppenderTest.listEntries(archive),
+                "ZipAppender.writeEntry() should replace existing entry."
+            );
+            Assertions.assertEquals(
+                "{}",
+                ZipAppenderTest.readEntry(archive, "config.json"),
+                "ZipAppender.writeEntry() should write new content of replaced entry."
+            );
+        }
+    }
+
+    @Test
+    public void writeEntryInvalid() throws IOException {
+        var file = this.directory.resolve("invalid.zip");
+        var content = "not a zip".getBytes(StandardCharsets.UTF_8);
+        Files.write(file, content);
+
+        Assertions.assertThrows(
+            ZipException.class,
+            () -> new ZipAppender(file).writeEntry("config.json", new byte[]{'{', '}'}),
+            "ZipAppender.writeEntry() should reject invalid archive."
+        );
+        Assertions.assertArrayEquals(
+            content,
+            Files.readAllBytes(file),
+            "ZipAppender.writeEntry() should not modify file on failure."
+        );
+    }
+
+    @Test
+    public void writeEntryTruncatedRecord() throws IOException {
+        var file = this.buildArchive(null, "index.js");
+        var content = Files.readAllBytes(file);
+        var buffer = ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN);
+        // central directory offset from end of central directory record, name length of first central record
+        var directoryOffset = buffer.getInt(content.length - 22 + 16);
+        buffer.putShort(directoryOffset + 28, (short) 0xffff);
+        Files.write(file, content);
+
+        Assertions.assertThrows(
+            ZipException.class,
+            () -> new ZipAppender(file).writeEntry("config.json", new byte[]{'{', '}'}),
+            "ZipAppender.writeEntry() should reject central directory record exceeding directory size."
+        );
+        Assertions.assertArrayEquals(
+            content,
+            Files.readAllBytes(file),
+            "ZipAppender.writeEntry() should not modify file on failure."
+        );
+    }
+
+    private Path buildArchive(String comment, String... names) throws IOException {
+        var file = this.directory.resolve("package.zip");
+        try (var zip = new ZipArchiveOutputStream(file.toFile())) {
+            if (comment != null) {
+                zip.setComment(comment);
+            }
+            for (var name : names) {
+                zip.putArchiveEntry(new ZipArchiveEntry(name));
+                zip.write(name.getBytes(StandardCharsets.UTF_8));
+                zip.closeArchiveEntry();
+            }
+        }
+        return file;
+    }
+
+    private static List<String> listEntries(ZipFile archive) {
+        return Collections.list(archive.getEntriesInPhysicalOrder())
+            .stream()
+            .map(ZipArchiveEntry::getName)
+            .collect(Collectors.toList());
+    }
+
+    private static String readEntry(ZipFile archive, String name) throws IOException {
+        try (var stream = archive.getInputStream(archive.getEntry(name))) {
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
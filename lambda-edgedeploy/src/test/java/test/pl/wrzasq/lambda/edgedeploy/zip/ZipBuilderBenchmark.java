@@ -0,0 +1,80 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.edgedeploy.zip;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.wrzasq.lambda.edgedeploy.zip.ZipBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ZipBuilderBenchmark {
+    private static final int FILES_COUNT = 10000;
+
+    private byte[] archive;
+
+    @Setup
+    public void setUp() throws IOException {
+        // synthetic node_modules/ tree - small, well-compressing JavaScript files
+        var zip = new ZipBuilder();
+        for (var i = 0; i < ZipBuilderBenchmark.FILES_COUNT; ++i) {
+            var content = new StringBuilder();
+            for (var line = 0; line < i % 50 + 10; ++line) {
+                content.append(String.format("module.exports.fn%d = function (a, b) { return a + b + %d; };%n", line, i));
+            }
+
+            zip.writeEntry(
+                String.format("node_modules/package-%d/lib/index-%d.js", i / 20, i),
+                content.toString().getBytes(StandardCharsets.UTF_8)
+            );
+        }
+
+        var buffer = zip.dump();
+        this.archive = new byte[buffer.remaining()];
+        buffer.get(this.archive);
+    }
+
+    @Benchmark
+    public ByteBuffer copyRecompressed() throws IOException {
+        var zip = new ZipBuilder();
+        zip.copyFrom(new ZipInputStream(new ByteArrayInputStream(this.archive)));
+        zip.writeEntry("config.json", new byte[]{'{', '}'});
+        return zip.dump();
+    }
+
+    @Benchmark
+    public ByteBuffer copyRaw() throws IOException {
+        var zip = new ZipBuilder();
+        try (var source = new ZipFile(new SeekableInMemoryByteChannel(this.archive))) {
+            zip.copyFrom(source);
+        }
+        zip.writeEntry("config.json", new byte[]{'{', '}'});
+        return zip.dump();
+    }
+}
@@ -2,18 +2,36 @@
  * This file is part of the pl.wrzasq.lambda.
  *
  * @license http://mit-license.org/ The MIT license
- * @copyright 2018 - 2019 © by Rafał Wrzeszcz - Wrzasq.pl.
+ * @copyright 2018 - 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
  */
 
 package test.pl.wrzasq.lambda.edgedeploy.zip;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
 import java.util.Scanner;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipInputStream;
 
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import pl.wrzasq.lambda.edgedeploy.zip.ZipBuilder;
 
 public class ZipBuilderTest {
@@ -88,4 +106,144 @@ public class ZipBuilderTest {
             "ZipBuilder.copyFrom() should copy file content."
         );
     }
+
+    @Test
+    public void copyFromRaw() throws IOException {
+        var zip = new ZipBuilder();
+        zip.writeEntry("test.txt", new ByteArrayInputStream(new byte[]{'t', 'e', 's', 't'}));
+        var buffer = zip.dump();
+
+        var destination = new ZipBuilder();
+        destination.copyFrom(new ZipFile(new SeekableInMemoryByteChannel(buffer.array())));
+        var output = destination.dump();
+
+        var stream = new ZipInputStream(new ByteArrayInputStream(output.array()));
+        var entry = stream.getNextEntry();
+
+        var scanner = new Scanner(stream);
+
+        Assertions.assertEquals(
+            "test.txt",
+            entry.getName(),
+            "ZipBuilder.copyFrom() should copy entry filename."
+        );
+        Assertions.assertEquals(
+            ZipEntry.DEFLATED,
+            entry.getMethod(),
+            "ZipBuilder.copyFrom() should keep entry compression method."
+        );
+        Assertions.assertEquals(
+            "test",
+            scanner.next(),
+            "ZipBuilder.copyFrom() should copy file content."
+        );
+    }
+
+    @Test
+    public void copyFromDeterministic() throws IOException {
+        var first = ZipBuilderTest.buildDeterministic(
+            ZipBuilderTest.buildSource(new String[]{"b.js", "a.sh"}, new int[]{0100600, 0100700}, 1000000000000L)
+        );
+        var second = ZipBuilderTest.buildDeterministic(
+            ZipBuilderTest.buildSource(new String[]{"a.sh", "b.js"}, new int[]{0100711, 0100644}, 1500000000000L)
+        );
+
+        var output = new byte[first.remaining()];
+        first.get(output);
+        var other = new byte[second.remaining()];
+        second.get(other);
+
+        Assertions.assertArrayEquals(
+            output,
+            other,
+            "ZipBuilder.copyFrom() should produce byte-identical archives in deterministic mode."
+        );
+
+        try (var archive = new ZipFile(new SeekableInMemoryByteChannel(output))) {
+            var entries = Collections.list(archive.getEntriesInPhysicalOrder());
+
+            Assertions.assertEquals(
+                List.of("a.sh", "b.js", "config.json"),
+                entries.stream().map(ZipArchiveEntry::getName).collect(Collectors.toList()),
+                "ZipBuilder.copyFrom() should sort copied entries in deterministic mode."
+            );
+            Assertions.assertEquals(
+                0100755,
+                entries.get(0).getUnixMode(),
+                "ZipBuilder.copyFrom() should keep executable flag in deterministic mode."
+            );
+            Assertions.assertEquals(
+                0100644,
+                entries.get(1).getUnixMode(),
+                "ZipBuilder.copyFrom() should normalize permissions in deterministic mode."
+            );
+            Assertions.assertEquals(
+                LocalDateTime.of(1980, 1, 1, 0, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                entries.get(2).getTime(),
+                "ZipBuilder.writeEntry() should set fixed timestamp in deterministic mode."
+            );
+        }
+    }
+
+    @Test
+    public void writeEntryDuplicate() throws IOException {
+        var zip = new ZipBuilder();
+        zip.writeEntry("test.txt", new byte[]{'t', 'e', 's', 't'});
+
+        Assertions.assertThrows(
+            ZipException.class,
+            () -> zip.writeEntry("test.txt", new byte[]{'t', 'e', 's', 't'}),
+            "ZipBuilder.writeEntry() should reject duplicated entries."
+        );
+    }
+
+    @Test
+    public void dumpFromFile(@TempDir Path directory) throws IOException {
+        var file = directory.resolve("test.zip");
+
+        var zip = new ZipBuilder(file);
+        zip.writeEntry("test.txt", new byte[]{'t', 'e', 's', 't'});
+        var buffer = zip.dump();
+
+        // mapped buffer needs to outlive the file
+        Files.delete(file);
+
+        var stream = new ZipInputStream(new ByteBufferBackedInputStream(buffer));
+        var entry = stream.getNextEntry();
+
+        var scanner = new Scanner(stream);
+
+        Assertions.assertEquals(
+            "test.txt",
+            entry.getName(),
+            "ZipBuilder.dump() should expose archive streamed into file."
+        );
+        Assertions.assertEquals(
+            "test",
+            scanner.next(),
+            "ZipBuilder.dump() should expose archive streamed into file."
+        );
+    }
+
+    private static ByteBuffer buildDeterministic(byte[] source) throws IOException {
+        var zip = new ZipBuilder(true);
+        zip.copyFrom(new ZipFile(new SeekableInMemoryByteChannel(source)));
+        zip.writeEntry("config.json", new byte[]{'{', '}'});
+        return zip.dump();
+    }
+
+    private static byte[] buildSource(String[] names, int[] modes, long time) throws IOException {
+        var output = new ByteArrayOutputStream();
+        try (var zip = new ZipArchiveOutputStream(output)) {
+            for (var i = 0; i < names.length; ++i) {
+                var entry = new ZipArchiveEntry(names[i]);
+                entry.setUnixMode(modes[i]);
+                entry.setTime(time);
+                zip.putArchiveEntry(entry);
+                zip.write(names[i].getBytes(StandardCharsets.UTF_8));
+                zip.closeArchiveEntry();
+            }
+        }
+        return output.toByteArray();
+    }
 }
@@ -0,0 +1,104 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.macro.combined;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import pl.wrzasq.commons.aws.cloudformation.macro.CloudFormationMacroRequest;
+import pl.wrzasq.commons.aws.cloudformation.macro.CloudFormationMacroResponse;
+import pl.wrzasq.commons.aws.cloudformation.macro.MacroHandler;
+import pl.wrzasq.commons.aws.cloudformation.macro.TemplateDefinition;
+import pl.wrzasq.lambda.macro.combined.template.ChainedTemplate;
+
+/**
+ * CloudFormation macro handler.
+ *
+ * <p>Recommended memory: 256MB.</p>
+ */
+public class Handler implements RequestHandler<CloudFormationMacroRequest, CloudFormationMacroResponse> {
+    /**
+     * Available transformations.
+     */
+    private static final Map<String, Function<Map<String, Object>, TemplateDefinition>> TRANSFORMATIONS = Map.of(
+        "lambda-function",
+        pl.wrzasq.lambda.macro.lambda.function.template.ProcessedTemplate::new,
+        "pipeline-project",
+        pl.wrzasq.lambda.macro.pipeline.project.template.ProcessedTemplate::new,
+        "pipeline-multistagecd",
+        pl.wrzasq.lambda.macro.pipeline.multistagecd.template.ProcessedTemplate::new
+    );
+
+    /**
+     * Transformations separator.
+     */
+    private static final String SEPARATOR = ",";
+
+    /**
+     * Transformations to apply, in order of execution.
+     */
+    private static final String MACRO_TRANSFORMATIONS = Objects.requireNonNullElse(
+        System.getenv("MACRO_TRANSFORMATIONS"),
+        "lambda-function,pipeline-project,pipeline-multistagecd"
+    );
+
+    /**
+     * CloudFormation macro handler.
+     */
+    private MacroHandler macroHandler;
+
+    /**
+     * Default constructor.
+     */
+    public Handler() {
+        this(Handler.MACRO_TRANSFORMATIONS);
+    }
+
+    /**
+     * Initializes handler with given transformations chain.
+     *
+     * @param transformations Comma-separated transformation names, in order of execution.
+     */
+    public Handler(String transformations) {
+        var chain = Handler.resolveTransformations(transformations);
+        this.macroHandler = new MacroHandler(input -> new ChainedTemplate(input, chain));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CloudFormationMacroResponse handleRequest(CloudFormationMacroRequest event, Context context) {
+        return this.macroHandler.handleRequest(event);
+    }
+
+    /**
+     * Resolves transformation names.
+     *
+     * @param transformations Comma-separated transformation names.
+     * @return Transformations chain.
+     */
+    private static List<Function<Map<String, Object>, TemplateDefinition>> resolveTransformations(
+        String transformations
+    ) {
+        var chain = new ArrayList<Function<Map<String, Object>, TemplateDefinition>>();
+        for (var name : transformations.split(Handler.SEPARATOR)) {
+            var transformation = Handler.TRANSFORMATIONS.get(name.trim());
+            if (transformation == null) {
+                throw new IllegalArgumentException(String.format("Unknown template transformation \"%s\".", name));
+            }
+            chain.add(transformation);
+        }
+        return chain;
+    }
+}
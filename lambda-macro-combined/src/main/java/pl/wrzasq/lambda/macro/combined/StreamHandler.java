@@ -0,0 +1,80 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.macro.combined;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+import pl.wrzasq.commons.json.ObjectMapperFactory;
+import pl.wrzasq.lambda.macro.combined.template.StreamingTemplateProcessor;
+import pl.wrzasq.lambda.macro.combined.template.VirtualResourceType;
+import pl.wrzasq.lambda.macro.lambda.function.template.LambdaFunctionResource;
+import pl.wrzasq.lambda.macro.pipeline.project.template.PipelineProjectResource;
+
+/**
+ * Streaming CloudFormation macro handler.
+ *
+ * <p>
+ *     Handles the same resources as <code>lambda-function</code> and <code>pipeline-project</code> transformations,
+ *     but without materializing the whole template - meant for large templates.
+ * </p>
+ *
+ * <p>Recommended memory: 256MB.</p>
+ */
+public class StreamHandler {
+    /**
+     * Lambda function resources handling.
+     */
+    private static final VirtualResourceType LAMBDA_FUNCTION = new VirtualResourceType(
+        pl.wrzasq.lambda.macro.lambda.function.template.ProcessedTemplate::new,
+        LambdaFunctionResource::buildLogGroupLogicalId
+    );
+
+    /**
+     * Pipeline project resources handling.
+     */
+    private static final VirtualResourceType PIPELINE_PROJECT = new VirtualResourceType(
+        pl.wrzasq.lambda.macro.pipeline.project.template.ProcessedTemplate::new,
+        PipelineProjectResource::buildLogGroupLogicalId
+    );
+
+    /**
+     * Template processor.
+     */
+    private StreamingTemplateProcessor processor;
+
+    /**
+     * Default constructor.
+     */
+    public StreamHandler() {
+        this.processor = new StreamingTemplateProcessor(
+            ObjectMapperFactory.createObjectMapper(),
+            Map.of(
+                LambdaFunctionResource.LAMBDA_RESOURCE_TYPE, StreamHandler.LAMBDA_FUNCTION,
+                LambdaFunctionResource.SERVERLESS_RESOURCE_TYPE, StreamHandler.LAMBDA_FUNCTION,
+                PipelineProjectResource.RESOURCE_TYPE, StreamHandler.PIPELINE_PROJECT
+            )
+        );
+    }
+
+    /**
+     * Handles invocation.
+     *
+     * @param inputStream Request input.
+     * @param outputStream Output stream.
+     * @throws IOException When JSON loading/dumping fails.
+     */
+    public void handle(InputStream inputStream, OutputStream outputStream) throws IOException {
+        try (outputStream) {
+            // raw request is kept as it's read twice - still much less memory than the parsed structure
+            this.processor.process(inputStream.readAllBytes(), outputStream);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.macro.combined.template;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import lombok.Getter;
+import pl.wrzasq.commons.aws.cloudformation.macro.TemplateDefinition;
+
+/**
+ * Contains template structure after all chained transformations.
+ *
+ * <p>
+ *     Each transformation receives output of the previous one, so the template stays in memory for the whole chain and
+ *     is parsed and serialized only once by the macro handler.
+ * </p>
+ */
+public class ChainedTemplate implements TemplateDefinition {
+    /**
+     * Template structure.
+     */
+    @Getter
+    private Map<String, Object> template;
+
+    /**
+     * Template initializer.
+     *
+     * @param input Initial template structure.
+     * @param transformations Template transformations, in order of execution.
+     */
+    public ChainedTemplate(
+        Map<String, Object> input,
+        List<Function<Map<String, Object>, TemplateDefinition>> transformations
+    ) {
+        this.template = input;
+        for (var transformation : transformations) {
+            this.template = transformation.apply(this.template).getTemplate();
+        }
+    }
+}
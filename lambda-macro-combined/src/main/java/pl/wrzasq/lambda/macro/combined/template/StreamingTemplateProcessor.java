@@ -0,0 +1,381 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.macro.combined.template;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.wrzasq.commons.aws.cloudformation.macro.CloudFormationMacroResponse;
+import pl.wrzasq.commons.aws.cloudformation.macro.TemplateUtils;
+
+/**
+ * Token-level macro request processor.
+ *
+ * <p>
+ *     Request is read in two passes over the raw input. First pass only peeks at resource types to find virtual
+ *     resources (so that dependencies on resources defined later can be resolved). Second pass copies all untouched
+ *     tokens straight to the response - trees are built only for the virtual resources, which are expanded by their
+ *     regular transformations.
+ * </p>
+ *
+ * <p>
+ *     Template-level transformations (like the <code>Pipeline</code> section) can't be handled this way and are
+ *     rejected.
+ * </p>
+ */
+public class StreamingTemplateProcessor {
+    /**
+     * Resource definition type.
+     */
+    private static final TypeReference<Map<String, Object>> DEFINITION_TYPE = new TypeReference<>() {
+    };
+
+    /**
+     * Request ID field.
+     */
+    private static final String FIELD_REQUEST_ID = "requestId";
+
+    /**
+     * Template fragment field.
+     */
+    private static final String FIELD_FRAGMENT = "fragment";
+
+    /**
+     * Response status field.
+     */
+    private static final String FIELD_STATUS = "status";
+
+    /**
+     * Template section handled by template-level transformation.
+     */
+    private static final String SECTION_PIPELINE = "Pipeline";
+
+    /**
+     * Logger.
+     */
+    private static Logger logger = LoggerFactory.getLogger(StreamingTemplateProcessor.class);
+
+    /**
+     * JSON handler.
+     */
+    private ObjectMapper objectMapper;
+
+    /**
+     * Writer for expanded resources.
+     */
+    private ObjectWriter objectWriter;
+
+    /**
+     * Handled virtual resource types.
+     */
+    private Map<String, VirtualResourceType> types;
+
+    /**
+     * Initializes object.
+     *
+     * @param objectMapper JSON handler.
+     * @param types Handled virtual resource types.
+     */
+    public StreamingTemplateProcessor(ObjectMapper objectMapper, Map<String, VirtualResourceType> types) {
+        this.objectMapper = objectMapper;
+        // generator is flushed once, at the end of the response
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.types = types;
+    }
+
+    /**
+     * Processes macro request.
+     *
+     * @param input Macro request.
+     * @param output Macro response output.
+     * @throws IOException When reading or writing JSON fails.
+     */
+    public void process(byte[] input, OutputStream output) throws IOException {
+        var virtual = this.findVirtualResources(input);
+
+        try (
+            var parser = this.objectMapper.getFactory().createParser(input);
+            var generator = this.objectMapper.getFactory().createGenerator(output)
+        ) {
+            StreamingTemplateProcessor.expectObject(parser, parser.nextToken(), "Macro request");
+
+            String requestId = null;
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var field = parser.getCurrentName();
+                var token = parser.nextToken();
+                if (StreamingTemplateProcessor.FIELD_REQUEST_ID.equals(field)) {
+                    requestId = parser.getValueAsString();
+                } else if (StreamingTemplateProcessor.FIELD_FRAGMENT.equals(field)) {
+                    StreamingTemplateProcessor.expectObject(parser, token, "Template fragment");
+                    generator.writeFieldName(StreamingTemplateProcessor.FIELD_FRAGMENT);
+                    this.processFragment(parser, generator, virtual);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            generator.writeStringField(StreamingTemplateProcessor.FIELD_REQUEST_ID, requestId);
+            generator.writeStringField(
+                StreamingTemplateProcessor.FIELD_STATUS,
+                CloudFormationMacroResponse.STATUS_SUCCESS
+            );
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Finds virtual resources in the template.
+     *
+     * @param input Macro request.
+     * @return Virtual resources types by logical IDs.
+     * @throws IOException When reading JSON fails.
+     */
+    private Map<String, VirtualResourceType> findVirtualResources(byte[] input) throws IOException {
+        var virtual = new HashMap<String, VirtualResourceType>();
+
+        try (var parser = this.objectMapper.getFactory().createParser(input)) {
+            StreamingTemplateProcessor.expectObject(parser, parser.nextToken(), "Macro request");
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var field = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.START_OBJECT
+                    && StreamingTemplateProcessor.FIELD_FRAGMENT.equals(field)) {
+                    this.scanFragment(parser, virtual);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return virtual;
+    }
+
+    /**
+     * Scans template fragment for virtual resources.
+     *
+     * @param parser JSON parser positioned at fragment start.
+     * @param virtual Virtual resources container.
+     * @throws IOException When reading JSON fails.
+     */
+    private void scanFragment(JsonParser parser, Map<String, VirtualResourceType> virtual) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var section = parser.getCurrentName();
+            if (StreamingTemplateProcessor.SECTION_PIPELINE.equals(section)) {
+                throw new JsonParseException(
+                    parser,
+                    "Pipeline section requires full template processing and is not supported in streaming mode."
+                );
+            }
+
+            if (parser.nextToken() == JsonToken.START_OBJECT && TemplateUtils.SECTION_RESOURCES.equals(section)) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    var logicalId = parser.getCurrentName();
+                    if (parser.nextToken() == JsonToken.START_OBJECT) {
+                        var type = StreamingTemplateProcessor.scanType(parser);
+                        if (type != null && this.types.containsKey(type)) {
+                            virtual.put(logicalId, this.types.get(type));
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Peeks at resource type.
+     *
+     * @param parser JSON parser positioned at resource definition start.
+     * @return Resource type (null if not set).
+     * @throws IOException When reading JSON fails.
+     */
+    private static String scanType(JsonParser parser) throws IOException {
+        String type = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_STRING && TemplateUtils.PROPERTY_KEY_TYPE.equals(field)) {
+                type = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Copies template fragment.
+     *
+     * @param parser JSON parser positioned at fragment start.
+     * @param generator JSON generator.
+     * @param virtual Virtual resources types by logical IDs.
+     * @throws IOException When reading or writing JSON fails.
+     */
+    private void processFragment(
+        JsonParser parser,
+        JsonGenerator generator,
+        Map<String, VirtualResourceType> virtual
+    ) throws IOException {
+        generator.writeStartObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var section = parser.getCurrentName();
+            var token = parser.nextToken();
+            generator.writeFieldName(section);
+            if (token == JsonToken.START_OBJECT && TemplateUtils.SECTION_RESOURCES.equals(section)) {
+                this.processResources(parser, generator, virtual);
+            } else {
+                generator.copyCurrentStructure(parser);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Copies resources section, expanding virtual resources.
+     *
+     * @param parser JSON parser positioned at section start.
+     * @param generator JSON generator.
+     * @param virtual Virtual resources types by logical IDs.
+     * @throws IOException When reading or writing JSON fails.
+     */
+    private void processResources(
+        JsonParser parser,
+        JsonGenerator generator,
+        Map<String, VirtualResourceType> virtual
+    ) throws IOException {
+        generator.writeStartObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var logicalId = parser.getCurrentName();
+            var token = parser.nextToken();
+            if (virtual.containsKey(logicalId)) {
+                this.expandResource(logicalId, parser, generator, virtual.get(logicalId));
+            } else {
+                generator.writeFieldName(logicalId);
+                if (token == JsonToken.START_OBJECT) {
+                    StreamingTemplateProcessor.copyResource(parser, generator, virtual);
+                } else {
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Replaces virtual resource with its expanded definitions.
+     *
+     * @param logicalId Resource logical ID.
+     * @param parser JSON parser positioned at resource definition start.
+     * @param generator JSON generator.
+     * @param type Virtual resource type.
+     * @throws IOException When reading or writing JSON fails.
+     */
+    private void expandResource(
+        String logicalId,
+        JsonParser parser,
+        JsonGenerator generator,
+        VirtualResourceType type
+    ) throws IOException {
+        StreamingTemplateProcessor.logger.info("Expanding {} in streaming mode.", logicalId);
+
+        var resources = new HashMap<String, Object>();
+        resources.put(logicalId, parser.readValueAs(StreamingTemplateProcessor.DEFINITION_TYPE));
+        var template = new HashMap<String, Object>();
+        template.put(TemplateUtils.SECTION_RESOURCES, resources);
+
+        var expanded = TemplateUtils.asMap(
+            type.getTransformation().apply(template).getTemplate().get(TemplateUtils.SECTION_RESOURCES)
+        );
+        for (var entry : expanded.entrySet()) {
+            generator.writeFieldName(entry.getKey());
+            this.objectWriter.writeValue(generator, entry.getValue());
+        }
+    }
+
+    /**
+     * Copies regular resource, resolving its dependencies.
+     *
+     * @param parser JSON parser positioned at resource definition start.
+     * @param generator JSON generator.
+     * @param virtual Virtual resources types by logical IDs.
+     * @throws IOException When reading or writing JSON fails.
+     */
+    private static void copyResource(
+        JsonParser parser,
+        JsonGenerator generator,
+        Map<String, VirtualResourceType> virtual
+    ) throws IOException {
+        generator.writeStartObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            if (TemplateUtils.PROPERTY_KEY_DEPENDSON.equals(parser.getCurrentName())) {
+                generator.writeFieldName(TemplateUtils.PROPERTY_KEY_DEPENDSON);
+                if (parser.nextToken() == JsonToken.START_ARRAY) {
+                    generator.writeStartArray();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        StreamingTemplateProcessor.copyDependency(parser, generator, virtual);
+                    }
+                    generator.writeEndArray();
+                } else {
+                    StreamingTemplateProcessor.copyDependency(parser, generator, virtual);
+                }
+            } else {
+                generator.copyCurrentStructure(parser);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Copies single dependency.
+     *
+     * @param parser JSON parser positioned at dependency.
+     * @param generator JSON generator.
+     * @param virtual Virtual resources types by logical IDs.
+     * @throws IOException When reading or writing JSON fails.
+     */
+    private static void copyDependency(
+        JsonParser parser,
+        JsonGenerator generator,
+        Map<String, VirtualResourceType> virtual
+    ) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING && virtual.containsKey(parser.getText())) {
+            var dependency = parser.getText();
+            generator.writeString(virtual.get(dependency).getDependencyResolver().apply(dependency));
+        } else {
+            generator.copyCurrentStructure(parser);
+        }
+    }
+
+    /**
+     * Ensures current token opens an object.
+     *
+     * @param parser JSON parser.
+     * @param token Current token.
+     * @param name Structure name for error message.
+     * @throws JsonParseException When current token is not an object start.
+     */
+    private static void expectObject(JsonParser parser, JsonToken token, String name) throws JsonParseException {
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, String.format("%s must be a JSON object.", name));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.macro.combined.template;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import pl.wrzasq.commons.aws.cloudformation.macro.TemplateDefinition;
+
+/**
+ * Handling of single virtual resource type in streaming mode.
+ */
+@AllArgsConstructor
+@Getter
+public class VirtualResourceType {
+    /**
+     * Transformation applied to template containing just the virtual resource.
+     */
+    private final Function<Map<String, Object>, TemplateDefinition> transformation;
+
+    /**
+     * Resolves logical ID that replaces virtual resource in DependsOn clauses.
+     */
+    private final UnaryOperator<String> dependencyResolver;
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.macro.combined;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.wrzasq.commons.aws.cloudformation.macro.CloudFormationMacroRequest;
+import pl.wrzasq.commons.aws.cloudformation.macro.CloudFormationMacroResponse;
+import pl.wrzasq.commons.aws.cloudformation.macro.TemplateUtils;
+import pl.wrzasq.lambda.macro.combined.Handler;
+
+public class HandlerTest {
+    private static final String REQUEST_ID = "abc";
+
+    @Test
+    public void handle() {
+        var output = new Handler().handleRequest(
+            new CloudFormationMacroRequest(HandlerTest.REQUEST_ID, HandlerTest.buildTemplate()),
+            null
+        );
+
+        Assertions.assertEquals(
+            CloudFormationMacroResponse.STATUS_SUCCESS,
+            output.getStatus(),
+            "Handler.handleRequest() should process template."
+        );
+        var resources = TemplateUtils.asMap(output.getFragment().get(TemplateUtils.SECTION_RESOURCES));
+        Assertions.assertEquals(
+            "AWS::Lambda::Function",
+            HandlerTest.getType(resources, "Function"),
+            "Handler.handleRequest() should apply Lambda function transformation."
+        );
+        Assertions.assertEquals(
+            "AWS::CodeBuild::Project",
+            HandlerTest.getType(resources, "Project"),
+            "Handler.handleRequest() should apply pipeline project transformation."
+        );
+    }
+
+    @Test
+    public void handleSelectedTransformations() {
+        var output = new Handler("pipeline-project").handleRequest(
+            new CloudFormationMacroRequest(HandlerTest.REQUEST_ID, HandlerTest.buildTemplate()),
+            null
+        );
+
+        var resources = TemplateUtils.asMap(output.getFragment().get(TemplateUtils.SECTION_RESOURCES));
+        Assertions.assertEquals(
+            "WrzasqPl::Lambda::Function",
+            HandlerTest.getType(resources, "Function"),
+            "Handler.handleRequest() should skip transformations that are not configured."
+        );
+        Assertions.assertEquals(
+            "AWS::CodeBuild::Project",
+            HandlerTest.getType(resources, "Project"),
+            "Handler.handleRequest() should apply configured transformations."
+        );
+    }
+
+    @Test
+    public void handleUnknownTransformation() {
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> new Handler("lambda-function,unknown"),
+            "Handler() should reject unknown transformation names."
+        );
+    }
+
+    private static Map<String, Object> buildTemplate() {
+        var function = new HashMap<String, Object>();
+        function.put(TemplateUtils.PROPERTY_KEY_TYPE, "WrzasqPl::Lambda::Function");
+        function.put(TemplateUtils.PROPERTY_KEY_PROPERTIES, new HashMap<>(Map.of("Runtime", "java11")));
+
+        var project = new HashMap<String, Object>();
+        project.put(TemplateUtils.PROPERTY_KEY_TYPE, "WrzasqPl::Pipeline::Project");
+        project.put(TemplateUtils.PROPERTY_KEY_PROPERTIES, new HashMap<>(Map.of("Name", "test")));
+
+        var resources = new HashMap<String, Object>();
+        resources.put("Function", function);
+        resources.put("Project", project);
+
+        var template = new HashMap<String, Object>();
+        template.put(TemplateUtils.SECTION_RESOURCES, resources);
+        return template;
+    }
+
+    private static Object getType(Map<String, Object> resources, String logicalId) {
+        return TemplateUtils.asMap(resources.get(logicalId)).get(TemplateUtils.PROPERTY_KEY_TYPE);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.macro.combined;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.wrzasq.commons.aws.cloudformation.macro.CloudFormationMacroRequest;
+import pl.wrzasq.lambda.macro.combined.Handler;
+import pl.wrzasq.lambda.macro.combined.StreamHandler;
+
+// run with `-prof gc` to compare allocation rates of both modes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MacroHandlerBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Param({"2000", "10000"})
+    private int resourcesCount;
+
+    private byte[] json;
+
+    private Handler handler;
+
+    private StreamHandler streamHandler;
+
+    @Setup
+    public void setUp() throws IOException {
+        // synthetic large stack - mostly regular resources with just a few virtual ones
+        var resources = new HashMap<String, Object>();
+        for (var i = 0; i < this.resourcesCount; ++i) {
+            var properties = new HashMap<String, Object>();
+            var resource = new HashMap<String, Object>();
+            if (i % 20 == 0) {
+                properties.put("Runtime", "java11");
+                properties.put("Handler", "pl.wrzasq.Handler::handle");
+                properties.put("Code", Map.of("S3Bucket", "bucket", "S3Key", String.format("lambda-%d.jar", i)));
+                resource.put("Type", i % 40 == 0 ? "WrzasqPl::Lambda::Function" : "WrzasqPl::Pipeline::Project");
+            } else {
+                properties.put("BucketName", String.format("bucket-%d", i));
+                properties.put("Tags", List.of(Map.of("Key", "Index", "Value", String.valueOf(i))));
+                resource.put("Type", "AWS::S3::Bucket");
+
+                var dependsOn = new ArrayList<String>();
+                for (var j = Math.max(0, i - 3); j < i; ++j) {
+                    dependsOn.add(String.format("Resource%d", j));
+                }
+                resource.put("DependsOn", dependsOn);
+            }
+            resource.put("Properties", properties);
+            resources.put(String.format("Resource%d", i), resource);
+        }
+
+        this.json = this.objectMapper.writeValueAsBytes(
+            Map.of(
+                "requestId", "abc",
+                "fragment", Map.of(
+                    "AWSTemplateFormatVersion", "2010-09-09",
+                    "Resources", resources
+                )
+            )
+        );
+
+        this.handler = new Handler("lambda-function,pipeline-project");
+        this.streamHandler = new StreamHandler();
+    }
+
+    @Benchmark
+    public void tree() throws IOException {
+        // mimics runtime serialization of POJO handler
+        this.objectMapper.writeValue(
+            OutputStream.nullOutputStream(),
+            this.handler.handleRequest(
+                this.objectMapper.readValue(this.json, CloudFormationMacroRequest.class),
+                null
+            )
+        );
+    }
+
+    @Benchmark
+    public void streaming() throws IOException {
+        this.streamHandler.handle(new ByteArrayInputStream(this.json), OutputStream.nullOutputStream());
+    }
+}
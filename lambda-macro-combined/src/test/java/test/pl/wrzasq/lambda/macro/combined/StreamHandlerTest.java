@@ -0,0 +1,39 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.macro.combined;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.wrzasq.commons.aws.cloudformation.macro.TemplateUtils;
+import pl.wrzasq.lambda.macro.combined.StreamHandler;
+
+public class StreamHandlerTest {
+    @Test
+    public void handle() throws IOException {
+        var output = new ByteArrayOutputStream();
+
+        new StreamHandler().handle(this.getClass().getResourceAsStream("/request.json"), output);
+
+        var response = new ObjectMapper().readTree(output.toByteArray());
+        var resources = response.path("fragment").path(TemplateUtils.SECTION_RESOURCES);
+        Assertions.assertEquals(
+            "AWS::Lambda::Function",
+            resources.path("Function").path(TemplateUtils.PROPERTY_KEY_TYPE).asText(),
+            "StreamHandler.handle() should expand Lambda function resources."
+        );
+        Assertions.assertEquals(
+            "AWS::CodeBuild::Project",
+            resources.path("Project").path(TemplateUtils.PROPERTY_KEY_TYPE).asText(),
+            "StreamHandler.handle() should expand pipeline project resources."
+        );
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.macro.combined.template;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.commons.aws.cloudformation.macro.TemplateDefinition;
+import pl.wrzasq.lambda.macro.combined.template.ChainedTemplate;
+
+@ExtendWith(MockitoExtension.class)
+public class ChainedTemplateTest {
+    @Mock
+    private TemplateDefinition first;
+
+    @Mock
+    private TemplateDefinition second;
+
+    @Test
+    public void getTemplate() {
+        Map<String, Object> input = Collections.singletonMap("Stage", "input");
+        Map<String, Object> intermediate = Collections.singletonMap("Stage", "intermediate");
+        Map<String, Object> output = Collections.singletonMap("Stage", "output");
+
+        Mockito
+            .when(this.first.getTemplate())
+            .thenReturn(intermediate);
+        Mockito
+            .when(this.second.getTemplate())
+            .thenReturn(output);
+
+        var template = new ChainedTemplate(
+            input,
+            List.of(
+                template1 -> {
+                    Assertions.assertSame(
+                        input,
+                        template1,
+                        "ChainedTemplate() should pass initial template to first transformation."
+                    );
+                    return this.first;
+                },
+                template2 -> {
+                    Assertions.assertSame(
+                        intermediate,
+                        template2,
+                        "ChainedTemplate() should pass output of previous transformation to the next one."
+                    );
+                    return this.second;
+                }
+            )
+        );
+
+        Assertions.assertSame(
+            output,
+            template.getTemplate(),
+            "ChainedTemplate.getTemplate() should return output of last transformation."
+        );
+    }
+
+    @Test
+    public void getTemplateEmptyChain() {
+        Map<String, Object> input = Collections.singletonMap("Stage", "input");
+
+        Assertions.assertSame(
+            input,
+            new ChainedTemplate(input, Collections.emptyList()).getTemplate(),
+            "ChainedTemplate.getTemplate() should return initial template when there are no transformations."
+        );
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.macro.combined.template;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.wrzasq.commons.aws.cloudformation.macro.CloudFormationMacroRequest;
+import pl.wrzasq.commons.aws.cloudformation.macro.CloudFormationMacroResponse;
+import pl.wrzasq.commons.aws.cloudformation.macro.TemplateUtils;
+import pl.wrzasq.lambda.macro.combined.Handler;
+import pl.wrzasq.lambda.macro.combined.template.StreamingTemplateProcessor;
+import pl.wrzasq.lambda.macro.combined.template.VirtualResourceType;
+import pl.wrzasq.lambda.macro.lambda.function.template.LambdaFunctionResource;
+import pl.wrzasq.lambda.macro.pipeline.project.template.PipelineProjectResource;
+
+public class StreamingTemplateProcessorTest {
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void process() throws IOException {
+        var input = this.getClass().getResourceAsStream("/request.json").readAllBytes();
+        var output = new ByteArrayOutputStream();
+
+        StreamingTemplateProcessorTest.createProcessor(this.objectMapper).process(input, output);
+
+        var response = this.objectMapper.readValue(output.toByteArray(), StreamingTemplateProcessorTest.MAP_TYPE);
+        var request = this.objectMapper.readValue(input, StreamingTemplateProcessorTest.MAP_TYPE);
+        var expected = new Handler("lambda-function,pipeline-project").handleRequest(
+            new CloudFormationMacroRequest("abc", TemplateUtils.asMap(request.get("fragment"))),
+            null
+        );
+
+        Assertions.assertEquals(
+            expected.getFragment(),
+            response.get("fragment"),
+            "StreamingTemplateProcessor.process() should produce same template as full template processing."
+        );
+        Assertions.assertEquals(
+            "abc",
+            response.get("requestId"),
+            "StreamingTemplateProcessor.process() should pass request ID."
+        );
+        Assertions.assertEquals(
+            CloudFormationMacroResponse.STATUS_SUCCESS,
+            response.get("status"),
+            "StreamingTemplateProcessor.process() should report success."
+        );
+    }
+
+    @Test
+    public void processUntouched() throws IOException {
+        var input = "{\"fragment\":{\"Resources\":{\"Value\":{\"Type\":\"AWS::SSM::Parameter\",\"Properties\":"
+            + "{\"Value\":1.5,\"Tier\":null}}},\"Outputs\":[]},\"requestId\":\"abc\"}";
+        var output = new ByteArrayOutputStream();
+
+        StreamingTemplateProcessorTest.createProcessor(this.objectMapper)
+            .process(input.getBytes(StandardCharsets.UTF_8), output);
+
+        Assertions.assertEquals(
+            "{\"fragment\":{\"Resources\":{\"Value\":{\"Type\":\"AWS::SSM::Parameter\",\"Properties\":"
+                + "{\"Value\":1.5,\"Tier\":null}}},\"Outputs\":[]},\"requestId\":\"abc\",\"status\":\"SUCCESS\"}",
+            output.toString(StandardCharsets.UTF_8),
+            "StreamingTemplateProcessor.process() should copy untouched structures token by token."
+        );
+    }
+
+    @Test
+    public void processPipelineSection() {
+        var input = "{\"fragment\":{\"Resources\":{},\"Pipeline\":{}},\"requestId\":\"abc\"}";
+        var output = new ByteArrayOutputStream();
+        var processor = StreamingTemplateProcessorTest.createProcessor(this.objectMapper);
+
+        Assertions.assertThrows(
+            JsonParseException.class,
+            () -> processor.process(input.getBytes(StandardCharsets.UTF_8), output),
+            "StreamingTemplateProcessor.process() should reject templates with pipeline section."
+        );
+        Assertions.assertEquals(
+            0,
+            output.size(),
+            "StreamingTemplateProcessor.process() should detect unsupported template before writing response."
+        );
+    }
+
+    @Test
+    public void processInvalidFragment() {
+        var input = "{\"fragment\":[],\"requestId\":\"abc\"}";
+        var processor = StreamingTemplateProcessorTest.createProcessor(this.objectMapper);
+
+        Assertions.assertThrows(
+            JsonParseException.class,
+            () -> processor.process(input.getBytes(StandardCharsets.UTF_8), new ByteArrayOutputStream()),
+            "StreamingTemplateProcessor.process() should reject fragment that is not an object."
+        );
+    }
+
+    private static StreamingTemplateProcessor createProcessor(ObjectMapper objectMapper) {
+        var function = new VirtualResourceType(
+            pl.wrzasq.lambda.macro.lambda.function.template.ProcessedTemplate::new,
+            LambdaFunctionResource::buildLogGroupLogicalId
+        );
+
+        return new StreamingTemplateProcessor(
+            objectMapper,
+            Map.of(
+                LambdaFunctionResource.LAMBDA_RESOURCE_TYPE, function,
+                LambdaFunctionResource.SERVERLESS_RESOURCE_TYPE, function,
+                PipelineProjectResource.RESOURCE_TYPE, new VirtualResourceType(
+                    pl.wrzasq.lambda.macro.pipeline.project.template.ProcessedTemplate::new,
+                    PipelineProjectResource::buildLogGroupLogicalId
+                )
+            )
+        );
+    }
+}
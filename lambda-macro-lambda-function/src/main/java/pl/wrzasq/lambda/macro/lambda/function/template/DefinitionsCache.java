@@ -0,0 +1,181 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.macro.lambda.function.template;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of expanded virtual resources.
+ *
+ * <p>
+ *     Entries are keyed by resource logical ID, mode and the structure of its properties (compared by value, not by
+ *     reference), as all of them affect generated definitions. Both the key properties and the definitions are kept
+ *     as private deep copies and each lookup returns a fresh copy, so callers may freely modify their inputs and
+ *     outputs - copying the structure is still much cheaper than building it.
+ * </p>
+ */
+public class DefinitionsCache {
+    /**
+     * Cached definitions in access order.
+     */
+    private final Map<Key, Map<String, Object>> entries;
+
+    /**
+     * Initializes cache with given capacity.
+     *
+     * @param capacity Maximum number of cached resources.
+     */
+    public DefinitionsCache(int capacity) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Map<String, Object>> eldest) {
+                return this.size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns cached definitions, building them on cache miss.
+     *
+     * @param logicalId Resource logical ID.
+     * @param mode Resource mode.
+     * @param properties Virtual resource properties.
+     * @param builder Definitions builder.
+     * @return Physical resources definitions.
+     */
+    public synchronized Map<String, Object> resolve(
+        String logicalId,
+        String mode,
+        Object properties,
+        Supplier<Map<String, Object>> builder
+    ) {
+        var key = new Key(logicalId, mode, DefinitionsCache.copy(properties));
+        var definitions = this.entries.get(key);
+        if (definitions == null) {
+            definitions = DefinitionsCache.copyMap(builder.get());
+            this.entries.put(key, definitions);
+        }
+
+        return DefinitionsCache.copyMap(definitions);
+    }
+
+    /**
+     * Returns number of cached resources.
+     *
+     * @return Cache size.
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Creates deep copy of the map.
+     *
+     * @param map Source map.
+     * @return Independent copy.
+     */
+    private static Map<String, Object> copyMap(Map<String, Object> map) {
+        var copy = new LinkedHashMap<String, Object>();
+        map.forEach((key, value) -> copy.put(key, DefinitionsCache.copy(value)));
+        return copy;
+    }
+
+    /**
+     * Creates deep copy of the template structure.
+     *
+     * @param value Source value.
+     * @return Independent copy (scalars are immutable, so they are shared).
+     */
+    private static Object copy(Object value) {
+        if (value instanceof Map) {
+            var copy = new LinkedHashMap<Object, Object>();
+            ((Map<?, ?>) value).forEach((key, item) -> copy.put(key, DefinitionsCache.copy(item)));
+            return copy;
+        } else if (value instanceof List) {
+            var copy = new ArrayList<>();
+            ((List<?>) value).forEach(item -> copy.add(DefinitionsCache.copy(item)));
+            return copy;
+        }
+
+        return value;
+    }
+
+    /**
+     * Cache entry key.
+     */
+    private static final class Key {
+        /**
+         * Resource logical ID.
+         */
+        private final String logicalId;
+
+        /**
+         * Resource mode.
+         */
+        private final String mode;
+
+        /**
+         * Virtual resource properties.
+         */
+        private final Object properties;
+
+        /**
+         * Structural hash, computed once as it requires traversing whole properties tree.
+         */
+        private final int hash;
+
+        /**
+         * Initializes key.
+         *
+         * @param logicalId Resource logical ID.
+         * @param mode Resource mode.
+         * @param properties Virtual resource properties.
+         */
+        Key(String logicalId, String mode, Object properties) {
+            this.logicalId = logicalId;
+            this.mode = mode;
+            this.properties = properties;
+            this.hash = Objects.hash(logicalId, mode, properties);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+
+            var key = (Key) other;
+            return this.hash == key.hash
+                && this.logicalId.equals(key.logicalId)
+                && this.mode.equals(key.mode)
+                && Objects.equals(this.properties, key.properties);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
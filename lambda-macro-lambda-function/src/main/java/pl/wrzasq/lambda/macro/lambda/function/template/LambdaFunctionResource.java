@@ -2,7 +2,7 @@
  * This file is part of the pl.wrzasq.lambda.
  *
  * @license http://mit-license.org/ The MIT license
- * @copyright 2019 - 2020 © by Rafał Wrzeszcz - Wrzasq.pl.
+ * @copyright 2019 - 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
  */
 
 package pl.wrzasq.lambda.macro.lambda.function.template;
@@ -16,6 +16,12 @@ import pl.wrzasq.commons.aws.cloudformation.macro.TemplateUtils;
 
 /**
  * Model for handled resource.
+ *
+ * <p>
+ *     Static values of generated definitions (filter pattern, alarm settings) are kept in constants and referenced by
+ *     each definition, as single template may contain hundreds of functions. Property containers are still created
+ *     for each function, as they are filled with values that depend on logical ID.
+ * </p>
  */
 @AllArgsConstructor
 public class LambdaFunctionResource {
@@ -119,6 +125,34 @@ public class LambdaFunctionResource {
      */
     private static final String PROPERTY_FILTER_PATTERN = "FilterPattern";
 
+    /**
+     * Memory usage filter pattern for REPORT log entries.
+     */
+    private static final String MEMORY_FILTER_PATTERN = "[label=\"REPORT\", "
+        + "..., "
+        + "memory_label=\"Used:\", "
+        + "max_memory_used, unit=\"MB\", "
+        + "xray_label=\"XRAY\", "
+        + "trace_label=\"TraceId:\", "
+        + "traced, "
+        + "segment_label=\"SegmentId:\", "
+        + "segment, "
+        + "sampled_label=\"Sampled:\", "
+        + "sampled_value]";
+
+    /**
+     * Static properties of errors alarm.
+     */
+    private static final Map<String, Object> ALARM_DEFAULTS = Map.of(
+        LambdaFunctionResource.PROPERTY_NAMESPACE, LambdaFunctionResource.METRICS_NAMESPACE,
+        LambdaFunctionResource.PROPERTY_STATISTIC, "Sum",
+        LambdaFunctionResource.PROPERTY_COMPARISON_OPERATOR, "GreaterThanThreshold",
+        LambdaFunctionResource.PROPERTY_THRESHOLD, 0,
+        LambdaFunctionResource.PROPERTY_EVALUATION_PERIODS, 1,
+        LambdaFunctionResource.PROPERTY_PERIOD, LambdaFunctionResource.DEFAULT_ALERT_PERIOD,
+        LambdaFunctionResource.PROPERTY_TREAT_MISSING_DATA, "notBreaching"
+    );
+
     /**
      * Resource name.
      */
@@ -162,7 +196,7 @@ public class LambdaFunctionResource {
         var resourceProperties = new HashMap<String, Object>();
         resourceProperties.put(
             LambdaFunctionResource.PROPERTY_LOG_GROUP_NAME,
-            TemplateUtils.sub(String.format("/aws/lambda/${%s}", this.logicalId))
+            TemplateUtils.sub("/aws/lambda/${" + this.logicalId + "}")
         );
 
         TemplateUtils.popProperty(
@@ -191,17 +225,7 @@ public class LambdaFunctionResource {
             "MemoryMetricFilter",
             "Memory",
             "$max_memory_used",
-            "[label=\"REPORT\", "
-                + "..., "
-                + "memory_label=\"Used:\", "
-                + "max_memory_used, unit=\"MB\", "
-                + "xray_label=\"XRAY\", "
-                + "trace_label=\"TraceId:\", "
-                + "traced, "
-                + "segment_label=\"SegmentId:\", "
-                + "segment, "
-                + "sampled_label=\"Sampled:\", "
-                + "sampled_value]"
+            LambdaFunctionResource.MEMORY_FILTER_PATTERN
         );
     }
 
@@ -233,18 +257,11 @@ public class LambdaFunctionResource {
      * @param properties Resource properties.
      */
     private void createErrorsAlarm(Map<String, Object> resources, Map<String, Object> properties) {
-        var resourceProperties = new HashMap<String, Object>();
-        resourceProperties.put(LambdaFunctionResource.PROPERTY_NAMESPACE, LambdaFunctionResource.METRICS_NAMESPACE);
+        var resourceProperties = new HashMap<>(LambdaFunctionResource.ALARM_DEFAULTS);
         resourceProperties.put(
             LambdaFunctionResource.PROPERTY_METRIC_NAME,
-            TemplateUtils.sub(String.format("${%s}-Errors", this.logicalId))
+            TemplateUtils.sub("${" + this.logicalId + "}-Errors")
         );
-        resourceProperties.put(LambdaFunctionResource.PROPERTY_STATISTIC, "Sum");
-        resourceProperties.put(LambdaFunctionResource.PROPERTY_COMPARISON_OPERATOR, "GreaterThanThreshold");
-        resourceProperties.put(LambdaFunctionResource.PROPERTY_THRESHOLD, 0);
-        resourceProperties.put(LambdaFunctionResource.PROPERTY_EVALUATION_PERIODS, 1);
-        resourceProperties.put(LambdaFunctionResource.PROPERTY_PERIOD, LambdaFunctionResource.DEFAULT_ALERT_PERIOD);
-        resourceProperties.put(LambdaFunctionResource.PROPERTY_TREAT_MISSING_DATA, "notBreaching");
 
         TemplateUtils.popProperty(
             properties,
@@ -302,7 +319,7 @@ public class LambdaFunctionResource {
         transformation.put(LambdaFunctionResource.PROPERTY_METRIC_NAMESPACE, LambdaFunctionResource.METRICS_NAMESPACE);
         transformation.put(
             LambdaFunctionResource.PROPERTY_METRIC_NAME,
-            TemplateUtils.sub(String.format("${%s}-%s", this.logicalId, metricNameSuffix))
+            TemplateUtils.sub("${" + this.logicalId + "}-" + metricNameSuffix)
         );
         transformation.put(LambdaFunctionResource.PROPERTY_METRIC_VALUE, metricValue);
 
@@ -336,7 +353,7 @@ public class LambdaFunctionResource {
         this.generateResource(
             resources,
             "",
-            String.format("%s::Function", this.mode),
+            this.mode + "::Function",
             properties
         );
     }
@@ -347,7 +364,17 @@ public class LambdaFunctionResource {
      * @return LogGroup logical ID.
      */
     public String getLogGroupLogicalId() {
-        return String.format("%sLogGroup", this.logicalId);
+        return LambdaFunctionResource.buildLogGroupLogicalId(this.logicalId);
+    }
+
+    /**
+     * Builds logical ID of LogGroup resource for given function.
+     *
+     * @param logicalId Function resource logical ID.
+     * @return LogGroup logical ID.
+     */
+    public static String buildLogGroupLogicalId(String logicalId) {
+        return logicalId + "LogGroup";
     }
 
     /**
@@ -365,7 +392,7 @@ public class LambdaFunctionResource {
         Map<String, Object> properties
     ) {
         resources.put(
-            String.format("%s%s", this.logicalId, suffix),
+            this.logicalId + suffix,
             TemplateUtils.generateResource(type, properties, null)
         );
     }
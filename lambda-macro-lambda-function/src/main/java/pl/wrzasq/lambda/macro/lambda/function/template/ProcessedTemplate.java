@@ -2,7 +2,7 @@
  * This file is part of the pl.wrzasq.lambda.
  *
  * @license http://mit-license.org/ The MIT license
- * @copyright 2019 - 2020 © by Rafał Wrzeszcz - Wrzasq.pl.
+ * @copyright 2019 - 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
  */
 
 package pl.wrzasq.lambda.macro.lambda.function.template;
@@ -12,33 +12,41 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import pl.wrzasq.commons.aws.cloudformation.macro.ResourcesDefinition;
 import pl.wrzasq.commons.aws.cloudformation.macro.TemplateDefinition;
 import pl.wrzasq.commons.aws.cloudformation.macro.TemplateUtils;
-import pl.wrzasq.commons.json.ObjectMapperFactory;
 
 /**
  * Contains template structure with handled resources references.
+ *
+ * <p>
+ *     Resources section is rewritten in a single pass - virtual resources are detected by peeking at their type, so
+ *     untouched resources are passed to the output as they are, and only resources with dependencies on virtual ones
+ *     are copied.
+ * </p>
+ *
+ * <p>
+ *     Expanded virtual resources are memoized in a cache shared by the warm container, so repeated templates (or
+ *     repeated resources across nested stacks) are not rebuilt.
+ * </p>
  */
 public class ProcessedTemplate implements TemplateDefinition {
     /**
-     * Values converter.
+     * Maximum number of memoized virtual resources.
      */
-    private static ObjectMapper objectMapper = ObjectMapperFactory.createObjectMapper();
+    private static final int CACHE_CAPACITY = 256;
 
     /**
-     * Logger.
+     * Default, container-wide definitions cache.
      */
-    private static Logger logger = LoggerFactory.getLogger(ProcessedTemplate.class);
+    private static final DefinitionsCache DEFAULT_CACHE = new DefinitionsCache(ProcessedTemplate.CACHE_CAPACITY);
 
     /**
-     * Mapping of handled resources.
+     * Logger.
      */
-    private Map<String, LambdaFunctionResource> resources = new HashMap<>();
+    private static Logger logger = LoggerFactory.getLogger(ProcessedTemplate.class);
 
     /**
      * Template structure.
@@ -46,123 +54,128 @@ public class ProcessedTemplate implements TemplateDefinition {
     @Getter
     private Map<String, Object> template;
 
+    /**
+     * Expanded resources cache.
+     */
+    private DefinitionsCache cache;
+
     /**
      * Template initializer.
      *
      * @param input Initial template structure.
      */
     public ProcessedTemplate(Map<String, Object> input) {
-        this.template = this.replaceReferences(
-            this.createResources(input)
-        );
+        this(input, ProcessedTemplate.DEFAULT_CACHE);
     }
 
     /**
-     * Finds our custom resources and creates a replacements.
+     * Template initializer.
      *
      * @param input Initial template structure.
-     * @return Template state after processing.
+     * @param cache Expanded resources cache.
      */
-    private Map<String, Object> createResources(Map<String, Object> input) {
-        var output = new HashMap<>(input);
-
-        // re-create resources section
-        var section = TemplateUtils.asMap(input.get(TemplateUtils.SECTION_RESOURCES));
-        var resources = new HashMap<>();
-        for (var entry : section.entrySet()) {
-            var definition = ProcessedTemplate.objectMapper.convertValue(
-                entry.getValue(),
-                ResourcesDefinition.class
-            );
-            if (definition.getType().equals(LambdaFunctionResource.LAMBDA_RESOURCE_TYPE)) {
-                resources.putAll(
-                    this.createResource(entry.getKey(), definition.getProperties(), "Lambda")
-                );
-            } else if (definition.getType().equals(LambdaFunctionResource.SERVERLESS_RESOURCE_TYPE)) {
-                resources.putAll(
-                    this.createResource(entry.getKey(), definition.getProperties(), "Serverless")
-                );
-            } else {
-                resources.put(entry.getKey(), section.get(entry.getKey()));
+    public ProcessedTemplate(Map<String, Object> input, DefinitionsCache cache) {
+        this.cache = cache;
+
+        var resources = new HashMap<String, Object>();
+        var section = input.get(TemplateUtils.SECTION_RESOURCES);
+        if (section instanceof Map) {
+            var definitions = (Map<?, ?>) section;
+            for (var entry : definitions.entrySet()) {
+                this.processResource(definitions, entry.getKey().toString(), entry.getValue(), resources);
             }
         }
 
-        output.put(TemplateUtils.SECTION_RESOURCES, resources);
-
-        return output;
+        this.template = new HashMap<>(input);
+        this.template.put(TemplateUtils.SECTION_RESOURCES, resources);
     }
 
     /**
-     * Creates our custom resource in place of virtual one.
+     * Puts resource into output section.
      *
-     * @param key Resource logical ID.
-     * @param properties Resource initial properties.
-     * @param mode Resource mode (`Lambda` or `Serverless`).
-     * @return Physical resources definitions.
+     * @param definitions Input resources section.
+     * @param logicalId Resource logical ID.
+     * @param definition Resource definition.
+     * @param resources Output resources section.
      */
-    private Map<String, Object> createResource(String key, Map<String, Object> properties, String mode) {
-        ProcessedTemplate.logger.info("Creating resources for {}.", key);
-
-        var resource = new LambdaFunctionResource(key, mode);
-        this.resources.put(key, resource);
-        return resource.buildDefinitions(properties);
+    private void processResource(
+        Map<?, ?> definitions,
+        String logicalId,
+        Object definition,
+        Map<String, Object> resources
+    ) {
+        var type = ProcessedTemplate.getProperty(definition, TemplateUtils.PROPERTY_KEY_TYPE);
+        if (LambdaFunctionResource.LAMBDA_RESOURCE_TYPE.equals(type)) {
+            resources.putAll(this.createResource(logicalId, definition, "Lambda"));
+        } else if (LambdaFunctionResource.SERVERLESS_RESOURCE_TYPE.equals(type)) {
+            resources.putAll(this.createResource(logicalId, definition, "Serverless"));
+        } else {
+            resources.put(logicalId, this.replaceDependencies(definitions, definition));
+        }
     }
 
     /**
-     * Replaces references to virtual resources.
+     * Creates our custom resource in place of virtual one.
      *
-     * @param input Input template structure.
-     * @return Template state after processing.
+     * @param key Resource logical ID.
+     * @param definition Virtual resource definition.
+     * @param mode Resource mode (`Lambda` or `Serverless`).
+     * @return Physical resources definitions.
      */
-    private Map<String, Object> replaceReferences(Map<String, Object> input) {
-        var output = new HashMap<>(input);
-
-        var section = TemplateUtils.asMap(input.get(TemplateUtils.SECTION_RESOURCES));
-        section = this.replaceDependencies(section);
-
-        output.put(TemplateUtils.SECTION_RESOURCES, this.replaceDependencies(section));
-
-        return output;
+    private Map<String, Object> createResource(String key, Object definition, String mode) {
+        var properties = ProcessedTemplate.getProperty(definition, TemplateUtils.PROPERTY_KEY_PROPERTIES);
+
+        return this.cache.resolve(
+            key,
+            mode,
+            properties,
+            () -> {
+                ProcessedTemplate.logger.info("Creating resources for {}.", key);
+
+                // builder consumes properties, so it works on a copy to keep the input template intact
+                return new LambdaFunctionResource(key, mode).buildDefinitions(TemplateUtils.asMap(properties));
+            }
+        );
     }
 
     /**
-     * Handles DependsOn clauses.
+     * Handles DependsOn clause.
      *
-     * @param resources Resources section.
-     * @return New clause value.
+     * @param definitions Input resources section.
+     * @param definition Resource definition.
+     * @return Resource definition with resolved dependencies.
      */
-    private Map<String, Object> replaceDependencies(Map<String, Object> resources) {
-        var output = new HashMap<String, Object>();
-
-        for (var resource : resources.entrySet()) {
-            var logicalId = resource.getKey();
-            var config = TemplateUtils.asMap(resource.getValue());
-
-            if (config.containsKey(TemplateUtils.PROPERTY_KEY_DEPENDSON)) {
-                var dependsOn = config.get(TemplateUtils.PROPERTY_KEY_DEPENDSON);
-                config.put(TemplateUtils.PROPERTY_KEY_DEPENDSON, this.replaceDependenciesIn(dependsOn));
-            }
+    private Object replaceDependencies(Map<?, ?> definitions, Object definition) {
+        var dependsOn = ProcessedTemplate.getProperty(definition, TemplateUtils.PROPERTY_KEY_DEPENDSON);
+        if (dependsOn == null) {
+            return definition;
+        }
 
-            output.put(logicalId, config);
+        var resolved = ProcessedTemplate.replaceDependenciesIn(definitions, dependsOn);
+        if (resolved.equals(dependsOn)) {
+            return definition;
         }
 
-        return output;
+        var config = TemplateUtils.asMap(definition);
+        config.put(TemplateUtils.PROPERTY_KEY_DEPENDSON, resolved);
+        return config;
     }
 
     /**
      * Handles DependsOn clause of single resource.
      *
+     * @param definitions Input resources section.
      * @param dependsOn Depends on clause.
      * @return Computed new DependsOn clause.
      */
-    private Object replaceDependenciesIn(Object dependsOn) {
+    private static Object replaceDependenciesIn(Map<?, ?> definitions, Object dependsOn) {
         if (dependsOn instanceof List) {
             return ((List<?>) dependsOn).stream()
                 .map(Object::toString)
-                .map(this::resolveDependency)
+                .map(dependency -> ProcessedTemplate.resolveDependency(definitions, dependency))
                 .collect(Collectors.toList());
         } else {
-            return this.resolveDependency(dependsOn.toString());
+            return ProcessedTemplate.resolveDependency(definitions, dependsOn.toString());
         }
     }
 
@@ -173,12 +186,26 @@ public class ProcessedTemplate implements TemplateDefinition {
      *     Effective dependency will be LogGroup, to ensure no Lambda execution happens before log group creation.
      * </p>
      *
+     * @param definitions Input resources section.
      * @param dependency Source dependency ID.
      * @return Resolved dependency ID.
      */
-    private String resolveDependency(String dependency) {
-        return this.resources.containsKey(dependency)
-            ? this.resources.get(dependency).getLogGroupLogicalId()
+    private static String resolveDependency(Map<?, ?> definitions, String dependency) {
+        var type = ProcessedTemplate.getProperty(definitions.get(dependency), TemplateUtils.PROPERTY_KEY_TYPE);
+        return LambdaFunctionResource.LAMBDA_RESOURCE_TYPE.equals(type)
+            || LambdaFunctionResource.SERVERLESS_RESOURCE_TYPE.equals(type)
+            ? LambdaFunctionResource.buildLogGroupLogicalId(dependency)
             : dependency;
     }
+
+    /**
+     * Peeks at resource property without converting the definition.
+     *
+     * @param definition Resource definition.
+     * @param key Property name.
+     * @return Property value (null if not set or definition is not an object).
+     */
+    private static Object getProperty(Object definition, String key) {
+        return definition instanceof Map ? ((Map<?, ?>) definition).get(key) : null;
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.macro.lambda.function.template;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.wrzasq.commons.aws.cloudformation.macro.TemplateUtils;
+import pl.wrzasq.lambda.macro.lambda.function.template.DefinitionsCache;
+
+public class DefinitionsCacheTest {
+    @Test
+    public void resolve() {
+        var cache = new DefinitionsCache(2);
+        var builds = new AtomicInteger();
+        Supplier<Map<String, Object>> builder = () -> Map.of("Build", builds.incrementAndGet());
+
+        var first = cache.resolve("Function", "Lambda", DefinitionsCacheTest.buildProperties("java11"), builder);
+        var second = cache.resolve("Function", "Lambda", DefinitionsCacheTest.buildProperties("java11"), builder);
+
+        Assertions.assertEquals(
+            first,
+            second,
+            "DefinitionsCache.resolve() should return cached definitions for structurally equal properties."
+        );
+        Assertions.assertEquals(
+            1,
+            builds.get(),
+            "DefinitionsCache.resolve() should build definitions only once."
+        );
+
+        cache.resolve("Function", "Serverless", DefinitionsCacheTest.buildProperties("java11"), builder);
+        cache.resolve("Other", "Lambda", DefinitionsCacheTest.buildProperties("java11"), builder);
+        cache.resolve("Function", "Lambda", DefinitionsCacheTest.buildProperties("java8"), builder);
+
+        Assertions.assertEquals(
+            4,
+            builds.get(),
+            "DefinitionsCache.resolve() should distinguish resources by logical ID, mode and properties."
+        );
+        Assertions.assertEquals(
+            2,
+            cache.size(),
+            "DefinitionsCache.resolve() should not exceed cache capacity."
+        );
+    }
+
+    @Test
+    public void resolveLeastRecentlyUsed() {
+        var cache = new DefinitionsCache(2);
+        var builds = new AtomicInteger();
+        Supplier<Map<String, Object>> builder = () -> Map.of("Build", builds.incrementAndGet());
+
+        cache.resolve("First", "Lambda", null, builder);
+        cache.resolve("Second", "Lambda", null, builder);
+        // refreshes first entry, so the second one should be evicted
+        cache.resolve("First", "Lambda", null, builder);
+        cache.resolve("Third", "Lambda", null, builder);
+        cache.resolve("First", "Lambda", null, builder);
+
+        Assertions.assertEquals(
+            3,
+            builds.get(),
+            "DefinitionsCache.resolve() should keep recently used definitions."
+        );
+
+        cache.resolve("Second", "Lambda", null, builder);
+
+        Assertions.assertEquals(
+            4,
+            builds.get(),
+            "DefinitionsCache.resolve() should evict least recently used definitions."
+        );
+    }
+
+    @Test
+    public void resolveIsolated() {
+        var cache = new DefinitionsCache(2);
+        var builds = new AtomicInteger();
+        Supplier<Map<String, Object>> builder = () -> {
+            var definitions = new HashMap<String, Object>();
+            definitions.put("Resource", new HashMap<>(Map.of("Build", builds.incrementAndGet())));
+            return definitions;
+        };
+        var properties = DefinitionsCacheTest.buildProperties("java11");
+
+        var first = cache.resolve("Function", "Lambda", properties, builder);
+        TemplateUtils.asMap(first.get("Resource")).put("Build", 0);
+        first.put("Extra", "value");
+        TemplateUtils.asMap(properties.get("Code")).put("S3Key", "other.jar");
+
+        var second = cache.resolve("Function", "Lambda", DefinitionsCacheTest.buildProperties("java11"), builder);
+
+        Assertions.assertEquals(
+            Map.of("Resource", Map.of("Build", 1)),
+            second,
+            "DefinitionsCache.resolve() should not expose cached definitions to modifications of returned output."
+        );
+        Assertions.assertEquals(
+            1,
+            builds.get(),
+            "DefinitionsCache.resolve() should not expose cache key to modifications of input properties."
+        );
+    }
+
+    private static Map<String, Object> buildProperties(String runtime) {
+        var properties = new HashMap<String, Object>();
+        properties.put("Runtime", runtime);
+        properties.put("Code", new HashMap<>(Map.of("S3Bucket", "bucket", "S3Key", "lambda.jar")));
+        return properties;
+    }
+}
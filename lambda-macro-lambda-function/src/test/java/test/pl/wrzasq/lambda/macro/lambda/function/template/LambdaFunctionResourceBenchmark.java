@@ -0,0 +1,50 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.macro.lambda.function.template;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.wrzasq.lambda.macro.lambda.function.template.LambdaFunctionResource;
+
+// single operation expands single function - run with `-prof gc` to see bytes allocated per function
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LambdaFunctionResourceBenchmark {
+    private final Map<String, Object> properties = Map.of(
+        "Runtime", "java11",
+        "Handler", "pl.wrzasq.Handler::handle",
+        "MemorySize", 256,
+        "Code", Map.of("S3Bucket", "bucket", "S3Key", "lambda.jar"),
+        "ErrorsAlarmActions", List.of("arn:aws:sns:eu-central-1:123456789012:alarms")
+    );
+
+    private int counter;
+
+    @Benchmark
+    public Map<String, Object> buildDefinitions() {
+        // builder consumes properties, so each expansion needs own copy
+        return new LambdaFunctionResource("Function" + (this.counter++ & 1023), "Lambda")
+            .buildDefinitions(new HashMap<>(this.properties));
+    }
+}
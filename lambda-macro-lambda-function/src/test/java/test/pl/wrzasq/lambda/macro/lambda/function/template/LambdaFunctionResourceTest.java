@@ -2,15 +2,18 @@
  * This file is part of the pl.wrzasq.lambda.
  *
  * @license http://mit-license.org/ The MIT license
- * @copyright 2019 - 2020 © by Rafał Wrzeszcz - Wrzasq.pl.
+ * @copyright 2019 - 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
  */
 
 package test.pl.wrzasq.lambda.macro.lambda.function.template;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import pl.wrzasq.commons.aws.cloudformation.macro.TemplateUtils;
 import pl.wrzasq.lambda.macro.lambda.function.template.LambdaFunctionResource;
 
 public class LambdaFunctionResourceTest {
@@ -27,4 +30,69 @@ public class LambdaFunctionResourceTest {
             "LambdaFunctionResource.getLogGroupLogicalId() should return ID of created log group."
         );
     }
+
+    @Test
+    public void buildDefinitionsStaticParts() {
+        var definitions = new LambdaFunctionResource("TestFunction", "Lambda")
+            .buildDefinitions(new HashMap<>());
+
+        var alarm = LambdaFunctionResourceTest.getProperties(definitions, "TestFunctionErrorsAlarm");
+        var expected = new HashMap<String, Object>();
+        expected.put("Namespace", "WrzasqPl/Lambda");
+        expected.put("MetricName", Map.of("Fn::Sub", "${TestFunction}-Errors"));
+        expected.put("Statistic", "Sum");
+        expected.put("ComparisonOperator", "GreaterThanThreshold");
+        expected.put("Threshold", 0);
+        expected.put("EvaluationPeriods", 1);
+        expected.put("Period", 300);
+        expected.put("TreatMissingData", "notBreaching");
+        Assertions.assertEquals(
+            expected,
+            alarm,
+            "LambdaFunctionResource.buildDefinitions() should generate errors alarm with default settings."
+        );
+
+        var filter = LambdaFunctionResourceTest.getProperties(definitions, "TestFunctionMemoryMetricFilter");
+        Assertions.assertEquals(
+            "[label=\"REPORT\", ..., memory_label=\"Used:\", max_memory_used, unit=\"MB\", xray_label=\"XRAY\", "
+                + "trace_label=\"TraceId:\", traced, segment_label=\"SegmentId:\", segment, "
+                + "sampled_label=\"Sampled:\", sampled_value]",
+            filter.get("FilterPattern"),
+            "LambdaFunctionResource.buildDefinitions() should generate memory metric filter for REPORT log entries."
+        );
+    }
+
+    @Test
+    public void buildDefinitionsSharedValues() {
+        var first = new LambdaFunctionResource("First", "Lambda").buildDefinitions(new HashMap<>());
+        var second = new LambdaFunctionResource("Second", "Lambda").buildDefinitions(new HashMap<>());
+
+        var firstAlarm = LambdaFunctionResourceTest.getProperties(first, "FirstErrorsAlarm");
+        var secondAlarm = LambdaFunctionResourceTest.getProperties(second, "SecondErrorsAlarm");
+        Assertions.assertNotSame(
+            firstAlarm,
+            secondAlarm,
+            "LambdaFunctionResource.buildDefinitions() should create separate alarm properties for each function."
+        );
+        Assertions.assertSame(
+            firstAlarm.get("Namespace"),
+            secondAlarm.get("Namespace"),
+            "LambdaFunctionResource.buildDefinitions() should share static alarm settings between functions."
+        );
+        Assertions.assertSame(
+            firstAlarm.get("TreatMissingData"),
+            secondAlarm.get("TreatMissingData"),
+            "LambdaFunctionResource.buildDefinitions() should share static alarm settings between functions."
+        );
+
+        Assertions.assertSame(
+            LambdaFunctionResourceTest.getProperties(first, "FirstMemoryMetricFilter").get("FilterPattern"),
+            LambdaFunctionResourceTest.getProperties(second, "SecondMemoryMetricFilter").get("FilterPattern"),
+            "LambdaFunctionResource.buildDefinitions() should share memory filter pattern between functions."
+        );
+    }
+
+    private static Map<String, Object> getProperties(Map<String, Object> definitions, String logicalId) {
+        return TemplateUtils.asMap(TemplateUtils.asMap(definitions.get(logicalId)).get("Properties"));
+    }
 }
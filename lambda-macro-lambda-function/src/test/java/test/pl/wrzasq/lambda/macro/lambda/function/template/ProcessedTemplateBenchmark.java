@@ -0,0 +1,105 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.macro.lambda.function.template;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.wrzasq.lambda.macro.lambda.function.template.DefinitionsCache;
+import pl.wrzasq.lambda.macro.lambda.function.template.ProcessedTemplate;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ProcessedTemplateBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Param({"400", "2000"})
+    private int resourcesCount;
+
+    // warm container receiving the same template again vs. no memoization at all
+    @Param({"true", "false"})
+    private boolean cached;
+
+    private DefinitionsCache cache;
+
+    private byte[] json;
+
+    private Map<String, Object> template;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.cache = new DefinitionsCache(this.cached ? this.resourcesCount : 0);
+
+        // synthetic stack - every fourth resource is a virtual function, others depend on the preceding ones
+        var resources = new HashMap<String, Object>();
+        for (var i = 0; i < this.resourcesCount; ++i) {
+            var properties = new HashMap<String, Object>();
+            var resource = new HashMap<String, Object>();
+            if (i % 4 == 0) {
+                properties.put("Runtime", "java11");
+                properties.put("Handler", "pl.wrzasq.Handler::handle");
+                properties.put("MemorySize", 256);
+                properties.put("Code", Map.of("S3Bucket", "bucket", "S3Key", String.format("lambda-%d.jar", i)));
+                properties.put("Environment", Map.of("Variables", Map.of("INDEX", String.valueOf(i))));
+                resource.put("Type", "WrzasqPl::Lambda::Function");
+            } else {
+                properties.put("BucketName", String.format("bucket-%d", i));
+                properties.put("Tags", List.of(Map.of("Key", "Index", "Value", String.valueOf(i))));
+                resource.put("Type", "AWS::S3::Bucket");
+
+                var dependsOn = new ArrayList<String>();
+                for (var j = Math.max(0, i - 3); j < i; ++j) {
+                    dependsOn.add(String.format("Resource%d", j));
+                }
+                resource.put("DependsOn", dependsOn);
+            }
+            resource.put("Properties", properties);
+            resources.put(String.format("Resource%d", i), resource);
+        }
+
+        this.json = this.objectMapper.writeValueAsBytes(
+            Map.of(
+                "AWSTemplateFormatVersion", "2010-09-09",
+                "Resources", resources
+            )
+        );
+    }
+
+    @Setup(Level.Invocation)
+    public void parseTemplate() throws IOException {
+        // processing consumes input structure, so each invocation needs a fresh copy
+        this.template = this.objectMapper.readValue(this.json, new TypeReference<Map<String, Object>>() {});
+    }
+
+    @Benchmark
+    public Map<String, Object> processTemplate() {
+        return new ProcessedTemplate(this.template, this.cache).getTemplate();
+    }
+}
@@ -2,18 +2,23 @@
  * This file is part of the pl.wrzasq.lambda.
  *
  * @license http://mit-license.org/ The MIT license
- * @copyright 2019 © by Rafał Wrzeszcz - Wrzasq.pl.
+ * @copyright 2019 - 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
  */
 
 package test.pl.wrzasq.lambda.macro.lambda.function.template;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import pl.wrzasq.commons.aws.cloudformation.macro.TemplateUtils;
+import pl.wrzasq.lambda.macro.lambda.function.template.DefinitionsCache;
 import pl.wrzasq.lambda.macro.lambda.function.template.ProcessedTemplate;
 
 public class ProcessedTemplateTest {
@@ -36,4 +41,77 @@ public class ProcessedTemplateTest {
             "ProcessedTemplate should handle WrzasqPl::Lambda::Function resources."
         );
     }
+
+    @Test
+    public void processTemplateUntouched() {
+        var bucket = new HashMap<String, Object>();
+        bucket.put("Type", "AWS::S3::Bucket");
+        var policy = new HashMap<String, Object>();
+        policy.put("Type", "AWS::S3::BucketPolicy");
+        policy.put("DependsOn", List.of("Bucket", "Function"));
+        var function = new HashMap<String, Object>();
+        function.put("Type", "WrzasqPl::Lambda::Function");
+        function.put("Properties", new HashMap<>());
+
+        var resources = new LinkedHashMap<String, Object>();
+        resources.put("Bucket", bucket);
+        resources.put("Policy", policy);
+        resources.put("Function", function);
+        var input = new HashMap<String, Object>();
+        input.put("Resources", resources);
+
+        var output = TemplateUtils.asMap(new ProcessedTemplate(input).getTemplate().get("Resources"));
+
+        Assertions.assertSame(
+            bucket,
+            output.get("Bucket"),
+            "ProcessedTemplate should pass untouched resources without copying."
+        );
+        Assertions.assertEquals(
+            List.of("Bucket", "FunctionLogGroup"),
+            TemplateUtils.asMap(output.get("Policy")).get("DependsOn"),
+            "ProcessedTemplate should resolve dependencies on virtual resources defined later."
+        );
+        Assertions.assertEquals(
+            List.of("Bucket", "Function"),
+            policy.get("DependsOn"),
+            "ProcessedTemplate should not modify input resources."
+        );
+    }
+
+    @Test
+    public void processTemplateCached() throws IOException {
+        var cache = new DefinitionsCache(10);
+
+        var first = TemplateUtils.asMap(
+            new ProcessedTemplate(this.readInput(), cache).getTemplate().get("Resources")
+        );
+        var cached = cache.size();
+        var second = TemplateUtils.asMap(
+            new ProcessedTemplate(this.readInput(), cache).getTemplate().get("Resources")
+        );
+
+        Assertions.assertEquals(
+            first,
+            second,
+            "ProcessedTemplate should produce same output for repeated template."
+        );
+        Assertions.assertEquals(
+            cached,
+            cache.size(),
+            "ProcessedTemplate should reuse expanded resources for repeated template."
+        );
+        Assertions.assertNotSame(
+            first.get("EnhancedDefaultLambda"),
+            second.get("EnhancedDefaultLambda"),
+            "ProcessedTemplate should not share expanded resources between templates."
+        );
+    }
+
+    private Map<String, Object> readInput() throws IOException {
+        return this.objectMapper.readValue(
+            this.getClass().getResourceAsStream("/input.json"),
+            new TypeReference<Map<String, Object>>() {}
+        );
+    }
 }
@@ -2,7 +2,7 @@
  * This file is part of the pl.wrzasq.lambda.
  *
  * @license http://mit-license.org/ The MIT license
- * @copyright 2020 © by Rafał Wrzeszcz - Wrzasq.pl.
+ * @copyright 2020 - 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
  */
 
 package pl.wrzasq.lambda.macro.pipeline.project.template;
@@ -189,7 +189,17 @@ public class PipelineProjectResource {
      * @return LogGroup logical ID.
      */
     public String getLogGroupLogicalId() {
-        return String.format("%sLogGroup", this.logicalId);
+        return PipelineProjectResource.buildLogGroupLogicalId(this.logicalId);
+    }
+
+    /**
+     * Builds logical ID of LogGroup resource for given project.
+     *
+     * @param logicalId Project resource logical ID.
+     * @return LogGroup logical ID.
+     */
+    public static String buildLogGroupLogicalId(String logicalId) {
+        return logicalId + "LogGroup";
     }
 
     /**
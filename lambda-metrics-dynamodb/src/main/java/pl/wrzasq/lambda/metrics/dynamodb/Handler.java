@@ -7,20 +7,64 @@
 
 package pl.wrzasq.lambda.metrics.dynamodb;
 
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 import com.amazonaws.services.cloudwatch.AmazonCloudWatchClientBuilder;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClientBuilder;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import pl.wrzasq.commons.json.ObjectMapperFactory;
+import pl.wrzasq.lambda.metrics.dynamodb.model.BatchItemFailure;
+import pl.wrzasq.lambda.metrics.dynamodb.model.BatchResponse;
+import pl.wrzasq.lambda.metrics.dynamodb.model.PublishedMetric;
+import pl.wrzasq.lambda.metrics.dynamodb.model.QueuedMessage;
 import pl.wrzasq.lambda.metrics.dynamodb.model.TableMetricRequest;
+import pl.wrzasq.lambda.metrics.dynamodb.model.TableSample;
+import pl.wrzasq.lambda.metrics.dynamodb.service.ApiCallRecorder;
+import pl.wrzasq.lambda.metrics.dynamodb.service.ChangeSuppressingMetricPublisher;
 import pl.wrzasq.lambda.metrics.dynamodb.service.CloudWatchDynamoDbMetricGenerator;
+import pl.wrzasq.lambda.metrics.dynamodb.service.CloudWatchMetricPublisher;
+import pl.wrzasq.lambda.metrics.dynamodb.service.CompositeMetricPublisher;
+import pl.wrzasq.lambda.metrics.dynamodb.service.DynamoDbClientProvider;
+import pl.wrzasq.lambda.metrics.dynamodb.service.EmfMetricPublisher;
+import pl.wrzasq.lambda.metrics.dynamodb.service.FileMetricPublisher;
+import pl.wrzasq.lambda.metrics.dynamodb.service.GrowthTracker;
+import pl.wrzasq.lambda.metrics.dynamodb.service.MetricPublisher;
+import pl.wrzasq.lambda.metrics.dynamodb.service.MetricSourceResolver;
+import pl.wrzasq.lambda.metrics.dynamodb.service.PrometheusMetricPublisher;
+import pl.wrzasq.lambda.metrics.dynamodb.service.RateLimiter;
+import pl.wrzasq.lambda.metrics.dynamodb.service.RequestReader;
+import pl.wrzasq.lambda.metrics.dynamodb.service.S3StateStore;
+import pl.wrzasq.lambda.metrics.dynamodb.service.TableSelector;
 
 /**
- * CloudWatch Events request handler.
+ * Metrics request handler.
+ *
+ * <p>
+ *     Accepts direct requests, EventBridge events (with request in <code>detail</code>) and SQS batches - each message
+ *     of the batch is processed separately and failed ones are reported back to the queue.
+ * </p>
  *
  * <p>Required environment variables:</p>
  *
@@ -29,6 +73,40 @@ import pl.wrzasq.lambda.metrics.dynamodb.service.CloudWatchDynamoDbMetricGenerat
  *     <dd>Namespace to use for CloudWatch metrics.</dd>
  * </dl>
  *
+ * <p>Optional environment variables:</p>
+ *
+ * <dl>
+ *     <dt><code>METRICS_FORMAT</code></dt>
+ *     <dd>Comma-separated metrics outputs: <code>cloudwatch</code> (default) for <code>PutMetricData</code> API
+ *     calls, <code>emf</code> for CloudWatch Embedded Metric Format logs, <code>prometheus</code> for Prometheus
+ *     Pushgateway or <code>file</code> for local JSON lines.</dd>
+ *     <dt><code>PUSHGATEWAY_URL</code></dt>
+ *     <dd>Prometheus Pushgateway base URL (required for <code>prometheus</code> output).</dd>
+ *     <dt><code>PUSHGATEWAY_JOB</code></dt>
+ *     <dd>Prometheus job name (defaults to <code>lambda-metrics-dynamodb</code>).</dd>
+ *     <dt><code>METRICS_FILE</code></dt>
+ *     <dd>File to which <code>file</code> output appends metrics (standard output by default).</dd>
+ *     <dt><code>DESCRIBE_CONCURRENCY</code></dt>
+ *     <dd>Maximum number of tables described in parallel (defaults to 4).</dd>
+ *     <dt><code>DESCRIBE_RATE</code></dt>
+ *     <dd>Maximum number of <code>DescribeTable</code> calls per second (defaults to 10).</dd>
+ *     <dt><code>HEARTBEAT_INTERVAL</code></dt>
+ *     <dd>ISO-8601 duration after which unchanged values are published again - when set, unchanged values are
+ *     skipped until then.</dd>
+ *     <dt><code>GROWTH_SAMPLES</code></dt>
+ *     <dd>Number of samples kept per table for growth metrics - when set, derived growth metrics are published.</dd>
+ *     <dt><code>GROWTH_INTERVAL</code></dt>
+ *     <dd>ISO-8601 duration of minimum interval between samples of unchanged table (defaults to 6 hours).</dd>
+ *     <dt><code>SIZE_THRESHOLD</code></dt>
+ *     <dd>Table size (in bytes) for which time of reaching is projected.</dd>
+ *     <dt><code>SELF_METRICS</code></dt>
+ *     <dd><code>true</code> to publish latency, retries and throttles of AWS API calls made by the handler.</dd>
+ *     <dt><code>STATE_BUCKET</code></dt>
+ *     <dd>S3 bucket for state persisted between invocations.</dd>
+ *     <dt><code>STATE_PREFIX</code></dt>
+ *     <dd>Key prefix for state objects (empty by default).</dd>
+ * </dl>
+ *
  * <p>Recommended memory: 256MB.</p>
  */
 @AllArgsConstructor
@@ -38,11 +116,103 @@ public class Handler {
      */
     private static final String METRICS_NAMESPACE = System.getenv("METRICS_NAMESPACE");
 
+    /**
+     * Metrics output format.
+     */
+    private static final String METRICS_FORMAT = Objects.requireNonNullElse(
+        System.getenv("METRICS_FORMAT"),
+        "cloudwatch"
+    );
+
+    /**
+     * Prometheus Pushgateway URL.
+     */
+    private static final String PUSHGATEWAY_URL = System.getenv("PUSHGATEWAY_URL");
+
+    /**
+     * Prometheus job name.
+     */
+    private static final String PUSHGATEWAY_JOB = Objects.requireNonNullElse(
+        System.getenv("PUSHGATEWAY_JOB"),
+        "lambda-metrics-dynamodb"
+    );
+
+    /**
+     * Local metrics file.
+     */
+    private static final String METRICS_FILE = System.getenv("METRICS_FILE");
+
+    /**
+     * Maximum number of tables described in parallel.
+     */
+    private static final int DESCRIBE_CONCURRENCY = Integer.parseInt(
+        Objects.requireNonNullElse(System.getenv("DESCRIBE_CONCURRENCY"), "4")
+    );
+
+    /**
+     * Maximum rate of DescribeTable calls.
+     */
+    private static final double DESCRIBE_RATE = Double.parseDouble(
+        Objects.requireNonNullElse(System.getenv("DESCRIBE_RATE"), "10")
+    );
+
+    /**
+     * Interval of publishing unchanged values.
+     */
+    private static final String HEARTBEAT_INTERVAL = System.getenv("HEARTBEAT_INTERVAL");
+
+    /**
+     * Number of growth samples per table.
+     */
+    private static final String GROWTH_SAMPLES = System.getenv("GROWTH_SAMPLES");
+
+    /**
+     * Minimum interval between growth samples.
+     */
+    private static final Duration GROWTH_INTERVAL = Duration.parse(
+        Objects.requireNonNullElse(System.getenv("GROWTH_INTERVAL"), "PT6H")
+    );
+
+    /**
+     * Size threshold for growth projection.
+     */
+    private static final String SIZE_THRESHOLD = System.getenv("SIZE_THRESHOLD");
+
+    /**
+     * Whether to publish AWS calls instrumentation metrics.
+     */
+    private static final boolean SELF_METRICS = Boolean.parseBoolean(System.getenv("SELF_METRICS"));
+
+    /**
+     * State bucket.
+     */
+    private static final String STATE_BUCKET = System.getenv("STATE_BUCKET");
+
+    /**
+     * State objects key prefix.
+     */
+    private static final String STATE_PREFIX = Objects.requireNonNullElse(System.getenv("STATE_PREFIX"), "");
+
+    /**
+     * Logger.
+     */
+    private static Logger logger = LoggerFactory.getLogger(Handler.class);
+
     /**
      * JSON handler.
      */
     private ObjectMapper objectMapper;
 
+    /**
+     * Invocation payload reader.
+     */
+    private RequestReader requestReader;
+
+    /**
+     * Subject tables resolver.
+     */
+    private MetricSourceResolver sourceResolver;
+
     /**
      * DynamoDB metrics generator.
      */
@@ -52,12 +222,74 @@ public class Handler {
      * Default constructor.
      */
     public Handler() {
+        this(ObjectMapperFactory.createObjectMapper(), Handler.SELF_METRICS ? new ApiCallRecorder() : null);
+    }
+
+    /**
+     * Initializes handler with given instrumentation.
+     *
+     * @param objectMapper JSON handler.
+     * @param apiCallRecorder AWS calls instrumentation (may be null).
+     */
+    private Handler(ObjectMapper objectMapper, ApiCallRecorder apiCallRecorder) {
         this(
-            ObjectMapperFactory.createObjectMapper(),
+            objectMapper,
+            apiCallRecorder,
+            AmazonDynamoDBClientBuilder.standard()
+                .withMetricsCollector(apiCallRecorder)
+                .build()
+        );
+    }
+
+    /**
+     * Initializes handler with given dependencies.
+     *
+     * @param objectMapper JSON handler.
+     * @param apiCallRecorder AWS calls instrumentation (may be null).
+     * @param dynamoDb DynamoDB client.
+     */
+    private Handler(ObjectMapper objectMapper, ApiCallRecorder apiCallRecorder, AmazonDynamoDB dynamoDb) {
+        this(
+            objectMapper,
+            apiCallRecorder,
+            dynamoDb,
+            Handler.createPublisher(objectMapper, Handler.METRICS_FORMAT, apiCallRecorder)
+        );
+    }
+
+    /**
+     * Initializes handler with given metrics output.
+     *
+     * @param objectMapper JSON handler.
+     * @param apiCallRecorder AWS calls instrumentation (may be null).
+     * @param dynamoDb DynamoDB client.
+     * @param publisher Metrics output.
+     */
+    private Handler(
+        ObjectMapper objectMapper,
+        ApiCallRecorder apiCallRecorder,
+        AmazonDynamoDB dynamoDb,
+        MetricPublisher publisher
+    ) {
+        this(
+            objectMapper,
+            new RequestReader(objectMapper),
+            new MetricSourceResolver(
+                new DynamoDbClientProvider(
+                    dynamoDb,
+                    AWSSecurityTokenServiceClientBuilder.defaultClient(),
+                    apiCallRecorder
+                ),
+                new TableSelector()
+            ),
             new CloudWatchDynamoDbMetricGenerator(
-                AmazonDynamoDBClientBuilder.standard().build(),
-                AmazonCloudWatchClientBuilder.standard().build(),
-                Handler.METRICS_NAMESPACE
+                dynamoDb,
+                Handler.suppressUnchanged(objectMapper, publisher),
+                Handler.DESCRIBE_CONCURRENCY,
+                new RateLimiter(Handler.DESCRIBE_RATE),
+                Handler.createGrowthTracker(objectMapper),
+                apiCallRecorder,
+                publisher
             )
         );
     }
@@ -71,9 +303,190 @@ public class Handler {
      */
     public void handle(InputStream inputStream, OutputStream outputStream) throws IOException {
         try (outputStream) {
-            var request = this.objectMapper.readValue(inputStream, TableMetricRequest.class);
+            var payload = this.requestReader.read(inputStream);
+
+            if (payload.getMessages() == null) {
+                this.generateMetrics(payload.getRequest());
+            } else {
+                this.objectMapper.writeValue(outputStream, this.processBatch(payload.getMessages()));
+            }
+        }
+    }
 
-            this.metricGenerator.generateMetrics(request.getTableName());
+    /**
+     * Processes SQS batch.
+     *
+     * @param messages Queued messages.
+     * @return Partial batch failure response.
+     */
+    private BatchResponse processBatch(List<QueuedMessage> messages) {
+        var response = new BatchResponse();
+        for (var message : messages) {
+            try {
+                this.generateMetrics(this.requestReader.readRequest(message.getBody()));
+            } catch (IOException | RuntimeException error) {
+                Handler.logger.error("Failed to process message {}.", message.getMessageId(), error);
+                response.getBatchItemFailures().add(new BatchItemFailure(message.getMessageId()));
+            }
         }
+        return response;
+    }
+
+    /**
+     * Generates metrics for single request.
+     *
+     * @param request Metrics request.
+     */
+    private void generateMetrics(TableMetricRequest request) {
+        this.metricGenerator.generateMetricsFor(this.sourceResolver.resolve(request));
+    }
+
+    /**
+     * Creates metrics publisher for given output formats.
+     *
+     * @param objectMapper JSON handler.
+     * @param formats Comma-separated output formats.
+     * @param apiCallRecorder AWS calls instrumentation (may be null).
+     * @return Metrics publisher.
+     */
+    private static MetricPublisher createPublisher(
+        ObjectMapper objectMapper,
+        String formats,
+        ApiCallRecorder apiCallRecorder
+    ) {
+        var publishers = Arrays.stream(formats.split(","))
+            .map(String::trim)
+            .map(format -> Handler.createOutput(objectMapper, format, apiCallRecorder))
+            .collect(Collectors.toList());
+        return publishers.size() == 1 ? publishers.get(0) : new CompositeMetricPublisher(publishers);
+    }
+
+    /**
+     * Creates single metrics output.
+     *
+     * @param objectMapper JSON handler.
+     * @param format Output format.
+     * @param apiCallRecorder AWS calls instrumentation (may be null).
+     * @return Metrics publisher.
+     */
+    private static MetricPublisher createOutput(
+        ObjectMapper objectMapper,
+        String format,
+        ApiCallRecorder apiCallRecorder
+    ) {
+        switch (format) {
+            case "cloudwatch":
+                return new CloudWatchMetricPublisher(
+                    AmazonCloudWatchClientBuilder.standard()
+                        .withMetricsCollector(apiCallRecorder)
+                        .build(),
+                    Handler.METRICS_NAMESPACE
+                );
+            case "emf":
+                return new EmfMetricPublisher(objectMapper, System.out, Handler.METRICS_NAMESPACE, Clock.systemUTC());
+            case "prometheus":
+                return new PrometheusMetricPublisher(
+                    HttpClient.newHttpClient(),
+                    Objects.requireNonNull(Handler.PUSHGATEWAY_URL, "PUSHGATEWAY_URL is required for Prometheus."),
+                    Handler.PUSHGATEWAY_JOB,
+                    Handler.METRICS_NAMESPACE
+                );
+            case "file":
+                return new FileMetricPublisher(objectMapper, Handler.openMetricsFile(), Clock.systemUTC());
+            default:
+                throw new IllegalArgumentException(String.format("Unsupported metrics format: %s.", format));
+        }
+    }
+
+    /**
+     * Opens local metrics output.
+     *
+     * @return Output stream.
+     */
+    private static PrintStream openMetricsFile() {
+        if (Handler.METRICS_FILE == null) {
+            return System.out;
+        }
+
+        try {
+            return new PrintStream(new FileOutputStream(Handler.METRICS_FILE, true), false, StandardCharsets.UTF_8);
+        } catch (FileNotFoundException error) {
+            throw new UncheckedIOException(error);
+        }
+    }
+
+    /**
+     * Sets up skipping of unchanged values, if configured.
+     *
+     * @param objectMapper JSON handler.
+     * @param publisher Metrics output.
+     * @return Metrics publisher.
+     */
+    private static MetricPublisher suppressUnchanged(ObjectMapper objectMapper, MetricPublisher publisher) {
+        if (Handler.HEARTBEAT_INTERVAL == null) {
+            return publisher;
+        }
+
+        return new ChangeSuppressingMetricPublisher(
+            publisher,
+            Handler.createStateStore(
+                objectMapper,
+                "published.json",
+                new TypeReference<Map<String, PublishedMetric>>() {
+                }
+            ),
+            Duration.parse(Handler.HEARTBEAT_INTERVAL),
+            Clock.systemUTC()
+        );
+    }
+
+    /**
+     * Creates table growth tracker, if configured.
+     *
+     * @param objectMapper JSON handler.
+     * @return Growth tracker (null if growth metrics are disabled).
+     */
+    private static GrowthTracker createGrowthTracker(ObjectMapper objectMapper) {
+        if (Handler.GROWTH_SAMPLES == null) {
+            return null;
+        }
+
+        return new GrowthTracker(
+            Handler.createStateStore(
+                objectMapper,
+                "samples.json",
+                new TypeReference<Map<String, List<TableSample>>>() {
+                }
+            ),
+            Integer.parseInt(Handler.GROWTH_SAMPLES),
+            Handler.GROWTH_INTERVAL,
+            Handler.SIZE_THRESHOLD == null ? null : Long.valueOf(Handler.SIZE_THRESHOLD),
+            Clock.systemUTC()
+        );
+    }
+
+    /**
+     * Creates persistent state storage, if configured.
+     *
+     * @param objectMapper JSON handler.
+     * @param name State object name.
+     * @param type State type.
+     * @param <T> State type.
+     * @return State storage (null if no bucket is configured).
+     */
+    private static <T> S3StateStore<T> createStateStore(
+        ObjectMapper objectMapper,
+        String name,
+        TypeReference<T> type
+    ) {
+        return Handler.STATE_BUCKET == null
+            ? null
+            : new S3StateStore<>(
+                AmazonS3ClientBuilder.defaultClient(),
+                objectMapper,
+                Handler.STATE_BUCKET,
+                Handler.STATE_PREFIX + name,
+                type
+            );
     }
 }
@@ -0,0 +1,21 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.model;
+
+import lombok.Data;
+
+/**
+ * Failed SQS message reference.
+ */
+@Data
+public class BatchItemFailure {
+    /**
+     * Message ID.
+     */
+    private final String itemIdentifier;
+}
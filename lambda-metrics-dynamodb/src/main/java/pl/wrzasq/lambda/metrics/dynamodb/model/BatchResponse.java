@@ -0,0 +1,29 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * SQS batch partial failure response.
+ *
+ * <p>
+ *     Only listed messages are returned to the queue - requires <code>ReportBatchItemFailures</code> response type
+ *     in event source mapping.
+ * </p>
+ */
+@Data
+public class BatchResponse {
+    /**
+     * Failed messages.
+     */
+    private List<BatchItemFailure> batchItemFailures = new ArrayList<>();
+}
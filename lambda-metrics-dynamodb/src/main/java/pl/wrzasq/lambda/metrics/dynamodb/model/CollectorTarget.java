@@ -0,0 +1,29 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Account from which metrics are collected.
+ */
+@Data
+public class CollectorTarget {
+    /**
+     * Role to assume in target account.
+     */
+    private String roleArn;
+
+    /**
+     * Regions to collect metrics from (current region if empty).
+     */
+    private List<String> regions = new ArrayList<>();
+}
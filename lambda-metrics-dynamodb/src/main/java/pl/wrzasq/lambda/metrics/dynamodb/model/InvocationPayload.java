@@ -0,0 +1,28 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.model;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Invocation input extracted from event envelope.
+ */
+@Data
+public class InvocationPayload {
+    /**
+     * Direct or EventBridge event request.
+     */
+    private final TableMetricRequest request;
+
+    /**
+     * SQS batch messages (null if invocation is not an SQS batch).
+     */
+    private final List<QueuedMessage> messages;
+}
@@ -0,0 +1,36 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.model;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import lombok.Data;
+
+/**
+ * Set of tables accessible with single client.
+ */
+@Data
+public class MetricSource {
+    /**
+     * DynamoDB client for the tables location.
+     */
+    private final AmazonDynamoDB dynamoDb;
+
+    /**
+     * Table names.
+     */
+    private final Collection<String> tableNames;
+
+    /**
+     * Dimensions identifying the location (added to each table metric).
+     */
+    private final List<Dimension> dimensions;
+}
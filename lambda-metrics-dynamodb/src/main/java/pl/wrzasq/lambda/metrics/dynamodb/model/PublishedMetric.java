@@ -0,0 +1,30 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Last published metric value.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PublishedMetric {
+    /**
+     * Metric value.
+     */
+    private double value;
+
+    /**
+     * Publishing time (epoch milliseconds).
+     */
+    private long timestamp;
+}
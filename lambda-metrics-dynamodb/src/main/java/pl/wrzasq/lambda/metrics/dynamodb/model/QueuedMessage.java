@@ -0,0 +1,26 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.model;
+
+import lombok.Data;
+
+/**
+ * Single SQS message from the batch.
+ */
+@Data
+public class QueuedMessage {
+    /**
+     * Message ID.
+     */
+    private final String messageId;
+
+    /**
+     * Raw message body.
+     */
+    private final String body;
+}
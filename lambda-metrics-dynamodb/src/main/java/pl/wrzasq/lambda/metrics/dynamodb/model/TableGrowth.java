@@ -0,0 +1,31 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.model;
+
+import lombok.Data;
+
+/**
+ * Table growth statistics.
+ */
+@Data
+public class TableGrowth {
+    /**
+     * Items growth rate (null if there is not enough samples).
+     */
+    private Double itemsPerHour;
+
+    /**
+     * Size growth rate (null if there is not enough samples).
+     */
+    private Double bytesPerHour;
+
+    /**
+     * Projected number of days until table reaches size threshold (null if it's not growing or no threshold is set).
+     */
+    private Double daysUntilThreshold;
+}
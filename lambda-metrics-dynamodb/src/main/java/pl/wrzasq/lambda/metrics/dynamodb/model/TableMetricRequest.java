@@ -7,10 +7,17 @@
 
 package pl.wrzasq.lambda.metrics.dynamodb.model;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import lombok.Data;
 
 /**
  * Request specifying subject table.
+ *
+ * <p>
+ *     All the selectors are combined - metrics are generated for each table matching any of them.
+ * </p>
  */
 @Data
 public class TableMetricRequest {
@@ -18,4 +25,29 @@ public class TableMetricRequest {
      * DynamoDb table name.
      */
     private String tableName;
+
+    /**
+     * Multiple DynamoDB table names.
+     */
+    private List<String> tableNames = new ArrayList<>();
+
+    /**
+     * Prefix of table names.
+     */
+    private String tablePrefix;
+
+    /**
+     * Regular expression that table names must match.
+     */
+    private String tablePattern;
+
+    /**
+     * Whether to generate metrics for all tables in the region.
+     */
+    private boolean allTables;
+
+    /**
+     * Accounts and regions to collect metrics from (current location if empty).
+     */
+    private List<CollectorTarget> targets = new ArrayList<>();
 }
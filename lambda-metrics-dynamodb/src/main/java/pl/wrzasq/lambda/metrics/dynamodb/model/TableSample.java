@@ -0,0 +1,35 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single table size sample.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TableSample {
+    /**
+     * Sampling time (epoch milliseconds).
+     */
+    private long timestamp;
+
+    /**
+     * Number of items.
+     */
+    private long itemCount;
+
+    /**
+     * Table size in bytes.
+     */
+    private long sizeBytes;
+}
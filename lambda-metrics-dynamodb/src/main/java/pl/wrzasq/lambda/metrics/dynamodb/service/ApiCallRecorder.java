@@ -0,0 +1,156 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+import com.amazonaws.util.AWSRequestMetrics;
+
+/**
+ * AWS SDK calls instrumentation.
+ *
+ * <p>
+ *     Set as metrics collector of the AWS clients, records latency, retries and throttles of each API operation. Stats
+ *     are published as metrics with <code>Operation</code> dimension and reset - calls made while flushing metrics
+ *     (like <code>PutMetricData</code>) are therefore reported with the next run.
+ * </p>
+ */
+public class ApiCallRecorder extends RequestMetricCollector {
+    /**
+     * Published latency percentiles.
+     */
+    private static final Map<String, Double> PERCENTILES = Map.of(
+        "ApiLatencyP50", 0.5,
+        "ApiLatencyP90", 0.9,
+        "ApiLatencyP99", 0.99
+    );
+
+    /**
+     * Stats by operation name.
+     */
+    private Map<String, ApiCallStats> operations = new TreeMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void collectMetrics(Request<?> request, Response<?> response) {
+        var timing = request.getAWSRequestMetrics().getTimingInfo();
+        var execution = timing.getSubMeasurement(AWSRequestMetrics.Field.ClientExecuteTime.name());
+        var latency = execution == null ? timing.getTimeTakenMillisIfKnown() : execution.getTimeTakenMillisIfKnown();
+        // incomplete timing would distort latency stats
+        if (latency == null) {
+            return;
+        }
+
+        var attempts = timing.getCounter(AWSRequestMetrics.Field.RequestCount.name());
+        var throttles = timing.getCounter(AWSRequestMetrics.Field.ThrottleException.name());
+
+        this.record(
+            ApiCallRecorder.resolveOperationName(request),
+            latency,
+            attempts == null ? 0 : Math.max(0, attempts.longValue() - 1),
+            throttles == null ? 0 : throttles.longValue()
+        );
+    }
+
+    /**
+     * Records single call.
+     *
+     * @param operation Operation name.
+     * @param latency Call latency (in milliseconds).
+     * @param retries Number of retried attempts.
+     * @param throttles Number of throttled attempts.
+     */
+    public void record(String operation, double latency, long retries, long throttles) {
+        // recording under the same lock as swapping in publish(), so no call is added to already published stats
+        synchronized (this) {
+            this.operations.computeIfAbsent(operation, key -> new ApiCallStats())
+                .record(latency, retries, throttles);
+        }
+    }
+
+    /**
+     * Schedules all recorded stats for publishing and starts new recording.
+     *
+     * @param publisher Metrics publisher.
+     */
+    public void publish(MetricPublisher publisher) {
+        Map<String, ApiCallStats> operations;
+        synchronized (this) {
+            operations = this.operations;
+            this.operations = new TreeMap<>();
+        }
+
+        for (var entry : operations.entrySet()) {
+            var dimension = new Dimension()
+                .withName("Operation")
+                .withValue(entry.getKey());
+            var stats = entry.getValue();
+
+            publisher.add(ApiCallRecorder.buildDatum(dimension, "ApiCalls", stats.getCount(), StandardUnit.Count));
+            for (var percentile : ApiCallRecorder.PERCENTILES.entrySet()) {
+                publisher.add(
+                    ApiCallRecorder.buildDatum(
+                        dimension,
+                        percentile.getKey(),
+                        stats.getPercentile(percentile.getValue()),
+                        StandardUnit.Milliseconds
+                    )
+                );
+            }
+            publisher.add(
+                ApiCallRecorder.buildDatum(dimension, "ApiLatencyMax", stats.getMax(), StandardUnit.Milliseconds)
+            );
+            publisher.add(ApiCallRecorder.buildDatum(dimension, "ApiRetries", stats.getRetries(), StandardUnit.Count));
+            publisher.add(
+                ApiCallRecorder.buildDatum(dimension, "ApiThrottles", stats.getThrottles(), StandardUnit.Count)
+            );
+        }
+    }
+
+    /**
+     * Resolves API operation name.
+     *
+     * @param request SDK request.
+     * @return Operation name.
+     */
+    private static String resolveOperationName(Request<?> request) {
+        var operation = request.getHandlerContext(HandlerContextKey.OPERATION_NAME);
+        if (operation == null) {
+            // eg. DescribeTableRequest -> DescribeTable
+            operation = request.getOriginalRequest().getClass().getSimpleName().replaceFirst("Request$", "");
+        }
+        return operation;
+    }
+
+    /**
+     * Builds metric datum.
+     *
+     * @param dimension Operation dimension.
+     * @param name Metric name.
+     * @param value Metric value.
+     * @param unit Metric unit.
+     * @return Metric value.
+     */
+    private static MetricDatum buildDatum(Dimension dimension, String name, double value, StandardUnit unit) {
+        return new MetricDatum()
+            .withMetricName(name)
+            .withDimensions(dimension)
+            .withValue(value)
+            .withUnit(unit);
+    }
+}
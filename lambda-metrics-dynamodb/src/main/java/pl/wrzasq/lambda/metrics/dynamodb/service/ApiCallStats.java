@@ -0,0 +1,137 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+/**
+ * Statistics of single API operation calls.
+ *
+ * <p>
+ *     Latencies are counted in exponentially growing buckets, so percentiles are known within the bucket width (about
+ *     10% of the value) using constant memory, regardless of the number of calls.
+ * </p>
+ */
+public class ApiCallStats {
+    /**
+     * Ratio between consecutive bucket bounds.
+     */
+    private static final double BUCKET_GROWTH = 1.1;
+
+    /**
+     * Number of buckets (covers latencies up to about an hour - 1.1^159 ms).
+     */
+    private static final int BUCKETS_COUNT = 160;
+
+    /**
+     * Calls count per latency bucket.
+     */
+    private long[] buckets = new long[ApiCallStats.BUCKETS_COUNT];
+
+    /**
+     * Total number of calls.
+     */
+    private long count;
+
+    /**
+     * Highest recorded latency.
+     */
+    private double max;
+
+    /**
+     * Total number of retried attempts.
+     */
+    private long retries;
+
+    /**
+     * Total number of throttled attempts.
+     */
+    private long throttles;
+
+    /**
+     * Records single call.
+     *
+     * @param latency Call latency (in milliseconds).
+     * @param retries Number of retried attempts.
+     * @param throttles Number of throttled attempts.
+     */
+    public synchronized void record(double latency, long retries, long throttles) {
+        ++this.buckets[ApiCallStats.bucketOf(latency)];
+        ++this.count;
+        this.max = Math.max(this.max, latency);
+        this.retries += retries;
+        this.throttles += throttles;
+    }
+
+    /**
+     * Returns latency percentile.
+     *
+     * @param quantile Quantile (between 0 and 1).
+     * @return Upper bound of latency of given fraction of calls (in milliseconds).
+     */
+    public synchronized double getPercentile(double quantile) {
+        var threshold = Math.ceil(this.count * quantile);
+        var accumulated = 0L;
+        for (var i = 0; i < ApiCallStats.BUCKETS_COUNT; ++i) {
+            accumulated += this.buckets[i];
+            if (accumulated >= threshold && accumulated > 0) {
+                return Math.min(Math.pow(ApiCallStats.BUCKET_GROWTH, i), this.max);
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * Returns number of calls.
+     *
+     * @return Calls count.
+     */
+    public synchronized long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Returns highest latency.
+     *
+     * @return Maximum latency (in milliseconds).
+     */
+    public synchronized double getMax() {
+        return this.max;
+    }
+
+    /**
+     * Returns number of retries.
+     *
+     * @return Retried attempts count.
+     */
+    public synchronized long getRetries() {
+        return this.retries;
+    }
+
+    /**
+     * Returns number of throttled attempts.
+     *
+     * @return Throttles count.
+     */
+    public synchronized long getThrottles() {
+        return this.throttles;
+    }
+
+    /**
+     * Computes bucket of given latency.
+     *
+     * @param latency Latency (in milliseconds).
+     * @return Index of the bucket with upper bound not lower than latency.
+     */
+    private static int bucketOf(double latency) {
+        if (latency <= 1) {
+            return 0;
+        }
+
+        var bucket = (int) Math.ceil(Math.log(latency) / Math.log(ApiCallStats.BUCKET_GROWTH));
+        return Math.min(bucket, ApiCallStats.BUCKETS_COUNT - 1);
+    }
+}
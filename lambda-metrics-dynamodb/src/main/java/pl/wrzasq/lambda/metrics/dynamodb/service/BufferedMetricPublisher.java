@@ -0,0 +1,138 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base for metrics outputs that send buffered metrics in batches.
+ *
+ * <p>
+ *     Complete batches are sent as soon as enough metrics are collected, so the buffer doesn't grow with the number of
+ *     processed tables. Each batch is removed from the buffer once it is sent, so after a failure only the metrics that
+ *     were not published yet are sent again with the next flush. Only metrics left over after a failed flush are
+ *     limited - while the output is unavailable oldest of them are dropped to make room for new ones.
+ * </p>
+ */
+public abstract class BufferedMetricPublisher implements MetricPublisher {
+    /**
+     * Default number of metrics that triggers sending.
+     */
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * Maximum number of metrics kept after failed flush.
+     */
+    private static final int MAX_BUFFER_SIZE = 10000;
+
+    /**
+     * Logger.
+     */
+    private Logger logger = LoggerFactory.getLogger(BufferedMetricPublisher.class);
+
+    /**
+     * Metrics waiting for publishing.
+     */
+    private Deque<MetricDatum> buffer = new ArrayDeque<>();
+
+    /**
+     * Number of metrics that triggers sending.
+     */
+    private int batchSize;
+
+    /**
+     * Whether sending failed since last flush (no more attempts are made until the flush).
+     */
+    private boolean failed;
+
+    /**
+     * Initializes publisher with default batch size.
+     */
+    protected BufferedMetricPublisher() {
+        this(BufferedMetricPublisher.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Initializes publisher with given batch size.
+     *
+     * @param batchSize Number of metrics that triggers sending.
+     */
+    protected BufferedMetricPublisher(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void add(MetricDatum datum) {
+        this.buffer.addLast(datum);
+
+        if (!this.failed && this.buffer.size() >= this.batchSize) {
+            try {
+                this.send(false);
+            } catch (RuntimeException error) {
+                // metrics stay buffered, flush will retry them and report the failure
+                this.logger.warn("Sending metrics batch failed, deferring until flush.", error);
+                this.failed = true;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void flush() {
+        this.failed = false;
+        try {
+            this.send(true);
+        } finally {
+            var dropped = this.buffer.size() - BufferedMetricPublisher.MAX_BUFFER_SIZE;
+            if (dropped > 0) {
+                this.logger.warn("Dropping {} oldest unpublished metric(s).", dropped);
+                for (var i = 0; i < dropped; ++i) {
+                    this.buffer.pollFirst();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends buffered metrics.
+     *
+     * @param all Whether to send all metrics, or only complete batches.
+     */
+    private void send(boolean all) {
+        var metrics = new ArrayList<>(this.buffer);
+        var offset = 0;
+        while (offset < metrics.size() && (all || metrics.size() - offset >= this.batchSize)) {
+            var sent = this.publish(Collections.unmodifiableList(metrics.subList(offset, metrics.size())));
+            for (var i = 0; i < sent; ++i) {
+                this.buffer.pollFirst();
+            }
+            offset += sent;
+        }
+    }
+
+    /**
+     * Sends leading batch of metrics to the output.
+     *
+     * @param metrics Buffered metrics (never empty).
+     * @return Number of sent metrics from the beginning of the list (at least one).
+     */
+    protected abstract int publish(List<MetricDatum> metrics);
+}
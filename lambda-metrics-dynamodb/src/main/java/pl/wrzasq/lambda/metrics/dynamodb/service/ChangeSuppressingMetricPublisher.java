@@ -0,0 +1,147 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import pl.wrzasq.lambda.metrics.dynamodb.model.PublishedMetric;
+
+/**
+ * Publisher that skips unchanged metric values.
+ *
+ * <p>
+ *     DynamoDB refreshes table statistics only every few hours, so most of the values are the same as in previous
+ *     invocation. Unchanged value is published again only after heartbeat interval, changed values are published
+ *     immediately. Last published values are kept in memory (for warm containers) and optionally persisted.
+ * </p>
+ */
+public class ChangeSuppressingMetricPublisher implements MetricPublisher {
+    /**
+     * Actual output.
+     */
+    private MetricPublisher delegate;
+
+    /**
+     * Persistent state storage (may be null).
+     */
+    private S3StateStore<Map<String, PublishedMetric>> store;
+
+    /**
+     * Maximum interval between publishing unchanged value.
+     */
+    private Duration heartbeat;
+
+    /**
+     * Time source.
+     */
+    private Clock clock;
+
+    /**
+     * Last published values.
+     */
+    private Map<String, PublishedMetric> published;
+
+    /**
+     * Values scheduled for publishing since last flush.
+     */
+    private Map<String, PublishedMetric> pending = new HashMap<>();
+
+    /**
+     * Initializes object.
+     *
+     * @param delegate Actual output.
+     * @param store Persistent state storage (may be null).
+     * @param heartbeat Maximum interval between publishing unchanged value.
+     * @param clock Time source.
+     */
+    public ChangeSuppressingMetricPublisher(
+        MetricPublisher delegate,
+        S3StateStore<Map<String, PublishedMetric>> store,
+        Duration heartbeat,
+        Clock clock
+    ) {
+        this.delegate = delegate;
+        this.store = store;
+        this.heartbeat = heartbeat;
+        this.clock = clock;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void add(MetricDatum datum) {
+        var key = ChangeSuppressingMetricPublisher.buildKey(datum);
+        var previous = this.getPublished().get(key);
+        var now = this.clock.millis();
+
+        if (previous == null
+            || previous.getValue() != datum.getValue()
+            || now - previous.getTimestamp() >= this.heartbeat.toMillis()) {
+            this.delegate.add(datum);
+            this.pending.put(key, new PublishedMetric(datum.getValue(), now));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void flush() {
+        // values are recorded only once they are actually published
+        try {
+            this.delegate.flush();
+        } catch (RuntimeException error) {
+            // output may drop unpublished metrics, so they must not be recorded as published later
+            this.pending.clear();
+            throw error;
+        }
+
+        if (!this.pending.isEmpty()) {
+            this.getPublished().putAll(this.pending);
+            this.pending.clear();
+
+            if (this.store != null) {
+                this.store.save(this.published);
+            }
+        }
+    }
+
+    /**
+     * Returns last published values, loading them on first use.
+     *
+     * @return Last published values.
+     */
+    private Map<String, PublishedMetric> getPublished() {
+        if (this.published == null) {
+            this.published = this.store == null
+                ? new HashMap<>()
+                : this.store.load(HashMap::new);
+        }
+
+        return this.published;
+    }
+
+    /**
+     * Builds metric identifier.
+     *
+     * @param datum Metric value.
+     * @return Identifier of metric name and dimensions.
+     */
+    private static String buildKey(MetricDatum datum) {
+        return datum.getDimensions()
+            .stream()
+            .map(dimension -> dimension.getName() + "=" + dimension.getValue())
+            .collect(Collectors.joining(",", datum.getMetricName() + ":", ""));
+    }
+}
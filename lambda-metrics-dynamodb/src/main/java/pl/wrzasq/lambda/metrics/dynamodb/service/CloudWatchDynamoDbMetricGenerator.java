@@ -7,17 +7,34 @@
 
 package pl.wrzasq.lambda.metrics.dynamodb.service;
 
-import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
 import com.amazonaws.services.cloudwatch.model.Dimension;
 import com.amazonaws.services.cloudwatch.model.MetricDatum;
-import com.amazonaws.services.cloudwatch.model.PutMetricDataRequest;
 import com.amazonaws.services.cloudwatch.model.StandardUnit;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.BillingMode;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputDescription;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputOverride;
+import com.amazonaws.services.dynamodbv2.model.ReplicaStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import pl.wrzasq.lambda.metrics.dynamodb.model.MetricSource;
 
 /**
  * CloudWatch metrics handler.
+ *
+ * <p>
+ *     Replicas of global tables are reported only with status and capacity - DescribeTable result from the local region
+ *     doesn't contain item count nor size of the replicas, these can only be obtained by describing the table in each
+ *     replica's region.
+ * </p>
  */
 public class CloudWatchDynamoDbMetricGenerator {
     /**
@@ -31,26 +48,88 @@ public class CloudWatchDynamoDbMetricGenerator {
     private AmazonDynamoDB dynamoDb;
 
     /**
-     * AWS CloudWatch client.
+     * Metrics publisher.
+     */
+    private MetricPublisher publisher;
+
+    /**
+     * Maximum number of tables described in parallel.
+     */
+    private int concurrency;
+
+    /**
+     * DescribeTable calls rate limiter.
+     */
+    private RateLimiter rateLimiter;
+
+    /**
+     * Table growth tracker (may be null).
      */
-    private AmazonCloudWatch cloudWatch;
+    private GrowthTracker growthTracker;
 
     /**
-     * Metrics namespace to use.
+     * AWS calls instrumentation (may be null).
      */
-    private String namespace;
+    private ApiCallRecorder apiCallRecorder;
+
+    /**
+     * AWS calls self-metrics output.
+     */
+    private MetricPublisher apiCallPublisher;
 
     /**
      * Initializes object.
      *
      * @param dynamoDb DynamoDB client.
-     * @param cloudWatch CloudWatch client.
-     * @param namespace Metrics namespace.
+     * @param publisher Metrics publisher.
+     * @param concurrency Maximum number of tables described in parallel.
+     * @param rateLimiter DescribeTable calls rate limiter.
+     * @param growthTracker Table growth tracker (may be null to skip derived metrics).
+     * @param apiCallRecorder AWS calls instrumentation (may be null to skip self-metrics).
+     */
+    public CloudWatchDynamoDbMetricGenerator(
+        AmazonDynamoDB dynamoDb,
+        MetricPublisher publisher,
+        int concurrency,
+        RateLimiter rateLimiter,
+        GrowthTracker growthTracker,
+        ApiCallRecorder apiCallRecorder
+    ) {
+        this(dynamoDb, publisher, concurrency, rateLimiter, growthTracker, apiCallRecorder, publisher);
+    }
+
+    /**
+     * Initializes object with separate self-metrics output.
+     *
+     * <p>
+     *     Self-metrics describe single invocation, so they should bypass unchanged values suppression applied to table
+     *     metrics - the output passed here must be flushed together with the main publisher.
+     * </p>
+     *
+     * @param dynamoDb DynamoDB client.
+     * @param publisher Metrics publisher.
+     * @param concurrency Maximum number of tables described in parallel.
+     * @param rateLimiter DescribeTable calls rate limiter.
+     * @param growthTracker Table growth tracker (may be null to skip derived metrics).
+     * @param apiCallRecorder AWS calls instrumentation (may be null to skip self-metrics).
+     * @param apiCallPublisher AWS calls self-metrics output.
      */
-    public CloudWatchDynamoDbMetricGenerator(AmazonDynamoDB dynamoDb, AmazonCloudWatch cloudWatch, String namespace) {
+    public CloudWatchDynamoDbMetricGenerator(
+        AmazonDynamoDB dynamoDb,
+        MetricPublisher publisher,
+        int concurrency,
+        RateLimiter rateLimiter,
+        GrowthTracker growthTracker,
+        ApiCallRecorder apiCallRecorder,
+        MetricPublisher apiCallPublisher
+    ) {
         this.dynamoDb = dynamoDb;
-        this.cloudWatch = cloudWatch;
-        this.namespace = namespace;
+        this.publisher = publisher;
+        this.concurrency = concurrency;
+        this.rateLimiter = rateLimiter;
+        this.growthTracker = growthTracker;
+        this.apiCallRecorder = apiCallRecorder;
+        this.apiCallPublisher = apiCallPublisher;
     }
 
     /**
@@ -59,37 +138,278 @@ public class CloudWatchDynamoDbMetricGenerator {
      * @param tableName Table name.
      */
     public void generateMetrics(String tableName) {
-        this.logger.info("Generating metrics for table: {}.", tableName);
+        this.generateMetrics(List.of(tableName));
+    }
+
+    /**
+     * Multiple tables metrics generator.
+     *
+     * @param tableNames Table names.
+     */
+    public void generateMetrics(Collection<String> tableNames) {
+        this.generateMetricsFor(List.of(new MetricSource(this.dynamoDb, tableNames, List.of())));
+    }
+
+    /**
+     * Generates metrics for tables from multiple locations.
+     *
+     * <p>
+     *     Tables are described in parallel and all metrics are published together. Metrics of successfully described
+     *     tables are published even if some of the tables fail.
+     * </p>
+     *
+     * @param sources Tables locations.
+     */
+    public void generateMetricsFor(List<MetricSource> sources) {
+        var size = sources.stream().mapToInt(source -> source.getTableNames().size()).sum();
+        var executor = Executors.newFixedThreadPool(Math.max(1, Math.min(this.concurrency, size)));
+        try {
+            var futures = new ArrayList<Future<?>>();
+            for (var source : sources) {
+                for (var tableName : source.getTableNames()) {
+                    futures.add(executor.submit(() -> this.collectMetrics(source, tableName)));
+                }
+            }
+
+            var errors = new ArrayList<Throwable>();
+            for (var future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException error) {
+                    errors.add(error.getCause());
+                } catch (InterruptedException error) {
+                    Thread.currentThread().interrupt();
+                    errors.add(error);
+                }
+            }
+
+            if (this.apiCallRecorder != null) {
+                this.apiCallRecorder.publish(this.apiCallPublisher);
+            }
+            this.publisher.flush();
+            if (this.growthTracker != null) {
+                this.growthTracker.save();
+            }
+
+            if (!errors.isEmpty()) {
+                var error = new IllegalStateException(
+                    String.format("Generating metrics for %d table(s) failed.", errors.size()),
+                    errors.get(0)
+                );
+                errors.stream().skip(1).forEach(error::addSuppressed);
+                throw error;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Collects table metrics without publishing them.
+     *
+     * @param source Table location.
+     * @param tableName Table name.
+     * @return Nothing (callable to allow checked exceptions).
+     * @throws InterruptedException When thread is interrupted while waiting for rate limit.
+     */
+    private Void collectMetrics(MetricSource source, String tableName) throws InterruptedException {
+        this.logger.info("Generating metrics for table: {} {}.", tableName, source.getDimensions());
+
+        this.rateLimiter.acquire();
+
+        var table = source.getDynamoDb().describeTable(tableName).getTable();
+
+        var dimensions = new ArrayList<Dimension>();
+        dimensions.add(CloudWatchDynamoDbMetricGenerator.buildDimension("TableName", tableName));
+        dimensions.addAll(source.getDimensions());
+        var provisioned = table.getBillingModeSummary() == null
+            || BillingMode.PROVISIONED.toString().equals(table.getBillingModeSummary().getBillingMode());
+
+        this.addMetric(dimensions, "ItemCount", table.getItemCount(), StandardUnit.None);
+        this.addMetric(dimensions, "TableSizeBytes", table.getTableSizeBytes(), StandardUnit.Bytes);
+        this.addMetric(dimensions, "OnDemand", provisioned ? 0 : 1, StandardUnit.None);
+        if (this.growthTracker != null && table.getItemCount() != null && table.getTableSizeBytes() != null) {
+            this.addGrowthMetrics(dimensions, table.getItemCount(), table.getTableSizeBytes());
+        }
+        if (provisioned) {
+            this.addCapacityMetrics(dimensions, table.getProvisionedThroughput());
+        }
+
+        for (var index : CloudWatchDynamoDbMetricGenerator.list(table.getGlobalSecondaryIndexes())) {
+            var indexDimensions = CloudWatchDynamoDbMetricGenerator.extendDimensions(
+                dimensions,
+                "GlobalSecondaryIndexName",
+                index.getIndexName()
+            );
+            this.addMetric(indexDimensions, "ItemCount", index.getItemCount(), StandardUnit.None);
+            this.addMetric(indexDimensions, "IndexSizeBytes", index.getIndexSizeBytes(), StandardUnit.Bytes);
+            if (provisioned) {
+                this.addCapacityMetrics(indexDimensions, index.getProvisionedThroughput());
+            }
+        }
+
+        for (var index : CloudWatchDynamoDbMetricGenerator.list(table.getLocalSecondaryIndexes())) {
+            var indexDimensions = CloudWatchDynamoDbMetricGenerator.extendDimensions(
+                dimensions,
+                "LocalSecondaryIndexName",
+                index.getIndexName()
+            );
+            this.addMetric(indexDimensions, "ItemCount", index.getItemCount(), StandardUnit.None);
+            this.addMetric(indexDimensions, "IndexSizeBytes", index.getIndexSizeBytes(), StandardUnit.Bytes);
+        }
+
+        for (var replica : CloudWatchDynamoDbMetricGenerator.list(table.getReplicas())) {
+            var replicaDimensions = CloudWatchDynamoDbMetricGenerator.extendDimensions(
+                dimensions,
+                "ReplicaRegion",
+                replica.getRegionName()
+            );
+            this.addMetric(
+                replicaDimensions,
+                "ReplicaActive",
+                ReplicaStatus.ACTIVE.toString().equals(replica.getReplicaStatus()) ? 1 : 0,
+                StandardUnit.None
+            );
+            if (provisioned) {
+                this.addCapacityMetrics(
+                    replicaDimensions,
+                    CloudWatchDynamoDbMetricGenerator.resolveReplicaThroughput(
+                        table.getProvisionedThroughput(),
+                        replica.getProvisionedThroughputOverride()
+                    )
+                );
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Schedules derived growth metrics.
+     *
+     * @param dimensions Metric dimensions.
+     * @param itemCount Number of items.
+     * @param sizeBytes Table size.
+     */
+    private void addGrowthMetrics(List<Dimension> dimensions, long itemCount, long sizeBytes) {
+        // table name followed by location, if any
+        var tableId = dimensions.stream()
+            .map(Dimension::getValue)
+            .collect(Collectors.joining(":"));
+        var growth = this.growthTracker.track(tableId, itemCount, sizeBytes);
+
+        if (itemCount > 0) {
+            this.addMetric(dimensions, "AverageItemSize", (double) sizeBytes / itemCount, StandardUnit.Bytes);
+        }
+        this.addMetric(dimensions, "ItemsPerHour", growth.getItemsPerHour(), StandardUnit.None);
+        this.addMetric(dimensions, "BytesPerHour", growth.getBytesPerHour(), StandardUnit.None);
+        this.addMetric(dimensions, "DaysUntilSizeThreshold", growth.getDaysUntilThreshold(), StandardUnit.None);
+    }
+
+    /**
+     * Schedules provisioned capacity metrics.
+     *
+     * @param dimensions Metric dimensions.
+     * @param throughput Provisioned throughput.
+     */
+    private void addCapacityMetrics(List<Dimension> dimensions, ProvisionedThroughputDescription throughput) {
+        if (throughput != null) {
+            this.addMetric(
+                dimensions,
+                "ProvisionedReadCapacityUnits",
+                throughput.getReadCapacityUnits(),
+                StandardUnit.Count
+            );
+            this.addMetric(
+                dimensions,
+                "ProvisionedWriteCapacityUnits",
+                throughput.getWriteCapacityUnits(),
+                StandardUnit.Count
+            );
+        }
+    }
 
-        var table = this.dynamoDb.describeTable(tableName).getTable();
+    /**
+     * Resolves effective capacity of the replica.
+     *
+     * <p>
+     *     Replica may only override read capacity - write capacity is always shared with the table.
+     * </p>
+     *
+     * @param throughput Table provisioned throughput.
+     * @param override Replica throughput override.
+     * @return Replica throughput.
+     */
+    private static ProvisionedThroughputDescription resolveReplicaThroughput(
+        ProvisionedThroughputDescription throughput,
+        ProvisionedThroughputOverride override
+    ) {
+        var readCapacity = override == null ? null : override.getReadCapacityUnits();
+        if (throughput == null) {
+            return readCapacity == null ? null : new ProvisionedThroughputDescription()
+                .withReadCapacityUnits(readCapacity);
+        }
 
-        this.putSingleMetric(tableName, "ItemCount", table.getItemCount(), StandardUnit.None);
-        this.putSingleMetric(tableName, "TableSizeBytes", table.getTableSizeBytes(), StandardUnit.Bytes);
+        return new ProvisionedThroughputDescription()
+            .withReadCapacityUnits(readCapacity == null ? throughput.getReadCapacityUnits() : readCapacity)
+            .withWriteCapacityUnits(throughput.getWriteCapacityUnits());
     }
 
     /**
-     * Saves single metric value in CloudWatch.
+     * Schedules single metric value for publishing.
      *
-     * @param tableName DynamoDB table name.
+     * @param dimensions Metric dimensions.
      * @param metricName Metric name.
-     * @param value Metric value.
+     * @param value Metric value (metric is skipped if there is no value).
      * @param unit Metric unit.
      */
-    private void putSingleMetric(String tableName, String metricName, double value, StandardUnit unit) {
-        this.cloudWatch.putMetricData(
-            new PutMetricDataRequest()
-                .withNamespace(this.namespace)
-                .withMetricData(
-                    new MetricDatum()
-                        .withMetricName(metricName)
-                        .withValue(value)
-                        .withUnit(unit)
-                        .withDimensions(
-                            new Dimension()
-                                .withName("TableName")
-                                .withValue(tableName)
-                        )
-                )
-        );
+    private void addMetric(List<Dimension> dimensions, String metricName, Number value, StandardUnit unit) {
+        if (value != null) {
+            this.publisher.add(
+                new MetricDatum()
+                    .withMetricName(metricName)
+                    .withValue(value.doubleValue())
+                    .withUnit(unit)
+                    .withDimensions(dimensions)
+            );
+        }
+    }
+
+    /**
+     * Builds dimension.
+     *
+     * @param name Dimension name.
+     * @param value Dimension value.
+     * @return Dimension.
+     */
+    private static Dimension buildDimension(String name, String value) {
+        return new Dimension()
+            .withName(name)
+            .withValue(value);
+    }
+
+    /**
+     * Builds extended dimensions set.
+     *
+     * @param dimensions Base dimensions.
+     * @param name Additional dimension name.
+     * @param value Additional dimension value.
+     * @return Dimensions.
+     */
+    private static List<Dimension> extendDimensions(List<Dimension> dimensions, String name, String value) {
+        var result = new ArrayList<>(dimensions);
+        result.add(CloudWatchDynamoDbMetricGenerator.buildDimension(name, value));
+        return result;
+    }
+
+    /**
+     * Handles optional lists from API responses.
+     *
+     * @param list Source list (may be null).
+     * @param <T> List element type.
+     * @return Non-null list.
+     */
+    private static <T> List<T> list(List<T> list) {
+        return list == null ? List.of() : list;
     }
 }
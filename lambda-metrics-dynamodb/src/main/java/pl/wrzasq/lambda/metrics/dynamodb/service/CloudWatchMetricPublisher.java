@@ -0,0 +1,146 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.amazonaws.services.cloudwatch.model.PutMetricDataRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Buffered CloudWatch metrics publisher.
+ *
+ * <p>
+ *     Metrics are collected in memory and sent in as few <code>PutMetricData</code> calls as possible - each request is
+ *     filled up to the API limits of datums count and payload size.
+ * </p>
+ */
+public class CloudWatchMetricPublisher extends BufferedMetricPublisher {
+    /**
+     * Maximum number of datums in single request.
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * Maximum (estimated) request payload size.
+     */
+    private static final int MAX_PAYLOAD_SIZE = 1000 * 1000;
+
+    /**
+     * Estimated size of request parameters not related to datums.
+     */
+    private static final int REQUEST_OVERHEAD = 256;
+
+    /**
+     * Estimated size of single datum parameter names and numeric values.
+     */
+    private static final int DATUM_OVERHEAD = 192;
+
+    /**
+     * Estimated size of single dimension parameter names.
+     */
+    private static final int DIMENSION_OVERHEAD = 96;
+
+    /**
+     * Logger.
+     */
+    private Logger logger = LoggerFactory.getLogger(CloudWatchMetricPublisher.class);
+
+    /**
+     * AWS CloudWatch client.
+     */
+    private AmazonCloudWatch cloudWatch;
+
+    /**
+     * Metrics namespace to use.
+     */
+    private String namespace;
+
+    /**
+     * Initializes object.
+     *
+     * @param cloudWatch CloudWatch client.
+     * @param namespace Metrics namespace.
+     */
+    public CloudWatchMetricPublisher(AmazonCloudWatch cloudWatch, String namespace) {
+        super(CloudWatchMetricPublisher.MAX_BATCH_SIZE);
+
+        this.cloudWatch = cloudWatch;
+        this.namespace = namespace;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int publish(List<MetricDatum> metrics) {
+        var batch = new ArrayList<MetricDatum>();
+        var size = CloudWatchMetricPublisher.REQUEST_OVERHEAD;
+        for (var datum : metrics) {
+            var datumSize = CloudWatchMetricPublisher.estimateSize(datum);
+            if (batch.size() == CloudWatchMetricPublisher.MAX_BATCH_SIZE
+                || (!batch.isEmpty() && size + datumSize > CloudWatchMetricPublisher.MAX_PAYLOAD_SIZE)) {
+                break;
+            }
+
+            batch.add(datum);
+            size += datumSize;
+        }
+
+        this.send(batch);
+        return batch.size();
+    }
+
+    /**
+     * Sends single batch of metrics.
+     *
+     * @param batch Metrics.
+     */
+    private void send(List<MetricDatum> batch) {
+        this.logger.info("Publishing {} metric(s) in {} namespace.", batch.size(), this.namespace);
+
+        this.cloudWatch.putMetricData(
+            new PutMetricDataRequest()
+                .withNamespace(this.namespace)
+                .withMetricData(batch)
+        );
+    }
+
+    /**
+     * Estimates size of the datum in serialized request.
+     *
+     * @param datum Metric value.
+     * @return Upper bound of payload size.
+     */
+    private static int estimateSize(MetricDatum datum) {
+        var size = CloudWatchMetricPublisher.DATUM_OVERHEAD
+            + CloudWatchMetricPublisher.length(datum.getMetricName())
+            + CloudWatchMetricPublisher.length(datum.getUnit());
+        for (var dimension : datum.getDimensions()) {
+            size += CloudWatchMetricPublisher.DIMENSION_OVERHEAD
+                + CloudWatchMetricPublisher.length(dimension.getName())
+                + CloudWatchMetricPublisher.length(dimension.getValue());
+        }
+        return size;
+    }
+
+    /**
+     * Computes upper bound of URL-encoded string length.
+     *
+     * @param value Parameter value.
+     * @return Encoded length.
+     */
+    private static int length(String value) {
+        // single UTF-16 character takes up to three bytes in UTF-8, each encoded as %XX
+        return value == null ? 0 : value.length() * 9;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+
+/**
+ * Publisher sending the same metrics to multiple outputs.
+ */
+public class CompositeMetricPublisher implements MetricPublisher {
+    /**
+     * Target outputs.
+     */
+    private List<MetricPublisher> publishers;
+
+    /**
+     * Initializes object.
+     *
+     * @param publishers Target outputs.
+     */
+    public CompositeMetricPublisher(List<MetricPublisher> publishers) {
+        this.publishers = publishers;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void add(MetricDatum datum) {
+        for (var publisher : this.publishers) {
+            publisher.add(datum);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     *     All outputs are flushed even if some of them fail, so one unavailable backend doesn't block the others.
+     * </p>
+     */
+    @Override
+    public void flush() {
+        var errors = new ArrayList<RuntimeException>();
+        for (var publisher : this.publishers) {
+            try {
+                publisher.flush();
+            } catch (RuntimeException error) {
+                errors.add(error);
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            var error = new IllegalStateException(
+                String.format("Flushing %d metrics output(s) failed.", errors.size()),
+                errors.get(0)
+            );
+            errors.stream().skip(1).forEach(error::addSuppressed);
+            throw error;
+        }
+    }
+}
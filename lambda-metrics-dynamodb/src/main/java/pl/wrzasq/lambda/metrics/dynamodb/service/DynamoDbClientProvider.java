@@ -0,0 +1,124 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.STSAssumeRoleSessionCredentialsProvider;
+import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClientBuilder;
+import com.amazonaws.services.securitytoken.AWSSecurityTokenService;
+
+/**
+ * Provides DynamoDB clients for different accounts and regions.
+ *
+ * <p>
+ *     Clients and assumed role credentials are cached, so warm invocations don't repeat role assumption - credentials
+ *     are refreshed automatically before they expire.
+ * </p>
+ */
+public class DynamoDbClientProvider {
+    /**
+     * Role session name.
+     */
+    private static final String SESSION_NAME = "lambda-metrics-dynamodb";
+
+    /**
+     * Client for current account and region.
+     */
+    private AmazonDynamoDB defaultClient;
+
+    /**
+     * AWS STS client.
+     */
+    private AWSSecurityTokenService sts;
+
+    /**
+     * AWS calls instrumentation (may be null).
+     */
+    private RequestMetricCollector metricCollector;
+
+    /**
+     * Credentials by role ARN.
+     */
+    private Map<String, AWSCredentialsProvider> credentials = new ConcurrentHashMap<>();
+
+    /**
+     * Clients by role ARN and region.
+     */
+    private Map<String, AmazonDynamoDB> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Initializes object.
+     *
+     * @param defaultClient Client for current account and region.
+     * @param sts AWS STS client.
+     * @param metricCollector AWS calls instrumentation (may be null).
+     */
+    public DynamoDbClientProvider(
+        AmazonDynamoDB defaultClient,
+        AWSSecurityTokenService sts,
+        RequestMetricCollector metricCollector
+    ) {
+        this.defaultClient = defaultClient;
+        this.sts = sts;
+        this.metricCollector = metricCollector;
+    }
+
+    /**
+     * Returns client for current account and region.
+     *
+     * @return DynamoDB client.
+     */
+    public AmazonDynamoDB getClient() {
+        return this.defaultClient;
+    }
+
+    /**
+     * Returns client for given location.
+     *
+     * @param roleArn Role to assume (null for current account).
+     * @param region Region (null for current region).
+     * @return DynamoDB client.
+     */
+    public AmazonDynamoDB getClient(String roleArn, String region) {
+        if (roleArn == null && region == null) {
+            return this.defaultClient;
+        }
+
+        return this.clients.computeIfAbsent(
+            roleArn + "@" + region,
+            key -> {
+                var builder = AmazonDynamoDBClientBuilder.standard()
+                    .withMetricsCollector(this.metricCollector);
+                if (roleArn != null) {
+                    builder.withCredentials(this.credentials.computeIfAbsent(roleArn, this::assumeRole));
+                }
+                if (region != null) {
+                    builder.withRegion(region);
+                }
+                return builder.build();
+            }
+        );
+    }
+
+    /**
+     * Creates role credentials provider.
+     *
+     * @param roleArn Role ARN.
+     * @return Credentials provider.
+     */
+    private AWSCredentialsProvider assumeRole(String roleArn) {
+        return new STSAssumeRoleSessionCredentialsProvider.Builder(roleArn, DynamoDbClientProvider.SESSION_NAME)
+            .withStsClient(this.sts)
+            .build();
+    }
+}
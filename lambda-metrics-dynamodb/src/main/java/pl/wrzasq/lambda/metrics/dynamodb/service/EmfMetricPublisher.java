@@ -0,0 +1,147 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * CloudWatch Embedded Metric Format publisher.
+ *
+ * <p>
+ *     Metrics are written as structured log lines to the output stream - CloudWatch Logs extracts them asynchronously,
+ *     so no CloudWatch API call is made during invocation. Datums with the same dimensions are grouped into single
+ *     document.
+ * </p>
+ */
+public class EmfMetricPublisher extends BufferedMetricPublisher {
+    /**
+     * Maximum number of metrics in single document.
+     */
+    private static final int MAX_METRICS = 100;
+
+    /**
+     * JSON serializer.
+     */
+    private ObjectMapper objectMapper;
+
+    /**
+     * Output stream.
+     */
+    private PrintStream output;
+
+    /**
+     * Metrics namespace to use.
+     */
+    private String namespace;
+
+    /**
+     * Time source.
+     */
+    private Clock clock;
+
+    /**
+     * Initializes object.
+     *
+     * @param objectMapper JSON serializer.
+     * @param output Output stream.
+     * @param namespace Metrics namespace.
+     * @param clock Time source.
+     */
+    public EmfMetricPublisher(ObjectMapper objectMapper, PrintStream output, String namespace, Clock clock) {
+        this.objectMapper = objectMapper;
+        this.output = output;
+        this.namespace = namespace;
+        this.clock = clock;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int publish(List<MetricDatum> metrics) {
+        var groups = new LinkedHashMap<List<Dimension>, List<MetricDatum>>();
+        for (var datum : metrics) {
+            groups.computeIfAbsent(datum.getDimensions(), key -> new ArrayList<>()).add(datum);
+        }
+
+        var timestamp = this.clock.millis();
+        for (var group : groups.entrySet()) {
+            var document = new ArrayList<MetricDatum>();
+            for (var datum : group.getValue()) {
+                if (document.size() == EmfMetricPublisher.MAX_METRICS
+                    || document.stream().anyMatch(item -> item.getMetricName().equals(datum.getMetricName()))) {
+                    this.write(group.getKey(), document, timestamp);
+                    document = new ArrayList<>();
+                }
+                document.add(datum);
+            }
+            this.write(group.getKey(), document, timestamp);
+        }
+
+        this.output.flush();
+        return metrics.size();
+    }
+
+    /**
+     * Writes single EMF document.
+     *
+     * @param dimensions Common dimensions.
+     * @param metrics Metric values.
+     * @param timestamp Metrics timestamp (in milliseconds).
+     */
+    private void write(List<Dimension> dimensions, List<MetricDatum> metrics, long timestamp) {
+        var root = this.objectMapper.createObjectNode();
+        var directive = root.putObject("_aws")
+            .put("Timestamp", timestamp)
+            .putArray("CloudWatchMetrics")
+            .addObject()
+            .put("Namespace", this.namespace);
+
+        var dimensionSet = directive.putArray("Dimensions").addArray();
+        for (var dimension : dimensions) {
+            dimensionSet.add(dimension.getName());
+            root.put(dimension.getName(), dimension.getValue());
+        }
+
+        var definitions = directive.putArray("Metrics");
+        for (var datum : metrics) {
+            EmfMetricPublisher.define(definitions.addObject(), datum);
+            root.put(datum.getMetricName(), datum.getValue());
+        }
+
+        try {
+            this.output.println(this.objectMapper.writeValueAsString(root));
+        } catch (JsonProcessingException error) {
+            throw new UncheckedIOException(error);
+        }
+    }
+
+    /**
+     * Builds metric definition.
+     *
+     * @param definition Definition node.
+     * @param datum Metric value.
+     */
+    private static void define(ObjectNode definition, MetricDatum datum) {
+        definition.put("Name", datum.getMetricName());
+        if (datum.getUnit() != null) {
+            definition.put("Unit", datum.getUnit());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.util.List;
+
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Local metrics output.
+ *
+ * <p>
+ *     Each metric is written as a single JSON line (with timestamp, name, value, unit and dimensions map), which makes
+ *     the output easy to inspect or to feed into other tools without any AWS service.
+ * </p>
+ */
+public class FileMetricPublisher extends BufferedMetricPublisher {
+    /**
+     * JSON serializer.
+     */
+    private ObjectMapper objectMapper;
+
+    /**
+     * Output stream.
+     */
+    private PrintStream output;
+
+    /**
+     * Time source.
+     */
+    private Clock clock;
+
+    /**
+     * Initializes object.
+     *
+     * @param objectMapper JSON serializer.
+     * @param output Output stream.
+     * @param clock Time source.
+     */
+    public FileMetricPublisher(ObjectMapper objectMapper, PrintStream output, Clock clock) {
+        this.objectMapper = objectMapper;
+        this.output = output;
+        this.clock = clock;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int publish(List<MetricDatum> metrics) {
+        var timestamp = this.clock.millis();
+        for (var datum : metrics) {
+            var line = this.objectMapper.createObjectNode()
+                .put("timestamp", timestamp)
+                .put("name", datum.getMetricName())
+                .put("value", datum.getValue())
+                .put("unit", datum.getUnit());
+
+            var dimensions = line.putObject("dimensions");
+            for (var dimension : datum.getDimensions()) {
+                dimensions.put(dimension.getName(), dimension.getValue());
+            }
+
+            try {
+                this.output.println(this.objectMapper.writeValueAsString(line));
+            } catch (JsonProcessingException error) {
+                throw new UncheckedIOException(error);
+            }
+        }
+
+        this.output.flush();
+        return metrics.size();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import pl.wrzasq.lambda.metrics.dynamodb.model.TableGrowth;
+import pl.wrzasq.lambda.metrics.dynamodb.model.TableSample;
+
+/**
+ * Tracks table sizes over time to compute growth rates.
+ *
+ * <p>
+ *     Each table keeps a bounded series of samples - new sample is recorded only when statistics change or the last
+ *     sample is older than sampling interval, so the series spans long period even with frequent invocations. Rates are
+ *     computed between the oldest and the newest sample.
+ * </p>
+ */
+public class GrowthTracker {
+    /**
+     * Milliseconds in hour.
+     */
+    private static final double HOUR = Duration.ofHours(1).toMillis();
+
+    /**
+     * Hours in day.
+     */
+    private static final double HOURS_PER_DAY = 24;
+
+    /**
+     * Persistent state storage (may be null).
+     */
+    private S3StateStore<Map<String, List<TableSample>>> store;
+
+    /**
+     * Maximum number of samples kept per table.
+     */
+    private int capacity;
+
+    /**
+     * Minimum interval between samples of unchanged table.
+     */
+    private Duration interval;
+
+    /**
+     * Size threshold for projection (may be null).
+     */
+    private Long threshold;
+
+    /**
+     * Time source.
+     */
+    private Clock clock;
+
+    /**
+     * Samples by table name.
+     */
+    private Map<String, List<TableSample>> samples;
+
+    /**
+     * Initializes object.
+     *
+     * @param store Persistent state storage (may be null).
+     * @param capacity Maximum number of samples kept per table.
+     * @param interval Minimum interval between samples of unchanged table.
+     * @param threshold Size threshold for projection (may be null).
+     * @param clock Time source.
+     */
+    public GrowthTracker(
+        S3StateStore<Map<String, List<TableSample>>> store,
+        int capacity,
+        Duration interval,
+        Long threshold,
+        Clock clock
+    ) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("At least two samples are needed to compute growth.");
+        }
+
+        this.store = store;
+        this.capacity = capacity;
+        this.interval = interval;
+        this.threshold = threshold;
+        this.clock = clock;
+    }
+
+    /**
+     * Records current table state.
+     *
+     * @param tableName Table name.
+     * @param itemCount Number of items.
+     * @param sizeBytes Table size.
+     * @return Growth statistics.
+     */
+    public synchronized TableGrowth track(String tableName, long itemCount, long sizeBytes) {
+        var series = this.getSamples().computeIfAbsent(tableName, key -> new ArrayList<>());
+        var sample = new TableSample(this.clock.millis(), itemCount, sizeBytes);
+
+        var last = series.isEmpty() ? null : series.get(series.size() - 1);
+        if (last == null
+            || last.getItemCount() != itemCount
+            || last.getSizeBytes() != sizeBytes
+            || sample.getTimestamp() - last.getTimestamp() >= this.interval.toMillis()) {
+            series.add(sample);
+            while (series.size() > this.capacity) {
+                series.remove(0);
+            }
+        }
+
+        var growth = new TableGrowth();
+        var first = series.get(0);
+        var hours = (sample.getTimestamp() - first.getTimestamp()) / GrowthTracker.HOUR;
+        if (hours > 0) {
+            growth.setItemsPerHour((itemCount - first.getItemCount()) / hours);
+            growth.setBytesPerHour((sizeBytes - first.getSizeBytes()) / hours);
+
+            if (this.threshold != null && growth.getBytesPerHour() > 0) {
+                growth.setDaysUntilThreshold(
+                    Math.max(0, this.threshold - sizeBytes) / growth.getBytesPerHour() / GrowthTracker.HOURS_PER_DAY
+                );
+            }
+        }
+
+        return growth;
+    }
+
+    /**
+     * Persists samples.
+     */
+    public synchronized void save() {
+        if (this.store != null && this.samples != null) {
+            this.store.save(this.samples);
+        }
+    }
+
+    /**
+     * Returns samples, loading them on first use.
+     *
+     * @return Samples by table name.
+     */
+    private Map<String, List<TableSample>> getSamples() {
+        if (this.samples == null) {
+            this.samples = this.store == null ? new HashMap<>() : this.store.load(HashMap::new);
+        }
+
+        return this.samples;
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+
+/**
+ * Buffered metrics output.
+ */
+public interface MetricPublisher {
+    /**
+     * Schedules metric for publishing.
+     *
+     * @param datum Metric value.
+     */
+    void add(MetricDatum datum);
+
+    /**
+     * Sends all buffered metrics.
+     */
+    void flush();
+}
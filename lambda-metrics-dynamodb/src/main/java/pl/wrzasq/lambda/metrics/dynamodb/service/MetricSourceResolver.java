@@ -0,0 +1,80 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.amazonaws.arn.Arn;
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import pl.wrzasq.lambda.metrics.dynamodb.model.MetricSource;
+import pl.wrzasq.lambda.metrics.dynamodb.model.TableMetricRequest;
+
+/**
+ * Resolves locations and tables covered by the request.
+ */
+public class MetricSourceResolver {
+    /**
+     * DynamoDB clients provider.
+     */
+    private DynamoDbClientProvider clientProvider;
+
+    /**
+     * Tables resolver.
+     */
+    private TableSelector tableSelector;
+
+    /**
+     * Initializes object.
+     *
+     * @param clientProvider DynamoDB clients provider.
+     * @param tableSelector Tables resolver.
+     */
+    public MetricSourceResolver(DynamoDbClientProvider clientProvider, TableSelector tableSelector) {
+        this.clientProvider = clientProvider;
+        this.tableSelector = tableSelector;
+    }
+
+    /**
+     * Builds list of metric sources.
+     *
+     * @param request Metrics request.
+     * @return Metric sources.
+     */
+    public List<MetricSource> resolve(TableMetricRequest request) {
+        var sources = new ArrayList<MetricSource>();
+
+        if (request.getTargets().isEmpty()) {
+            var dynamoDb = this.clientProvider.getClient();
+            sources.add(new MetricSource(dynamoDb, this.tableSelector.resolve(dynamoDb, request), List.of()));
+        }
+
+        for (var target : request.getTargets()) {
+            var accountId = target.getRoleArn() == null ? null : Arn.fromString(target.getRoleArn()).getAccountId();
+            var regions = target.getRegions().isEmpty()
+                ? Collections.singletonList((String) null)
+                : target.getRegions();
+
+            for (var region : regions) {
+                var dynamoDb = this.clientProvider.getClient(target.getRoleArn(), region);
+                var dimensions = new ArrayList<Dimension>();
+                if (accountId != null) {
+                    dimensions.add(new Dimension().withName("AccountId").withValue(accountId));
+                }
+                if (region != null) {
+                    dimensions.add(new Dimension().withName("Region").withValue(region));
+                }
+
+                sources.add(new MetricSource(dynamoDb, this.tableSelector.resolve(dynamoDb, request), dimensions));
+            }
+        }
+
+        return sources;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Prometheus Pushgateway publisher.
+ *
+ * <p>
+ *     All buffered metrics are sent as gauges in single text exposition format request. Metrics are pushed with
+ *     <code>POST</code> method, so only series of pushed metric names are replaced in the job group. Metric names are
+ *     prefixed with sanitized namespace and, like dimension names used as labels, converted to snake case (eg.
+ *     <code>TableSizeBytes</code> in <code>Custom/DynamoDB</code> namespace becomes
+ *     <code>custom_dynamo_db_table_size_bytes</code>).
+ * </p>
+ */
+public class PrometheusMetricPublisher extends BufferedMetricPublisher {
+    /**
+     * Text exposition format content type.
+     */
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * Request timeout.
+     */
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * Word boundary within camel case name.
+     */
+    private static final Pattern CAMEL_CASE_BOUNDARY = Pattern.compile("([a-z0-9])([A-Z])|([A-Z])([A-Z][a-z])");
+
+    /**
+     * Characters not allowed in metric names.
+     */
+    private static final Pattern INVALID_CHARACTERS = Pattern.compile("[^a-zA-Z0-9_]+");
+
+    /**
+     * Logger.
+     */
+    private Logger logger = LoggerFactory.getLogger(PrometheusMetricPublisher.class);
+
+    /**
+     * HTTP client.
+     */
+    private HttpClient httpClient;
+
+    /**
+     * Job group endpoint.
+     */
+    private URI endpoint;
+
+    /**
+     * Metric names prefix.
+     */
+    private String prefix;
+
+    /**
+     * Initializes object.
+     *
+     * @param httpClient HTTP client.
+     * @param gatewayUrl Pushgateway base URL.
+     * @param job Job name.
+     * @param namespace Metrics namespace.
+     */
+    public PrometheusMetricPublisher(HttpClient httpClient, String gatewayUrl, String job, String namespace) {
+        // pushed series replace whole metric families, so all metrics must be sent in single request
+        super(Integer.MAX_VALUE);
+
+        this.httpClient = httpClient;
+        this.endpoint = URI.create(gatewayUrl.replaceAll("/+$", "") + "/metrics/job/" + job);
+        this.prefix = PrometheusMetricPublisher.toSnakeCase(namespace) + "_";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int publish(List<MetricDatum> metrics) {
+        this.logger.info("Pushing {} metric(s) to {}.", metrics.size(), this.endpoint);
+
+        var request = HttpRequest.newBuilder(this.endpoint)
+            .timeout(PrometheusMetricPublisher.TIMEOUT)
+            .header("Content-Type", PrometheusMetricPublisher.CONTENT_TYPE)
+            .POST(HttpRequest.BodyPublishers.ofString(this.buildPayload(metrics)))
+            .build();
+
+        try {
+            var response = this.httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException(
+                    String.format(
+                        "Pushing metrics to %s failed with status %d: %s",
+                        this.endpoint,
+                        response.statusCode(),
+                        response.body()
+                    )
+                );
+            }
+            return metrics.size();
+        } catch (IOException error) {
+            throw new UncheckedIOException(error);
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while pushing metrics.", error);
+        }
+    }
+
+    /**
+     * Builds text exposition format payload.
+     *
+     * @param metrics Metrics.
+     * @return Request body.
+     */
+    private String buildPayload(List<MetricDatum> metrics) {
+        // gateway rejects repeated series, so latest value of each one wins
+        var families = new LinkedHashMap<String, Map<String, Double>>();
+        for (var datum : metrics) {
+            var labels = new StringBuilder();
+            for (var dimension : datum.getDimensions()) {
+                labels
+                    .append(labels.length() == 0 ? "{" : ",")
+                    .append(PrometheusMetricPublisher.toSnakeCase(dimension.getName()))
+                    .append("=\"")
+                    .append(PrometheusMetricPublisher.escape(dimension.getValue()))
+                    .append('"');
+            }
+            if (labels.length() > 0) {
+                labels.append('}');
+            }
+
+            families
+                .computeIfAbsent(
+                    this.prefix + PrometheusMetricPublisher.toSnakeCase(datum.getMetricName()),
+                    key -> new LinkedHashMap<>()
+                )
+                .put(labels.toString(), datum.getValue());
+        }
+
+        var payload = new StringBuilder();
+        for (var family : families.entrySet()) {
+            payload.append("# TYPE ").append(family.getKey()).append(" gauge\n");
+            for (var series : family.getValue().entrySet()) {
+                payload
+                    .append(family.getKey())
+                    .append(series.getKey())
+                    .append(' ')
+                    .append(series.getValue())
+                    .append('\n');
+            }
+        }
+        return payload.toString();
+    }
+
+    /**
+     * Converts name to Prometheus convention.
+     *
+     * @param name CloudWatch name.
+     * @return Snake case name.
+     */
+    private static String toSnakeCase(String name) {
+        var snakeCase = PrometheusMetricPublisher.CAMEL_CASE_BOUNDARY.matcher(name).replaceAll("$1$3_$2$4");
+        return PrometheusMetricPublisher.INVALID_CHARACTERS.matcher(snakeCase).replaceAll("_").toLowerCase();
+    }
+
+    /**
+     * Escapes label value.
+     *
+     * @param value Raw value.
+     * @return Escaped value.
+     */
+    private static String escape(String value) {
+        return value
+            .replace("\\", "\\\\")
+            .replace("\"", "\\\"")
+            .replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits calls rate by spacing them evenly.
+ */
+public class RateLimiter {
+    /**
+     * Interval between calls (in nanoseconds).
+     */
+    private long interval;
+
+    /**
+     * Time of next available slot (in nanoseconds).
+     */
+    private long next = System.nanoTime();
+
+    /**
+     * Initializes object.
+     *
+     * @param rate Maximum number of calls per second.
+     */
+    public RateLimiter(double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate limit must be positive.");
+        }
+
+        this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+
+    /**
+     * Waits until next call is allowed.
+     *
+     * @throws InterruptedException When thread is interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+        long slot;
+        synchronized (this) {
+            slot = Math.max(this.next, System.nanoTime());
+            this.next = slot + this.interval;
+        }
+
+        // sleeping may round the delay down to whole milliseconds, so wait until the slot is really reached
+        for (var delay = slot - System.nanoTime(); delay > 0; delay = slot - System.nanoTime()) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import pl.wrzasq.lambda.metrics.dynamodb.model.CollectorTarget;
+import pl.wrzasq.lambda.metrics.dynamodb.model.InvocationPayload;
+import pl.wrzasq.lambda.metrics.dynamodb.model.QueuedMessage;
+import pl.wrzasq.lambda.metrics.dynamodb.model.TableMetricRequest;
+
+/**
+ * Streaming invocation payload reader.
+ *
+ * <p>
+ *     Input is read token by token in single pass - only the request fields are bound, everything else (like the
+ *     EventBridge and SQS envelope metadata) is skipped without building any tree. Supported payloads:
+ * </p>
+ *
+ * <ul>
+ *     <li>direct request;</li>
+ *     <li>EventBridge event with request in <code>detail</code> field;</li>
+ *     <li>SQS batch with direct request or EventBridge event in each message body.</li>
+ * </ul>
+ */
+public class RequestReader {
+    /**
+     * Table names type.
+     */
+    private static final TypeReference<List<String>> TABLE_NAMES_TYPE = new TypeReference<>() {
+    };
+
+    /**
+     * Collector targets type.
+     */
+    private static final TypeReference<List<CollectorTarget>> TARGETS_TYPE = new TypeReference<>() {
+    };
+
+    /**
+     * JSON handler.
+     */
+    private ObjectMapper objectMapper;
+
+    /**
+     * Initializes object.
+     *
+     * @param objectMapper JSON handler.
+     */
+    public RequestReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads invocation payload.
+     *
+     * @param input Invocation input.
+     * @return Extracted payload.
+     * @throws IOException When reading JSON fails.
+     */
+    public InvocationPayload read(InputStream input) throws IOException {
+        try (var parser = this.objectMapper.getFactory().createParser(input)) {
+            return this.readPayload(parser);
+        }
+    }
+
+    /**
+     * Reads request from queued message.
+     *
+     * @param body Message body.
+     * @return Metrics request.
+     * @throws IOException When reading JSON fails.
+     */
+    public TableMetricRequest readRequest(String body) throws IOException {
+        try (var parser = this.objectMapper.getFactory().createParser(body)) {
+            var payload = this.readPayload(parser);
+            if (payload.getMessages() != null) {
+                throw new JsonParseException(parser, "Nested SQS batch is not supported.");
+            }
+            return payload.getRequest();
+        }
+    }
+
+    /**
+     * Reads payload of any supported shape.
+     *
+     * @param parser JSON parser.
+     * @return Extracted payload.
+     * @throws IOException When reading JSON fails.
+     */
+    private InvocationPayload readPayload(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Invocation payload must be a JSON object.");
+        }
+
+        // envelope fields don't collide with request fields, so all shapes are handled in the same pass
+        var request = new TableMetricRequest();
+        TableMetricRequest detail = null;
+        List<QueuedMessage> messages = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "Records":
+                    messages = RequestReader.readMessages(parser);
+                    break;
+                case "detail":
+                    detail = this.readDetail(parser);
+                    break;
+                default:
+                    this.readField(parser, field, request);
+            }
+        }
+
+        return new InvocationPayload(detail == null ? request : detail, messages);
+    }
+
+    /**
+     * Reads EventBridge event detail.
+     *
+     * @param parser JSON parser.
+     * @return Metrics request.
+     * @throws IOException When reading JSON fails.
+     */
+    private TableMetricRequest readDetail(JsonParser parser) throws IOException {
+        var request = new TableMetricRequest();
+        if (parser.currentToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var field = parser.getCurrentName();
+                parser.nextToken();
+                this.readField(parser, field, request);
+            }
+        } else {
+            parser.skipChildren();
+        }
+        return request;
+    }
+
+    /**
+     * Binds single request field.
+     *
+     * @param parser JSON parser positioned at field value.
+     * @param field Field name.
+     * @param request Request being built.
+     * @throws IOException When reading JSON fails.
+     */
+    private void readField(JsonParser parser, String field, TableMetricRequest request) throws IOException {
+        switch (field) {
+            case "tableName":
+                request.setTableName(parser.getValueAsString());
+                break;
+            case "tableNames":
+                request.setTableNames(parser.readValueAs(RequestReader.TABLE_NAMES_TYPE));
+                break;
+            case "tablePrefix":
+                request.setTablePrefix(parser.getValueAsString());
+                break;
+            case "tablePattern":
+                request.setTablePattern(parser.getValueAsString());
+                break;
+            case "allTables":
+                request.setAllTables(parser.getValueAsBoolean());
+                break;
+            case "targets":
+                request.setTargets(parser.readValueAs(RequestReader.TARGETS_TYPE));
+                break;
+            default:
+                parser.skipChildren();
+        }
+    }
+
+    /**
+     * Reads SQS batch records.
+     *
+     * @param parser JSON parser positioned at records array.
+     * @return Queued messages.
+     * @throws IOException When reading JSON fails.
+     */
+    private static List<QueuedMessage> readMessages(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Records must be a JSON array.");
+        }
+
+        var messages = new ArrayList<QueuedMessage>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String messageId = null;
+            String body = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var field = parser.getCurrentName();
+                parser.nextToken();
+                if ("messageId".equals(field)) {
+                    messageId = parser.getValueAsString();
+                } else if ("body".equals(field)) {
+                    body = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            messages.add(new QueuedMessage(messageId, body));
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * State persisted between invocations as JSON object in S3.
+ *
+ * @param <T> State type.
+ */
+public class S3StateStore<T> {
+    /**
+     * AWS S3 client.
+     */
+    private AmazonS3 s3;
+
+    /**
+     * JSON handler.
+     */
+    private ObjectMapper objectMapper;
+
+    /**
+     * State bucket.
+     */
+    private String bucket;
+
+    /**
+     * State object key.
+     */
+    private String key;
+
+    /**
+     * State type.
+     */
+    private TypeReference<T> type;
+
+    /**
+     * Initializes object.
+     *
+     * @param s3 S3 client.
+     * @param objectMapper JSON handler.
+     * @param bucket State bucket.
+     * @param key State object key.
+     * @param type State type.
+     */
+    public S3StateStore(AmazonS3 s3, ObjectMapper objectMapper, String bucket, String key, TypeReference<T> type) {
+        this.s3 = s3;
+        this.objectMapper = objectMapper;
+        this.bucket = bucket;
+        this.key = key;
+        this.type = type;
+    }
+
+    /**
+     * Loads state.
+     *
+     * @param initial Initial state provider (used when there is no state yet).
+     * @return Persisted state.
+     */
+    public T load(Supplier<T> initial) {
+        if (!this.s3.doesObjectExist(this.bucket, this.key)) {
+            return initial.get();
+        }
+
+        try (var object = this.s3.getObject(this.bucket, this.key)) {
+            return this.objectMapper.readValue(object.getObjectContent(), this.type);
+        } catch (IOException error) {
+            throw new UncheckedIOException(error);
+        }
+    }
+
+    /**
+     * Saves state.
+     *
+     * @param state Current state.
+     */
+    public void save(T state) {
+        try {
+            this.s3.putObject(this.bucket, this.key, this.objectMapper.writeValueAsString(state));
+        } catch (IOException error) {
+            throw new UncheckedIOException(error);
+        }
+    }
+}
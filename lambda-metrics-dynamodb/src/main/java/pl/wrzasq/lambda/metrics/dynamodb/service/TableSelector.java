@@ -0,0 +1,91 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.ListTablesRequest;
+import pl.wrzasq.lambda.metrics.dynamodb.model.TableMetricRequest;
+
+/**
+ * Resolves tables covered by the request.
+ */
+public class TableSelector {
+    /**
+     * Builds list of subject tables.
+     *
+     * @param dynamoDb DynamoDB client for tables location.
+     * @param request Metrics request.
+     * @return Table names.
+     */
+    public Collection<String> resolve(AmazonDynamoDB dynamoDb, TableMetricRequest request) {
+        var tables = new TreeSet<String>();
+
+        if (request.getTableName() != null) {
+            tables.add(request.getTableName());
+        }
+        tables.addAll(request.getTableNames());
+
+        if (request.isAllTables()) {
+            TableSelector.listTables(dynamoDb, tables, null, name -> true);
+        } else {
+            if (request.getTablePrefix() != null) {
+                var prefix = request.getTablePrefix();
+                TableSelector.listTables(dynamoDb, tables, prefix, name -> name.startsWith(prefix));
+            }
+            if (request.getTablePattern() != null) {
+                TableSelector.listTables(
+                    dynamoDb,
+                    tables,
+                    null,
+                    Pattern.compile(request.getTablePattern()).asMatchPredicate()
+                );
+            }
+        }
+
+        return tables;
+    }
+
+    /**
+     * Pages through all tables in the region.
+     *
+     * <p>
+     *     Tables are listed in alphabetical order, so when the prefix is known listing stops right after the last
+     *     possible match.
+     * </p>
+     *
+     * @param dynamoDb DynamoDB client.
+     * @param tables Tables accumulator.
+     * @param prefix Table names prefix (may be null).
+     * @param filter Table names filter.
+     */
+    private static void listTables(
+        AmazonDynamoDB dynamoDb,
+        Set<String> tables,
+        String prefix,
+        Predicate<String> filter
+    ) {
+        String lastTableName = null;
+        do {
+            var result = dynamoDb.listTables(new ListTablesRequest().withExclusiveStartTableName(lastTableName));
+            for (var name : result.getTableNames()) {
+                if (filter.test(name)) {
+                    tables.add(name);
+                } else if (prefix != null && name.compareTo(prefix) > 0) {
+                    return;
+                }
+            }
+            lastTableName = result.getLastEvaluatedTableName();
+        } while (lastTableName != null);
+    }
+}
@@ -10,7 +10,9 @@ package test.pl.wrzasq.lambda.metrics.dynamodb;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.List;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -19,8 +21,15 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import pl.wrzasq.lambda.metrics.dynamodb.Handler;
+import pl.wrzasq.lambda.metrics.dynamodb.model.BatchItemFailure;
+import pl.wrzasq.lambda.metrics.dynamodb.model.BatchResponse;
+import pl.wrzasq.lambda.metrics.dynamodb.model.InvocationPayload;
+import pl.wrzasq.lambda.metrics.dynamodb.model.MetricSource;
+import pl.wrzasq.lambda.metrics.dynamodb.model.QueuedMessage;
 import pl.wrzasq.lambda.metrics.dynamodb.model.TableMetricRequest;
 import pl.wrzasq.lambda.metrics.dynamodb.service.CloudWatchDynamoDbMetricGenerator;
+import pl.wrzasq.lambda.metrics.dynamodb.service.MetricSourceResolver;
+import pl.wrzasq.lambda.metrics.dynamodb.service.RequestReader;
 
 @ExtendWith(MockitoExtension.class)
 public class HandlerTest {
@@ -33,6 +42,15 @@ public class HandlerTest {
     @Mock
     private OutputStream outputStream;
 
+    @Mock
+    private RequestReader requestReader;
+
+    @Mock
+    private MetricSourceResolver sourceResolver;
+
+    @Mock
+    private AmazonDynamoDB dynamoDb;
+
     @Mock
     private CloudWatchDynamoDbMetricGenerator metricGenerator;
 
@@ -45,6 +63,8 @@ public class HandlerTest {
 
         var handler = new Handler(
             this.objectMapper,
+            this.requestReader,
+            this.sourceResolver,
             this.metricGenerator
         );
 
@@ -52,25 +72,94 @@ public class HandlerTest {
         request.setTableName(tableName);
 
         Mockito
-            .when(this.objectMapper.readValue(this.inputStream, TableMetricRequest.class))
-            .thenReturn(request);
+            .when(this.requestReader.read(this.inputStream))
+            .thenReturn(new InvocationPayload(request, null));
+        var sources = List.of(new MetricSource(this.dynamoDb, List.of(tableName), List.of()));
+        Mockito
+            .when(this.sourceResolver.resolve(request))
+            .thenReturn(sources);
+
+        handler.handle(this.inputStream, this.outputStream);
+
+        Mockito
+            .verify(this.metricGenerator)
+            .generateMetricsFor(sources);
+        Mockito.verifyNoInteractions(this.objectMapper);
+    }
+
+    @Test
+    public void handleBatch() throws IOException {
+        var handler = new Handler(
+            this.objectMapper,
+            this.requestReader,
+            this.sourceResolver,
+            this.metricGenerator
+        );
+
+        var valid = new TableMetricRequest();
+        valid.setTableName("test");
+        var failing = new TableMetricRequest();
+        failing.setTableName("failing");
+
+        Mockito
+            .when(this.requestReader.read(this.inputStream))
+            .thenReturn(
+                new InvocationPayload(
+                    null,
+                    List.of(
+                        new QueuedMessage("id0", "valid"),
+                        new QueuedMessage("id1", "failing"),
+                        new QueuedMessage("id2", "malformed")
+                    )
+                )
+            );
+        Mockito
+            .when(this.requestReader.readRequest(Mockito.anyString()))
+            .thenAnswer(invocation -> {
+                switch (invocation.<String>getArgument(0)) {
+                    case "valid":
+                        return valid;
+                    case "failing":
+                        return failing;
+                    default:
+                        throw new IOException();
+                }
+            });
+        var sources = List.of(new MetricSource(this.dynamoDb, List.of("test"), List.of()));
+        Mockito
+            .when(this.sourceResolver.resolve(Mockito.any()))
+            .thenAnswer(invocation -> {
+                if (invocation.getArgument(0) == failing) {
+                    throw new IllegalStateException();
+                }
+                return sources;
+            });
 
         handler.handle(this.inputStream, this.outputStream);
 
+        var response = new BatchResponse();
+        response.getBatchItemFailures().add(new BatchItemFailure("id1"));
+        response.getBatchItemFailures().add(new BatchItemFailure("id2"));
+
         Mockito
             .verify(this.metricGenerator)
-            .generateMetrics(tableName);
+            .generateMetricsFor(sources);
+        Mockito
+            .verify(this.objectMapper)
+            .writeValue(this.outputStream, response);
     }
 
     @Test
     public void handleCloseOnError() throws IOException {
         var handler = new Handler(
             this.objectMapper,
+            this.requestReader,
+            this.sourceResolver,
             this.metricGenerator
         );
 
         Mockito
-            .when(this.objectMapper.readValue(this.inputStream, TableMetricRequest.class))
+            .when(this.requestReader.read(this.inputStream))
             .thenThrow(IOException.class);
 
         Assertions.assertThrows(
@@ -0,0 +1,158 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.stream.Collectors;
+
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableRequest;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.AWSRequestMetricsFullSupport;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.metrics.dynamodb.service.ApiCallRecorder;
+import pl.wrzasq.lambda.metrics.dynamodb.service.MetricPublisher;
+
+@ExtendWith(MockitoExtension.class)
+public class ApiCallRecorderTest {
+    @Mock
+    private MetricPublisher publisher;
+
+    @Captor
+    private ArgumentCaptor<MetricDatum> datum;
+
+    @Test
+    public void collectMetrics() {
+        var recorder = new ApiCallRecorder();
+
+        var metrics = new AWSRequestMetricsFullSupport();
+        metrics.startEvent(AWSRequestMetrics.Field.ClientExecuteTime);
+        metrics.endEvent(AWSRequestMetrics.Field.ClientExecuteTime);
+        metrics.setCounter(AWSRequestMetrics.Field.RequestCount, 3);
+        metrics.incrementCounter(AWSRequestMetrics.Field.ThrottleException);
+        metrics.incrementCounter(AWSRequestMetrics.Field.ThrottleException);
+
+        var request = new DefaultRequest<>(new DescribeTableRequest(), "AmazonDynamoDBv2");
+        request.setAWSRequestMetrics(metrics);
+
+        recorder.collectMetrics(request, null);
+        recorder.publish(this.publisher);
+
+        Mockito
+            .verify(this.publisher, Mockito.times(7))
+            .add(this.datum.capture());
+
+        var values = this.datum.getAllValues()
+            .stream()
+            .peek(datum -> Assertions.assertEquals(
+                "DescribeTable",
+                datum.getDimensions().get(0).getValue(),
+                "ApiCallRecorder.publish() should set operation dimension."
+            ))
+            .collect(Collectors.toMap(MetricDatum::getMetricName, MetricDatum::getValue));
+
+        Assertions.assertEquals(
+            1,
+            values.get("ApiCalls"),
+            "ApiCallRecorder.collectMetrics() should count calls."
+        );
+        Assertions.assertEquals(
+            2,
+            values.get("ApiRetries"),
+            "ApiCallRecorder.collectMetrics() should count retried attempts."
+        );
+        Assertions.assertEquals(
+            2,
+            values.get("ApiThrottles"),
+            "ApiCallRecorder.collectMetrics() should count throttled attempts."
+        );
+        Assertions.assertTrue(
+            values.containsKey("ApiLatencyP99"),
+            "ApiCallRecorder.publish() should publish latency percentiles."
+        );
+    }
+
+    @Test
+    public void collectMetricsUnknownLatency() {
+        var recorder = new ApiCallRecorder();
+
+        // request timing is never ended
+        var request = new DefaultRequest<>(new DescribeTableRequest(), "AmazonDynamoDBv2");
+        request.setAWSRequestMetrics(new AWSRequestMetricsFullSupport());
+
+        recorder.collectMetrics(request, null);
+        recorder.publish(this.publisher);
+
+        Mockito.verifyNoInteractions(this.publisher);
+    }
+
+    @Test
+    public void publishReset() {
+        var recorder = new ApiCallRecorder();
+
+        recorder.record("PutMetricData", 10, 0, 0);
+        recorder.publish(this.publisher);
+        recorder.publish(this.publisher);
+
+        Mockito
+            .verify(this.publisher, Mockito.times(7).description("ApiCallRecorder.publish() should reset stats."))
+            .add(Mockito.any());
+    }
+
+    @Test
+    public void publishConcurrent() throws InterruptedException {
+        var recorder = new ApiCallRecorder();
+        var published = new DoubleAdder();
+        MetricPublisher publisher = new MetricPublisher() {
+            @Override
+            public void add(MetricDatum datum) {
+                if (datum.getMetricName().equals("ApiCalls")) {
+                    published.add(datum.getValue());
+                }
+            }
+
+            @Override
+            public void flush() {
+                // nothing to do
+            }
+        };
+
+        var threads = new ArrayList<Thread>();
+        for (var i = 0; i < 4; ++i) {
+            var thread = new Thread(() -> {
+                for (var j = 0; j < 20000; ++j) {
+                    recorder.record("DescribeTable", 10, 0, 0);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            recorder.publish(publisher);
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        recorder.publish(publisher);
+
+        Assertions.assertEquals(
+            80000,
+            published.sum(),
+            "ApiCallRecorder.publish() should not lose calls recorded while publishing."
+        );
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.wrzasq.lambda.metrics.dynamodb.service.ApiCallStats;
+
+public class ApiCallStatsTest {
+    @Test
+    public void record() {
+        var stats = new ApiCallStats();
+
+        for (var i = 1; i <= 100; ++i) {
+            stats.record(i, i % 10 == 0 ? 1 : 0, i == 100 ? 1 : 0);
+        }
+
+        Assertions.assertEquals(
+            100,
+            stats.getCount(),
+            "ApiCallStats.record() should count calls."
+        );
+        Assertions.assertEquals(
+            100,
+            stats.getMax(),
+            "ApiCallStats.record() should track maximum latency."
+        );
+        Assertions.assertEquals(
+            10,
+            stats.getRetries(),
+            "ApiCallStats.record() should sum retries."
+        );
+        Assertions.assertEquals(
+            1,
+            stats.getThrottles(),
+            "ApiCallStats.record() should sum throttles."
+        );
+        Assertions.assertEquals(
+            50,
+            stats.getPercentile(0.5),
+            5,
+            "ApiCallStats.getPercentile() should compute median within bucket precision."
+        );
+        Assertions.assertEquals(
+            99,
+            stats.getPercentile(0.99),
+            10,
+            "ApiCallStats.getPercentile() should compute high percentile within bucket precision."
+        );
+        Assertions.assertEquals(
+            100,
+            stats.getPercentile(1),
+            "ApiCallStats.getPercentile() should not exceed maximum latency."
+        );
+    }
+
+    @Test
+    public void getPercentileEmpty() {
+        Assertions.assertEquals(
+            0,
+            new ApiCallStats().getPercentile(0.5),
+            "ApiCallStats.getPercentile() should return 0 when no call was recorded."
+        );
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.metrics.dynamodb.model.PublishedMetric;
+import pl.wrzasq.lambda.metrics.dynamodb.service.ChangeSuppressingMetricPublisher;
+import pl.wrzasq.lambda.metrics.dynamodb.service.MetricPublisher;
+import pl.wrzasq.lambda.metrics.dynamodb.service.S3StateStore;
+
+@ExtendWith(MockitoExtension.class)
+public class ChangeSuppressingMetricPublisherTest {
+    private static final Instant NOW = Instant.ofEpochMilli(1600000000000L);
+
+    private static final Duration HEARTBEAT = Duration.ofHours(1);
+
+    private static final String KEY = "ItemCount:TableName=Orders";
+
+    @Mock
+    private MetricPublisher delegate;
+
+    @Mock
+    private S3StateStore<Map<String, PublishedMetric>> store;
+
+    @Test
+    public void addNew() {
+        var publisher = this.createPublisher(new HashMap<>());
+        var datum = ChangeSuppressingMetricPublisherTest.buildDatum(10);
+
+        publisher.add(datum);
+        publisher.flush();
+
+        Mockito.verify(this.delegate).add(datum);
+        Mockito.verify(this.delegate).flush();
+        Mockito.verify(this.store).save(
+            Map.of(
+                ChangeSuppressingMetricPublisherTest.KEY,
+                new PublishedMetric(10, ChangeSuppressingMetricPublisherTest.NOW.toEpochMilli())
+            )
+        );
+    }
+
+    @Test
+    public void addUnchanged() {
+        var publisher = this.createPublisher(
+            ChangeSuppressingMetricPublisherTest.buildState(10, Duration.ofMinutes(30))
+        );
+
+        publisher.add(ChangeSuppressingMetricPublisherTest.buildDatum(10));
+        publisher.flush();
+
+        Mockito
+            .verify(
+                this.delegate,
+                Mockito.never().description("ChangeSuppressingMetricPublisher.add() should skip unchanged value.")
+            )
+            .add(Mockito.any());
+        Mockito.verify(this.store, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    public void addChanged() {
+        var publisher = this.createPublisher(
+            ChangeSuppressingMetricPublisherTest.buildState(10, Duration.ofMinutes(30))
+        );
+        var datum = ChangeSuppressingMetricPublisherTest.buildDatum(11);
+
+        publisher.add(datum);
+        publisher.flush();
+
+        Mockito.verify(this.delegate).add(datum);
+    }
+
+    @Test
+    public void addHeartbeat() {
+        var publisher = this.createPublisher(
+            ChangeSuppressingMetricPublisherTest.buildState(10, Duration.ofMinutes(90))
+        );
+        var datum = ChangeSuppressingMetricPublisherTest.buildDatum(10);
+
+        publisher.add(datum);
+        publisher.flush();
+
+        Mockito.verify(this.delegate).add(datum);
+    }
+
+    @Test
+    public void inMemory() {
+        var publisher = new ChangeSuppressingMetricPublisher(
+            this.delegate,
+            null,
+            ChangeSuppressingMetricPublisherTest.HEARTBEAT,
+            Clock.fixed(ChangeSuppressingMetricPublisherTest.NOW, ZoneOffset.UTC)
+        );
+
+        publisher.add(ChangeSuppressingMetricPublisherTest.buildDatum(10));
+        publisher.flush();
+        publisher.add(ChangeSuppressingMetricPublisherTest.buildDatum(10));
+        publisher.flush();
+
+        Mockito
+            .verify(
+                this.delegate,
+                Mockito.times(1).description("ChangeSuppressingMetricPublisher.add() should remember published values.")
+            )
+            .add(Mockito.any());
+    }
+
+    @Test
+    public void flushFailed() {
+        var publisher = this.createPublisher(new HashMap<>());
+
+        Mockito
+            .doThrow(IllegalStateException.class)
+            .doNothing()
+            .when(this.delegate)
+            .flush();
+
+        publisher.add(ChangeSuppressingMetricPublisherTest.buildDatum(10));
+        try {
+            publisher.flush();
+        } catch (IllegalStateException error) {
+            // expected failure
+        }
+        publisher.add(ChangeSuppressingMetricPublisherTest.buildDatum(10));
+
+        Mockito
+            .verify(
+                this.delegate,
+                Mockito.times(2).description("ChangeSuppressingMetricPublisher.add() should retry unpublished value.")
+            )
+            .add(Mockito.any());
+    }
+
+    @Test
+    public void flushFailedNotRecorded() {
+        var publisher = this.createPublisher(new HashMap<>());
+
+        Mockito
+            .doThrow(IllegalStateException.class)
+            .doNothing()
+            .when(this.delegate)
+            .flush();
+
+        publisher.add(ChangeSuppressingMetricPublisherTest.buildDatum(10));
+        try {
+            publisher.flush();
+        } catch (IllegalStateException error) {
+            // expected failure
+        }
+        publisher.flush();
+
+        Mockito
+            .verify(
+                this.store,
+                Mockito.never().description(
+                    "ChangeSuppressingMetricPublisher.flush() should not record values of failed flush."
+                )
+            )
+            .save(Mockito.any());
+    }
+
+    private ChangeSuppressingMetricPublisher createPublisher(Map<String, PublishedMetric> state) {
+        Mockito
+            .when(this.store.load(Mockito.any()))
+            .thenReturn(state);
+
+        return new ChangeSuppressingMetricPublisher(
+            this.delegate,
+            this.store,
+            ChangeSuppressingMetricPublisherTest.HEARTBEAT,
+            Clock.fixed(ChangeSuppressingMetricPublisherTest.NOW, ZoneOffset.UTC)
+        );
+    }
+
+    private static Map<String, PublishedMetric> buildState(double value, Duration age) {
+        var state = new HashMap<String, PublishedMetric>();
+        state.put(
+            ChangeSuppressingMetricPublisherTest.KEY,
+            new PublishedMetric(value, ChangeSuppressingMetricPublisherTest.NOW.minus(age).toEpochMilli())
+        );
+        return state;
+    }
+
+    private static MetricDatum buildDatum(double value) {
+        return new MetricDatum()
+            .withMetricName("ItemCount")
+            .withValue(value)
+            .withDimensions(
+                new Dimension()
+                    .withName("TableName")
+                    .withValue("Orders")
+            );
+    }
+}
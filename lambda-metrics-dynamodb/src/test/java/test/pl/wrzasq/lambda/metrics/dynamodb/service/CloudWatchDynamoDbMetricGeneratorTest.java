@@ -7,11 +7,25 @@
 
 package test.pl.wrzasq.lambda.metrics.dynamodb.service;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
 import com.amazonaws.services.cloudwatch.model.PutMetricDataRequest;
 import com.amazonaws.services.cloudwatch.model.StandardUnit;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.BillingMode;
+import com.amazonaws.services.dynamodbv2.model.BillingModeSummary;
 import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.LocalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputDescription;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputOverride;
+import com.amazonaws.services.dynamodbv2.model.ReplicaDescription;
+import com.amazonaws.services.dynamodbv2.model.ReplicaStatus;
+import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -21,16 +35,35 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.metrics.dynamodb.model.MetricSource;
+import pl.wrzasq.lambda.metrics.dynamodb.model.TableGrowth;
+import pl.wrzasq.lambda.metrics.dynamodb.service.ApiCallRecorder;
 import pl.wrzasq.lambda.metrics.dynamodb.service.CloudWatchDynamoDbMetricGenerator;
+import pl.wrzasq.lambda.metrics.dynamodb.service.CloudWatchMetricPublisher;
+import pl.wrzasq.lambda.metrics.dynamodb.service.GrowthTracker;
+import pl.wrzasq.lambda.metrics.dynamodb.service.MetricPublisher;
+import pl.wrzasq.lambda.metrics.dynamodb.service.RateLimiter;
 
 @ExtendWith(MockitoExtension.class)
 public class CloudWatchDynamoDbMetricGeneratorTest {
     @Mock
     private AmazonDynamoDB dynamoDb;
 
+    @Mock
+    private AmazonDynamoDB remoteDynamoDb;
+
     @Mock
     private AmazonCloudWatch cloudWatch;
 
+    @Mock
+    private GrowthTracker growthTracker;
+
+    @Mock
+    private MetricPublisher publisher;
+
+    @Mock
+    private MetricPublisher apiCallPublisher;
+
     @Captor
     private ArgumentCaptor<PutMetricDataRequest> putMetricDataRequest;
 
@@ -44,8 +77,11 @@ public class CloudWatchDynamoDbMetricGeneratorTest {
 
         var metricGenerator = new CloudWatchDynamoDbMetricGenerator(
             this.dynamoDb,
-            this.cloudWatch,
-            namespace
+            new CloudWatchMetricPublisher(this.cloudWatch, namespace),
+            4,
+            new RateLimiter(1000),
+            null,
+            null
         );
 
         var table = new TableDescription()
@@ -59,23 +95,23 @@ public class CloudWatchDynamoDbMetricGeneratorTest {
         metricGenerator.generateMetrics(tableName);
 
         Mockito
-            .verify(this.cloudWatch, Mockito.times(2))
+            .verify(this.cloudWatch)
             .putMetricData(this.putMetricDataRequest.capture());
 
-        var requests = this.putMetricDataRequest.getAllValues();
+        var request = this.putMetricDataRequest.getValue();
 
         Assertions.assertEquals(
             namespace,
-            requests.get(0).getNamespace(),
+            request.getNamespace(),
             "CloudWatchDynamoDbMetricGenerator.generateMetrics() should put metrics in specified namespace."
         );
         Assertions.assertEquals(
-            namespace,
-            requests.get(1).getNamespace(),
-            "CloudWatchDynamoDbMetricGenerator.generateMetrics() should put metrics in specified namespace."
+            3,
+            request.getMetricData().size(),
+            "CloudWatchDynamoDbMetricGenerator.generateMetrics() should put all table metrics in single request."
         );
 
-        var metric = requests.get(0).getMetricData().get(0);
+        var metric = request.getMetricData().get(0);
 
         Assertions.assertEquals(
             itemCount,
@@ -103,7 +139,7 @@ public class CloudWatchDynamoDbMetricGeneratorTest {
             "CloudWatchDynamoDbMetricGenerator.generateMetrics() should set table name as dimension value."
         );
 
-        metric = requests.get(1).getMetricData().get(0);
+        metric = request.getMetricData().get(1);
 
         Assertions.assertEquals(
             tableSizeBytes,
@@ -131,4 +167,432 @@ public class CloudWatchDynamoDbMetricGeneratorTest {
             "CloudWatchDynamoDbMetricGenerator.generateMetrics() should set table name as dimension value."
         );
     }
+
+    @Test
+    public void generateMetricsMultiple() {
+        var metricGenerator = new CloudWatchDynamoDbMetricGenerator(
+            this.dynamoDb,
+            new CloudWatchMetricPublisher(this.cloudWatch, "Test/DynamoDB"),
+            2,
+            new RateLimiter(1000),
+            null,
+            null
+        );
+
+        var table = new TableDescription()
+            .withItemCount(1L)
+            .withTableSizeBytes(2L);
+
+        Mockito
+            .when(this.dynamoDb.describeTable(Mockito.anyString()))
+            .thenAnswer(invocation -> {
+                if ("Broken".equals(invocation.getArgument(0))) {
+                    throw new ResourceNotFoundException("Broken");
+                }
+                return new DescribeTableResult().withTable(table);
+            });
+
+        var error = Assertions.assertThrows(
+            IllegalStateException.class,
+            () -> metricGenerator.generateMetrics(List.of("Orders", "Broken", "Users")),
+            "CloudWatchDynamoDbMetricGenerator.generateMetrics() should report failed tables."
+        );
+
+        Assertions.assertTrue(
+            error.getCause() instanceof ResourceNotFoundException,
+            "CloudWatchDynamoDbMetricGenerator.generateMetrics() should expose table failure."
+        );
+
+        Mockito
+            .verify(this.cloudWatch)
+            .putMetricData(this.putMetricDataRequest.capture());
+
+        Assertions.assertEquals(
+            6,
+            this.putMetricDataRequest.getValue().getMetricData().size(),
+            "CloudWatchDynamoDbMetricGenerator.generateMetrics() should publish all described tables at once."
+        );
+    }
+
+    @Test
+    public void generateMetricsDetailed() {
+        var tableName = "Orders";
+
+        var metricGenerator = new CloudWatchDynamoDbMetricGenerator(
+            this.dynamoDb,
+            new CloudWatchMetricPublisher(this.cloudWatch, "Test/DynamoDB"),
+            4,
+            new RateLimiter(1000),
+            null,
+            null
+        );
+
+        var table = new TableDescription()
+            .withItemCount(10L)
+            .withTableSizeBytes(256L)
+            .withBillingModeSummary(new BillingModeSummary().withBillingMode(BillingMode.PROVISIONED))
+            .withProvisionedThroughput(
+                new ProvisionedThroughputDescription()
+                    .withReadCapacityUnits(5L)
+                    .withWriteCapacityUnits(3L)
+            )
+            .withGlobalSecondaryIndexes(
+                new GlobalSecondaryIndexDescription()
+                    .withIndexName("byCustomer")
+                    .withItemCount(8L)
+                    .withIndexSizeBytes(128L)
+                    .withProvisionedThroughput(
+                        new ProvisionedThroughputDescription()
+                            .withReadCapacityUnits(2L)
+                            .withWriteCapacityUnits(1L)
+                    )
+            )
+            .withLocalSecondaryIndexes(
+                new LocalSecondaryIndexDescription()
+                    .withIndexName("byDate")
+                    .withItemCount(10L)
+                    .withIndexSizeBytes(64L)
+            )
+            .withReplicas(
+                new ReplicaDescription()
+                    .withRegionName("eu-west-1")
+                    .withReplicaStatus(ReplicaStatus.ACTIVE)
+                    .withProvisionedThroughputOverride(
+                        new ProvisionedThroughputOverride()
+                            .withReadCapacityUnits(7L)
+                    ),
+                new ReplicaDescription()
+                    .withRegionName("us-west-2")
+                    .withReplicaStatus(ReplicaStatus.CREATING)
+            );
+
+        Mockito
+            .when(this.dynamoDb.describeTable(tableName))
+            .thenReturn(new DescribeTableResult().withTable(table));
+
+        metricGenerator.generateMetrics(tableName);
+
+        Mockito
+            .verify(this.cloudWatch)
+            .putMetricData(this.putMetricDataRequest.capture());
+
+        var metrics = this.putMetricDataRequest.getValue().getMetricData();
+
+        Assertions.assertEquals(
+            17,
+            metrics.size(),
+            "CloudWatchDynamoDbMetricGenerator.generateMetrics() should generate metrics for all table components."
+        );
+        CloudWatchDynamoDbMetricGeneratorTest.assertMetric(
+            metrics,
+            "OnDemand",
+            List.of(tableName),
+            0
+        );
+        CloudWatchDynamoDbMetricGeneratorTest.assertMetric(
+            metrics,
+            "ProvisionedWriteCapacityUnits",
+            List.of(tableName),
+            3
+        );
+        CloudWatchDynamoDbMetricGeneratorTest.assertMetric(
+            metrics,
+            "IndexSizeBytes",
+            List.of(tableName, "byCustomer"),
+            128
+        );
+        CloudWatchDynamoDbMetricGeneratorTest.assertMetric(
+            metrics,
+            "ProvisionedReadCapacityUnits",
+            List.of(tableName, "byCustomer"),
+            2
+        );
+        CloudWatchDynamoDbMetricGeneratorTest.assertMetric(
+            metrics,
+            "IndexSizeBytes",
+            List.of(tableName, "byDate"),
+            64
+        );
+        CloudWatchDynamoDbMetricGeneratorTest.assertMetric(
+            metrics,
+            "ProvisionedReadCapacityUnits",
+            List.of(tableName, "eu-west-1"),
+            7
+        );
+        CloudWatchDynamoDbMetricGeneratorTest.assertMetric(
+            metrics,
+            "ProvisionedReadCapacityUnits",
+            List.of(tableName, "us-west-2"),
+            5
+        );
+        CloudWatchDynamoDbMetricGeneratorTest.assertMetric(
+            metrics,
+            "ProvisionedWriteCapacityUnits",
+            List.of(tableName, "eu-west-1"),
+            3
+        );
+        CloudWatchDynamoDbMetricGeneratorTest.assertMetric(
+            metrics,
+            "ReplicaActive",
+            List.of(tableName, "us-west-2"),
+            0
+        );
+    }
+
+    @Test
+    public void generateMetricsReplicaWithoutThroughput() {
+        var tableName = "Orders";
+
+        var metricGenerator = new CloudWatchDynamoDbMetricGenerator(
+            this.dynamoDb,
+            new CloudWatchMetricPublisher(this.cloudWatch, "Test/DynamoDB"),
+            4,
+            new RateLimiter(1000),
+            null,
+            null
+        );
+
+        var table = new TableDescription()
+            .withItemCount(10L)
+            .withTableSizeBytes(256L)
+            .withBillingModeSummary(new BillingModeSummary().withBillingMode(BillingMode.PROVISIONED))
+            .withReplicas(
+                new ReplicaDescription()
+                    .withRegionName("eu-west-1")
+                    .withReplicaStatus(ReplicaStatus.ACTIVE)
+                    .withProvisionedThroughputOverride(
+                        new ProvisionedThroughputOverride()
+                            .withReadCapacityUnits(7L)
+                    ),
+                new ReplicaDescription()
+                    .withRegionName("us-west-2")
+                    .withReplicaStatus(ReplicaStatus.ACTIVE)
+            );
+
+        Mockito
+            .when(this.dynamoDb.describeTable(tableName))
+            .thenReturn(new DescribeTableResult().withTable(table));
+
+        metricGenerator.generateMetrics(tableName);
+
+        Mockito
+            .verify(this.cloudWatch)
+            .putMetricData(this.putMetricDataRequest.capture());
+
+        var metrics = this.putMetricDataRequest.getValue().getMetricData();
+
+        Assertions.assertEquals(
+            6,
+            metrics.size(),
+            "CloudWatchDynamoDbMetricGenerator.generateMetrics() should skip capacity metrics that are not known."
+        );
+        CloudWatchDynamoDbMetricGeneratorTest.assertMetric(
+            metrics,
+            "ProvisionedReadCapacityUnits",
+            List.of(tableName, "eu-west-1"),
+            7
+        );
+    }
+
+    private static void assertMetric(
+        List<MetricDatum> metrics,
+        String metricName,
+        List<String> dimensions,
+        double value
+    ) {
+        var metric = metrics.stream()
+            .filter(datum -> datum.getMetricName().equals(metricName))
+            .filter(
+                datum -> datum.getDimensions()
+                    .stream()
+                    .map(Dimension::getValue)
+                    .collect(Collectors.toList())
+                    .equals(dimensions)
+            )
+            .findFirst();
+
+        Assertions.assertTrue(
+            metric.isPresent(),
+            "CloudWatchDynamoDbMetricGenerator.generateMetrics() should generate metric with given dimensions."
+        );
+        Assertions.assertEquals(
+            value,
+            metric.get().getValue(),
+            "CloudWatchDynamoDbMetricGenerator.generateMetrics() should set metric value."
+        );
+    }
+
+    @Test
+    public void generateMetricsGrowth() {
+        var tableName = "Orders";
+
+        var metricGenerator = new CloudWatchDynamoDbMetricGenerator(
+            this.dynamoDb,
+            new CloudWatchMetricPublisher(this.cloudWatch, "Test/DynamoDB"),
+            4,
+            new RateLimiter(1000),
+            this.growthTracker,
+            null
+        );
+
+        var growth = new TableGrowth();
+        growth.setItemsPerHour(2.0);
+        growth.setBytesPerHour(20.0);
+
+        Mockito
+            .when(this.dynamoDb.describeTable(tableName))
+            .thenReturn(
+                new DescribeTableResult()
+                    .withTable(
+                        new TableDescription()
+                            .withItemCount(10L)
+                            .withTableSizeBytes(256L)
+                    )
+            );
+        Mockito
+            .when(this.growthTracker.track(tableName, 10, 256))
+            .thenReturn(growth);
+
+        metricGenerator.generateMetrics(tableName);
+
+        Mockito
+            .verify(this.cloudWatch)
+            .putMetricData(this.putMetricDataRequest.capture());
+        Mockito.verify(this.growthTracker).save();
+
+        var metrics = this.putMetricDataRequest.getValue().getMetricData();
+
+        Assertions.assertEquals(
+            6,
+            metrics.size(),
+            "CloudWatchDynamoDbMetricGenerator.generateMetrics() should skip unavailable derived metrics."
+        );
+        CloudWatchDynamoDbMetricGeneratorTest.assertMetric(
+            metrics,
+            "AverageItemSize",
+            List.of(tableName),
+            25.6
+        );
+        CloudWatchDynamoDbMetricGeneratorTest.assertMetric(
+            metrics,
+            "BytesPerHour",
+            List.of(tableName),
+            20
+        );
+    }
+
+    @Test
+    public void generateMetricsFor() {
+        var metricGenerator = new CloudWatchDynamoDbMetricGenerator(
+            this.dynamoDb,
+            new CloudWatchMetricPublisher(this.cloudWatch, "Test/DynamoDB"),
+            4,
+            new RateLimiter(1000),
+            this.growthTracker,
+            null
+        );
+
+        Mockito
+            .when(this.remoteDynamoDb.describeTable("Orders"))
+            .thenReturn(
+                new DescribeTableResult()
+                    .withTable(
+                        new TableDescription()
+                            .withItemCount(10L)
+                            .withTableSizeBytes(256L)
+                    )
+            );
+        Mockito
+            .when(this.growthTracker.track("Orders:123456789012", 10, 256))
+            .thenReturn(new TableGrowth());
+
+        metricGenerator.generateMetricsFor(
+            List.of(
+                new MetricSource(
+                    this.remoteDynamoDb,
+                    List.of("Orders"),
+                    List.of(new Dimension().withName("AccountId").withValue("123456789012"))
+                )
+            )
+        );
+
+        Mockito
+            .verify(this.cloudWatch)
+            .putMetricData(this.putMetricDataRequest.capture());
+        Mockito.verifyNoInteractions(this.dynamoDb);
+
+        CloudWatchDynamoDbMetricGeneratorTest.assertMetric(
+            this.putMetricDataRequest.getValue().getMetricData(),
+            "ItemCount",
+            List.of("Orders", "123456789012"),
+            10
+        );
+    }
+
+    @Test
+    public void generateMetricsInstrumented() {
+        var apiCallRecorder = new ApiCallRecorder();
+        var metricGenerator = new CloudWatchDynamoDbMetricGenerator(
+            this.dynamoDb,
+            new CloudWatchMetricPublisher(this.cloudWatch, "Test/DynamoDB"),
+            4,
+            new RateLimiter(1000),
+            null,
+            apiCallRecorder
+        );
+
+        Mockito
+            .when(this.dynamoDb.describeTable("Orders"))
+            .thenAnswer(invocation -> {
+                apiCallRecorder.record("DescribeTable", 12, 1, 1);
+                return new DescribeTableResult().withTable(new TableDescription().withItemCount(10L));
+            });
+
+        metricGenerator.generateMetrics("Orders");
+
+        Mockito
+            .verify(this.cloudWatch)
+            .putMetricData(this.putMetricDataRequest.capture());
+
+        var metrics = this.putMetricDataRequest.getValue().getMetricData();
+
+        CloudWatchDynamoDbMetricGeneratorTest.assertMetric(metrics, "ItemCount", List.of("Orders"), 10);
+        CloudWatchDynamoDbMetricGeneratorTest.assertMetric(metrics, "ApiCalls", List.of("DescribeTable"), 1);
+        CloudWatchDynamoDbMetricGeneratorTest.assertMetric(metrics, "ApiThrottles", List.of("DescribeTable"), 1);
+    }
+
+    @Test
+    public void generateMetricsInstrumentedSeparateOutput() {
+        var apiCallRecorder = new ApiCallRecorder();
+        var metricGenerator = new CloudWatchDynamoDbMetricGenerator(
+            this.dynamoDb,
+            this.publisher,
+            4,
+            new RateLimiter(1000),
+            null,
+            apiCallRecorder,
+            this.apiCallPublisher
+        );
+
+        Mockito
+            .when(this.dynamoDb.describeTable("Orders"))
+            .thenAnswer(invocation -> {
+                apiCallRecorder.record("DescribeTable", 12, 0, 0);
+                return new DescribeTableResult().withTable(new TableDescription().withItemCount(10L));
+            });
+
+        metricGenerator.generateMetrics("Orders");
+
+        Mockito
+            .verify(this.publisher, Mockito.never().description(
+                "CloudWatchDynamoDbMetricGenerator.generateMetrics() should not send self-metrics to tables output."
+            ))
+            .add(Mockito.argThat(datum -> datum.getMetricName().startsWith("Api")));
+        Mockito
+            .verify(this.apiCallPublisher, Mockito.atLeastOnce().description(
+                "CloudWatchDynamoDbMetricGenerator.generateMetrics() should send self-metrics to dedicated output."
+            ))
+            .add(Mockito.argThat(datum -> datum.getMetricName().equals("ApiCalls")));
+        Mockito.verify(this.publisher).flush();
+    }
 }
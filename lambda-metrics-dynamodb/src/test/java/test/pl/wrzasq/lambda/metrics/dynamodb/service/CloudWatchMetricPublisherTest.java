@@ -0,0 +1,241 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
+import com.amazonaws.services.cloudwatch.model.AmazonCloudWatchException;
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.amazonaws.services.cloudwatch.model.PutMetricDataRequest;
+import com.amazonaws.services.cloudwatch.model.PutMetricDataResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.metrics.dynamodb.service.CloudWatchMetricPublisher;
+
+@ExtendWith(MockitoExtension.class)
+public class CloudWatchMetricPublisherTest {
+    private static final String NAMESPACE = "Test/DynamoDB";
+
+    @Mock
+    private AmazonCloudWatch cloudWatch;
+
+    @Captor
+    private ArgumentCaptor<PutMetricDataRequest> putMetricDataRequest;
+
+    @Test
+    public void flushByCount() {
+        var publisher = new CloudWatchMetricPublisher(this.cloudWatch, CloudWatchMetricPublisherTest.NAMESPACE);
+
+        for (var i = 0; i < 2500; ++i) {
+            publisher.add(CloudWatchMetricPublisherTest.buildDatum("table" + i));
+        }
+        publisher.flush();
+
+        Mockito
+            .verify(this.cloudWatch, Mockito.times(3))
+            .putMetricData(this.putMetricDataRequest.capture());
+
+        var requests = this.putMetricDataRequest.getAllValues();
+
+        Assertions.assertEquals(
+            1000,
+            requests.get(0).getMetricData().size(),
+            "CloudWatchMetricPublisher.flush() should fill request up to maximum number of datums."
+        );
+        Assertions.assertEquals(
+            1000,
+            requests.get(1).getMetricData().size(),
+            "CloudWatchMetricPublisher.flush() should fill request up to maximum number of datums."
+        );
+        Assertions.assertEquals(
+            500,
+            requests.get(2).getMetricData().size(),
+            "CloudWatchMetricPublisher.flush() should send remaining datums in last request."
+        );
+        Assertions.assertEquals(
+            CloudWatchMetricPublisherTest.NAMESPACE,
+            requests.get(2).getNamespace(),
+            "CloudWatchMetricPublisher.flush() should put metrics in specified namespace."
+        );
+    }
+
+    @Test
+    public void flushBySize() {
+        var publisher = new CloudWatchMetricPublisher(this.cloudWatch, CloudWatchMetricPublisherTest.NAMESPACE);
+
+        var name = "x".repeat(255);
+        for (var i = 0; i < 1000; ++i) {
+            publisher.add(CloudWatchMetricPublisherTest.buildDatum(name));
+        }
+        publisher.flush();
+
+        Mockito
+            .verify(this.cloudWatch, Mockito.atLeast(2))
+            .putMetricData(this.putMetricDataRequest.capture());
+
+        Assertions.assertEquals(
+            1000,
+            this.putMetricDataRequest.getAllValues()
+                .stream()
+                .mapToInt(request -> request.getMetricData().size())
+                .sum(),
+            "CloudWatchMetricPublisher.flush() should split large payload into multiple requests."
+        );
+    }
+
+    @Test
+    public void flushEmpty() {
+        var publisher = new CloudWatchMetricPublisher(this.cloudWatch, CloudWatchMetricPublisherTest.NAMESPACE);
+
+        publisher.flush();
+
+        Mockito.verifyNoInteractions(this.cloudWatch);
+    }
+
+    @Test
+    public void flushClearsBuffer() {
+        var publisher = new CloudWatchMetricPublisher(this.cloudWatch, CloudWatchMetricPublisherTest.NAMESPACE);
+
+        publisher.add(CloudWatchMetricPublisherTest.buildDatum("test"));
+        publisher.flush();
+        publisher.flush();
+
+        Mockito.verify(this.cloudWatch).putMetricData(Mockito.any(PutMetricDataRequest.class));
+    }
+
+    @Test
+    public void flushPartialFailure() {
+        var publisher = new CloudWatchMetricPublisher(this.cloudWatch, CloudWatchMetricPublisherTest.NAMESPACE);
+
+        Mockito.when(this.cloudWatch.putMetricData(Mockito.any(PutMetricDataRequest.class)))
+            .thenReturn(new PutMetricDataResult())
+            .thenThrow(AmazonCloudWatchException.class)
+            .thenThrow(AmazonCloudWatchException.class)
+            .thenReturn(new PutMetricDataResult());
+
+        for (var i = 0; i < 2500; ++i) {
+            publisher.add(CloudWatchMetricPublisherTest.buildDatum("table" + i));
+        }
+
+        Assertions.assertThrows(
+            AmazonCloudWatchException.class,
+            publisher::flush,
+            "CloudWatchMetricPublisher.flush() should propagate publishing failure."
+        );
+        publisher.flush();
+
+        Mockito
+            .verify(this.cloudWatch, Mockito.times(5))
+            .putMetricData(this.putMetricDataRequest.capture());
+
+        var requests = this.putMetricDataRequest.getAllValues();
+
+        Assertions.assertEquals(
+            "table1000",
+            requests.get(3).getMetricData().get(0).getDimensions().get(0).getValue(),
+            "CloudWatchMetricPublisher.flush() should retry only metrics that were not published."
+        );
+        Assertions.assertEquals(
+            500,
+            requests.get(4).getMetricData().size(),
+            "CloudWatchMetricPublisher.flush() should not re-send already published batches."
+        );
+    }
+
+    @Test
+    public void addLarge() {
+        var publisher = new CloudWatchMetricPublisher(this.cloudWatch, CloudWatchMetricPublisherTest.NAMESPACE);
+
+        for (var i = 0; i < 25000; ++i) {
+            publisher.add(CloudWatchMetricPublisherTest.buildDatum("table" + i));
+        }
+
+        Mockito
+            .verify(
+                this.cloudWatch,
+                Mockito.times(25).description("CloudWatchMetricPublisher.add() should send complete batches early.")
+            )
+            .putMetricData(Mockito.any(PutMetricDataRequest.class));
+
+        publisher.add(CloudWatchMetricPublisherTest.buildDatum("last"));
+        publisher.flush();
+
+        Mockito
+            .verify(this.cloudWatch, Mockito.times(26))
+            .putMetricData(this.putMetricDataRequest.capture());
+
+        var requests = this.putMetricDataRequest.getAllValues();
+
+        Assertions.assertEquals(
+            25001,
+            requests.stream().mapToInt(request -> request.getMetricData().size()).sum(),
+            "CloudWatchMetricPublisher should not drop any metrics when output is available."
+        );
+        Assertions.assertEquals(
+            "table0",
+            requests.get(0).getMetricData().get(0).getDimensions().get(0).getValue(),
+            "CloudWatchMetricPublisher should send metrics in order."
+        );
+    }
+
+    @Test
+    public void flushOverflow() {
+        var publisher = new CloudWatchMetricPublisher(this.cloudWatch, CloudWatchMetricPublisherTest.NAMESPACE);
+
+        Mockito.when(this.cloudWatch.putMetricData(Mockito.any(PutMetricDataRequest.class)))
+            .thenThrow(AmazonCloudWatchException.class)
+            .thenThrow(AmazonCloudWatchException.class)
+            .thenReturn(new PutMetricDataResult());
+
+        for (var i = 0; i < 12000; ++i) {
+            publisher.add(CloudWatchMetricPublisherTest.buildDatum("table" + i));
+        }
+
+        Assertions.assertThrows(
+            AmazonCloudWatchException.class,
+            publisher::flush,
+            "CloudWatchMetricPublisher.flush() should propagate publishing failure."
+        );
+        publisher.flush();
+
+        // first failure comes from early batch, no more attempts are made until flush
+        Mockito
+            .verify(this.cloudWatch, Mockito.times(12))
+            .putMetricData(this.putMetricDataRequest.capture());
+
+        var requests = this.putMetricDataRequest.getAllValues().subList(2, 12);
+
+        Assertions.assertEquals(
+            10000,
+            requests.stream().mapToInt(request -> request.getMetricData().size()).sum(),
+            "CloudWatchMetricPublisher.flush() should limit metrics kept after failure."
+        );
+        Assertions.assertEquals(
+            "table2000",
+            requests.get(0).getMetricData().get(0).getDimensions().get(0).getValue(),
+            "CloudWatchMetricPublisher.flush() should drop oldest metrics kept after failure."
+        );
+    }
+
+    private static MetricDatum buildDatum(String tableName) {
+        return new MetricDatum()
+            .withMetricName("ItemCount")
+            .withValue(1.0)
+            .withDimensions(
+                new Dimension()
+                    .withName("TableName")
+                    .withValue(tableName)
+            );
+    }
+}
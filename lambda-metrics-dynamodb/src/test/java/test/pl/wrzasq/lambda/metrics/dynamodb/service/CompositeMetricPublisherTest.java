@@ -0,0 +1,64 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.util.List;
+
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.metrics.dynamodb.service.CompositeMetricPublisher;
+import pl.wrzasq.lambda.metrics.dynamodb.service.MetricPublisher;
+
+@ExtendWith(MockitoExtension.class)
+public class CompositeMetricPublisherTest {
+    @Mock
+    private MetricPublisher first;
+
+    @Mock
+    private MetricPublisher second;
+
+    @Test
+    public void add() {
+        var publisher = new CompositeMetricPublisher(List.of(this.first, this.second));
+        var datum = new MetricDatum();
+
+        publisher.add(datum);
+
+        Mockito.verify(this.first).add(datum);
+        Mockito.verify(this.second).add(datum);
+    }
+
+    @Test
+    public void flush() {
+        var publisher = new CompositeMetricPublisher(List.of(this.first, this.second));
+        var error = new IllegalStateException();
+
+        Mockito
+            .doThrow(error)
+            .when(this.first)
+            .flush();
+
+        var thrown = Assertions.assertThrows(
+            IllegalStateException.class,
+            publisher::flush,
+            "CompositeMetricPublisher.flush() should report failed output."
+        );
+
+        Assertions.assertSame(
+            error,
+            thrown.getCause(),
+            "CompositeMetricPublisher.flush() should expose output error as a cause."
+        );
+        Mockito.verify(this.second).flush();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.securitytoken.AWSSecurityTokenService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.metrics.dynamodb.service.DynamoDbClientProvider;
+
+@ExtendWith(MockitoExtension.class)
+public class DynamoDbClientProviderTest {
+    private static final String ROLE_ARN = "arn:aws:iam::123456789012:role/metrics";
+
+    @Mock
+    private AmazonDynamoDB defaultClient;
+
+    @Mock
+    private AWSSecurityTokenService sts;
+
+    @Test
+    public void getClientDefault() {
+        var provider = new DynamoDbClientProvider(this.defaultClient, this.sts, null);
+
+        Assertions.assertSame(
+            this.defaultClient,
+            provider.getClient(),
+            "DynamoDbClientProvider.getClient() should return client for current location."
+        );
+        Assertions.assertSame(
+            this.defaultClient,
+            provider.getClient(null, null),
+            "DynamoDbClientProvider.getClient() should return client for current location if no target is given."
+        );
+    }
+
+    @Test
+    public void getClientCached() {
+        var provider = new DynamoDbClientProvider(this.defaultClient, this.sts, null);
+
+        var client = provider.getClient(DynamoDbClientProviderTest.ROLE_ARN, "eu-west-1");
+
+        Assertions.assertSame(
+            client,
+            provider.getClient(DynamoDbClientProviderTest.ROLE_ARN, "eu-west-1"),
+            "DynamoDbClientProvider.getClient() should re-use client for the same location."
+        );
+        Assertions.assertNotSame(
+            client,
+            provider.getClient(DynamoDbClientProviderTest.ROLE_ARN, "us-east-1"),
+            "DynamoDbClientProvider.getClient() should create separate client for each region."
+        );
+
+        // credentials are assumed lazily, on first request
+        Mockito.verifyNoInteractions(this.sts);
+    }
+}
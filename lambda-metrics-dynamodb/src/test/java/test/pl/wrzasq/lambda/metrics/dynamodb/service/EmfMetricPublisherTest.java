@@ -0,0 +1,128 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.wrzasq.lambda.metrics.dynamodb.service.EmfMetricPublisher;
+
+public class EmfMetricPublisherTest {
+    private static final String NAMESPACE = "Test/DynamoDB";
+
+    private static final Instant NOW = Instant.ofEpochMilli(1600000000000L);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void flush() throws IOException {
+        var buffer = new ByteArrayOutputStream();
+        var publisher = this.createPublisher(buffer);
+
+        publisher.add(EmfMetricPublisherTest.buildDatum("Orders", "ItemCount", 10, StandardUnit.None));
+        publisher.add(EmfMetricPublisherTest.buildDatum("Orders", "TableSizeBytes", 256, StandardUnit.Bytes));
+        publisher.add(EmfMetricPublisherTest.buildDatum("Users", "ItemCount", 5, StandardUnit.None));
+        publisher.flush();
+
+        var lines = buffer.toString(StandardCharsets.UTF_8).split("\n");
+
+        Assertions.assertEquals(
+            2,
+            lines.length,
+            "EmfMetricPublisher.flush() should group metrics with the same dimensions in single document."
+        );
+
+        var document = this.objectMapper.readTree(lines[0]);
+        var directive = document.get("_aws").get("CloudWatchMetrics").get(0);
+
+        Assertions.assertEquals(
+            EmfMetricPublisherTest.NOW.toEpochMilli(),
+            document.get("_aws").get("Timestamp").asLong(),
+            "EmfMetricPublisher.flush() should set metrics timestamp."
+        );
+        Assertions.assertEquals(
+            EmfMetricPublisherTest.NAMESPACE,
+            directive.get("Namespace").asText(),
+            "EmfMetricPublisher.flush() should put metrics in specified namespace."
+        );
+        Assertions.assertEquals(
+            "TableName",
+            directive.get("Dimensions").get(0).get(0).asText(),
+            "EmfMetricPublisher.flush() should declare dimensions."
+        );
+        Assertions.assertEquals(
+            "Orders",
+            document.get("TableName").asText(),
+            "EmfMetricPublisher.flush() should set dimension value."
+        );
+        Assertions.assertEquals(
+            "Bytes",
+            directive.get("Metrics").get(1).get("Unit").asText(),
+            "EmfMetricPublisher.flush() should declare metric unit."
+        );
+        Assertions.assertEquals(
+            256,
+            document.get("TableSizeBytes").asDouble(),
+            "EmfMetricPublisher.flush() should set metric value."
+        );
+        Assertions.assertEquals(
+            "Users",
+            this.objectMapper.readTree(lines[1]).get("TableName").asText(),
+            "EmfMetricPublisher.flush() should write separate document for different dimensions."
+        );
+    }
+
+    @Test
+    public void flushDuplicateMetric() {
+        var buffer = new ByteArrayOutputStream();
+        var publisher = this.createPublisher(buffer);
+
+        publisher.add(EmfMetricPublisherTest.buildDatum("Orders", "ItemCount", 10, StandardUnit.None));
+        publisher.add(EmfMetricPublisherTest.buildDatum("Orders", "ItemCount", 11, StandardUnit.None));
+        publisher.flush();
+        publisher.flush();
+
+        Assertions.assertEquals(
+            2,
+            buffer.toString(StandardCharsets.UTF_8).split("\n").length,
+            "EmfMetricPublisher.flush() should write repeated metric in separate document."
+        );
+    }
+
+    private EmfMetricPublisher createPublisher(ByteArrayOutputStream buffer) {
+        return new EmfMetricPublisher(
+            this.objectMapper,
+            new PrintStream(buffer, true, StandardCharsets.UTF_8),
+            EmfMetricPublisherTest.NAMESPACE,
+            Clock.fixed(EmfMetricPublisherTest.NOW, ZoneOffset.UTC)
+        );
+    }
+
+    private static MetricDatum buildDatum(String tableName, String metricName, double value, StandardUnit unit) {
+        return new MetricDatum()
+            .withMetricName(metricName)
+            .withValue(value)
+            .withUnit(unit)
+            .withDimensions(
+                new Dimension()
+                    .withName("TableName")
+                    .withValue(tableName)
+            );
+    }
+}
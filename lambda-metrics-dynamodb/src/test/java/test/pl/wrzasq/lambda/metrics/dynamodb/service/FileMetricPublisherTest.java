@@ -0,0 +1,95 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.amazonaws.services.cloudwatch.model.StandardUnit;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.wrzasq.lambda.metrics.dynamodb.service.FileMetricPublisher;
+
+public class FileMetricPublisherTest {
+    private static final Instant NOW = Instant.ofEpochMilli(1600000000000L);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void flush() throws IOException {
+        var buffer = new ByteArrayOutputStream();
+        var publisher = new FileMetricPublisher(
+            this.objectMapper,
+            new PrintStream(buffer, false, StandardCharsets.UTF_8),
+            Clock.fixed(FileMetricPublisherTest.NOW, ZoneOffset.UTC)
+        );
+
+        publisher.add(
+            new MetricDatum()
+                .withMetricName("TableSizeBytes")
+                .withValue(256.0)
+                .withUnit(StandardUnit.Bytes)
+                .withDimensions(
+                    new Dimension()
+                        .withName("TableName")
+                        .withValue("Orders")
+                )
+        );
+        publisher.add(
+            new MetricDatum()
+                .withMetricName("ItemCount")
+                .withValue(10.0)
+        );
+        publisher.flush();
+        publisher.flush();
+
+        var lines = buffer.toString(StandardCharsets.UTF_8).split("\n");
+
+        Assertions.assertEquals(
+            2,
+            lines.length,
+            "FileMetricPublisher.flush() should write each buffered metric once."
+        );
+
+        var line = this.objectMapper.readTree(lines[0]);
+
+        Assertions.assertEquals(
+            FileMetricPublisherTest.NOW.toEpochMilli(),
+            line.get("timestamp").asLong(),
+            "FileMetricPublisher.flush() should set metric timestamp."
+        );
+        Assertions.assertEquals(
+            "TableSizeBytes",
+            line.get("name").asText(),
+            "FileMetricPublisher.flush() should set metric name."
+        );
+        Assertions.assertEquals(
+            256,
+            line.get("value").asDouble(),
+            "FileMetricPublisher.flush() should set metric value."
+        );
+        Assertions.assertEquals(
+            "Bytes",
+            line.get("unit").asText(),
+            "FileMetricPublisher.flush() should set metric unit."
+        );
+        Assertions.assertEquals(
+            "Orders",
+            line.get("dimensions").get("TableName").asText(),
+            "FileMetricPublisher.flush() should set dimensions."
+        );
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.metrics.dynamodb.model.TableSample;
+import pl.wrzasq.lambda.metrics.dynamodb.service.GrowthTracker;
+import pl.wrzasq.lambda.metrics.dynamodb.service.S3StateStore;
+
+@ExtendWith(MockitoExtension.class)
+public class GrowthTrackerTest {
+    private static final String TABLE_NAME = "Orders";
+
+    private static final Instant NOW = Instant.ofEpochMilli(1600000000000L);
+
+    private static final Duration INTERVAL = Duration.ofHours(6);
+
+    @Mock
+    private S3StateStore<Map<String, List<TableSample>>> store;
+
+    @Test
+    public void trackFirstSample() {
+        var tracker = new GrowthTracker(
+            null,
+            3,
+            GrowthTrackerTest.INTERVAL,
+            null,
+            Clock.fixed(GrowthTrackerTest.NOW, ZoneOffset.UTC)
+        );
+
+        var growth = tracker.track(GrowthTrackerTest.TABLE_NAME, 10, 100);
+
+        Assertions.assertNull(
+            growth.getItemsPerHour(),
+            "GrowthTracker.track() should not compute rate without history."
+        );
+    }
+
+    @Test
+    public void track() {
+        var state = GrowthTrackerTest.buildState(
+            new TableSample(GrowthTrackerTest.NOW.minus(Duration.ofHours(20)).toEpochMilli(), 0, 0),
+            new TableSample(GrowthTrackerTest.NOW.minus(Duration.ofHours(10)).toEpochMilli(), 50, 500)
+        );
+        Mockito
+            .when(this.store.load(Mockito.any()))
+            .thenReturn(state);
+
+        var tracker = new GrowthTracker(
+            this.store,
+            2,
+            GrowthTrackerTest.INTERVAL,
+            5300L,
+            Clock.fixed(GrowthTrackerTest.NOW, ZoneOffset.UTC)
+        );
+
+        var growth = tracker.track(GrowthTrackerTest.TABLE_NAME, 100, 1000);
+        tracker.save();
+
+        Assertions.assertEquals(
+            5,
+            growth.getItemsPerHour(),
+            "GrowthTracker.track() should compute items growth rate since oldest sample in the buffer."
+        );
+        Assertions.assertEquals(
+            50,
+            growth.getBytesPerHour(),
+            "GrowthTracker.track() should compute size growth rate since oldest sample in the buffer."
+        );
+        Assertions.assertEquals(
+            3.5833,
+            growth.getDaysUntilThreshold(),
+            0.0001,
+            "GrowthTracker.track() should project time until size threshold."
+        );
+        Assertions.assertEquals(
+            2,
+            state.get(GrowthTrackerTest.TABLE_NAME).size(),
+            "GrowthTracker.track() should keep bounded number of samples."
+        );
+        Mockito.verify(this.store).save(state);
+    }
+
+    @Test
+    public void trackUnchanged() {
+        var sample = new TableSample(GrowthTrackerTest.NOW.minus(Duration.ofHours(1)).toEpochMilli(), 10, 100);
+        var state = GrowthTrackerTest.buildState(
+            new TableSample(GrowthTrackerTest.NOW.minus(Duration.ofHours(2)).toEpochMilli(), 0, 0),
+            sample
+        );
+        Mockito
+            .when(this.store.load(Mockito.any()))
+            .thenReturn(state);
+
+        var tracker = new GrowthTracker(
+            this.store,
+            5,
+            GrowthTrackerTest.INTERVAL,
+            null,
+            Clock.fixed(GrowthTrackerTest.NOW, ZoneOffset.UTC)
+        );
+
+        var growth = tracker.track(GrowthTrackerTest.TABLE_NAME, 10, 100);
+
+        Assertions.assertEquals(
+            sample,
+            state.get(GrowthTrackerTest.TABLE_NAME).get(1),
+            "GrowthTracker.track() should not record unchanged sample within sampling interval."
+        );
+        Assertions.assertEquals(
+            5,
+            growth.getItemsPerHour(),
+            "GrowthTracker.track() should compute rate up to current time."
+        );
+        Assertions.assertNull(
+            growth.getDaysUntilThreshold(),
+            "GrowthTracker.track() should not project without threshold."
+        );
+    }
+
+    @Test
+    public void invalidCapacity() {
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> new GrowthTracker(null, 1, GrowthTrackerTest.INTERVAL, null, Clock.systemUTC()),
+            "GrowthTracker() should require at least two samples."
+        );
+    }
+
+    private static Map<String, List<TableSample>> buildState(TableSample... samples) {
+        var state = new HashMap<String, List<TableSample>>();
+        state.put(GrowthTrackerTest.TABLE_NAME, new ArrayList<>(List.of(samples)));
+        return state;
+    }
+}
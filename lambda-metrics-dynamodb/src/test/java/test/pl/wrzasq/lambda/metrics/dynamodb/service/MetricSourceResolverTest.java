@@ -0,0 +1,105 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.util.List;
+
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.metrics.dynamodb.model.CollectorTarget;
+import pl.wrzasq.lambda.metrics.dynamodb.model.MetricSource;
+import pl.wrzasq.lambda.metrics.dynamodb.model.TableMetricRequest;
+import pl.wrzasq.lambda.metrics.dynamodb.service.DynamoDbClientProvider;
+import pl.wrzasq.lambda.metrics.dynamodb.service.MetricSourceResolver;
+import pl.wrzasq.lambda.metrics.dynamodb.service.TableSelector;
+
+@ExtendWith(MockitoExtension.class)
+public class MetricSourceResolverTest {
+    private static final String ROLE_ARN = "arn:aws:iam::123456789012:role/metrics";
+
+    @Mock
+    private DynamoDbClientProvider clientProvider;
+
+    @Mock
+    private TableSelector tableSelector;
+
+    @Mock
+    private AmazonDynamoDB local;
+
+    @Mock
+    private AmazonDynamoDB remote;
+
+    @Mock
+    private AmazonDynamoDB remoteRegion;
+
+    @Test
+    public void resolveLocal() {
+        var resolver = new MetricSourceResolver(this.clientProvider, this.tableSelector);
+        var request = new TableMetricRequest();
+
+        Mockito
+            .when(this.clientProvider.getClient())
+            .thenReturn(this.local);
+        Mockito
+            .when(this.tableSelector.resolve(this.local, request))
+            .thenReturn(List.of("Orders"));
+
+        Assertions.assertEquals(
+            List.of(new MetricSource(this.local, List.of("Orders"), List.of())),
+            resolver.resolve(request),
+            "MetricSourceResolver.resolve() should use current location when no target is specified."
+        );
+    }
+
+    @Test
+    public void resolveTargets() {
+        var resolver = new MetricSourceResolver(this.clientProvider, this.tableSelector);
+
+        var account = new CollectorTarget();
+        account.setRoleArn(MetricSourceResolverTest.ROLE_ARN);
+        var region = new CollectorTarget();
+        region.setRegions(List.of("eu-west-1"));
+
+        var request = new TableMetricRequest();
+        request.setTargets(List.of(account, region));
+
+        Mockito
+            .when(this.clientProvider.getClient(MetricSourceResolverTest.ROLE_ARN, null))
+            .thenReturn(this.remote);
+        Mockito
+            .when(this.clientProvider.getClient(null, "eu-west-1"))
+            .thenReturn(this.remoteRegion);
+        Mockito
+            .when(this.tableSelector.resolve(Mockito.any(), Mockito.eq(request)))
+            .thenReturn(List.of("Orders"));
+
+        Assertions.assertEquals(
+            List.of(
+                new MetricSource(
+                    this.remote,
+                    List.of("Orders"),
+                    List.of(new Dimension().withName("AccountId").withValue("123456789012"))
+                ),
+                new MetricSource(
+                    this.remoteRegion,
+                    List.of("Orders"),
+                    List.of(new Dimension().withName("Region").withValue("eu-west-1"))
+                )
+            ),
+            resolver.resolve(request),
+            "MetricSourceResolver.resolve() should build source for each target location."
+        );
+        Mockito.verify(this.clientProvider, Mockito.never()).getClient();
+    }
+}
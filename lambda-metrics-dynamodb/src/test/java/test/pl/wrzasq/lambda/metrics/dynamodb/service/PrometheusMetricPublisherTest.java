@@ -0,0 +1,136 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.amazonaws.services.cloudwatch.model.Dimension;
+import com.amazonaws.services.cloudwatch.model.MetricDatum;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pl.wrzasq.lambda.metrics.dynamodb.service.PrometheusMetricPublisher;
+
+public class PrometheusMetricPublisherTest {
+    private static final String NAMESPACE = "Test/DynamoDB";
+
+    private HttpServer server;
+
+    private List<String> requests = new ArrayList<>();
+
+    private int status = 200;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/", exchange -> {
+            this.requests.add(
+                exchange.getRequestMethod()
+                    + " "
+                    + exchange.getRequestURI().getPath()
+                    + "\n"
+                    + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)
+            );
+            exchange.sendResponseHeaders(this.status, -1);
+            exchange.close();
+        });
+        this.server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.server.stop(0);
+    }
+
+    @Test
+    public void flush() {
+        var publisher = this.createPublisher();
+
+        publisher.add(PrometheusMetricPublisherTest.buildDatum("ItemCount", 10, "Orders", null));
+        publisher.add(PrometheusMetricPublisherTest.buildDatum("TableSizeBytes", 256, "Orders", null));
+        publisher.add(PrometheusMetricPublisherTest.buildDatum("ItemCount", 5, "Users \"v2\"", null));
+        publisher.add(PrometheusMetricPublisherTest.buildDatum("ItemCount", 6, "Users \"v2\"", null));
+        publisher.add(PrometheusMetricPublisherTest.buildDatum("ItemCount", 1, "Orders", "OrdersByUser"));
+        publisher.flush();
+        publisher.flush();
+
+        Assertions.assertEquals(
+            List.of(
+                "POST /metrics/job/dynamodb\n"
+                    + "# TYPE test_dynamo_db_item_count gauge\n"
+                    + "test_dynamo_db_item_count{table_name=\"Orders\"} 10.0\n"
+                    + "test_dynamo_db_item_count{table_name=\"Users \\\"v2\\\"\"} 6.0\n"
+                    + "test_dynamo_db_item_count"
+                    + "{table_name=\"Orders\",global_secondary_index_name=\"OrdersByUser\"} 1.0\n"
+                    + "# TYPE test_dynamo_db_table_size_bytes gauge\n"
+                    + "test_dynamo_db_table_size_bytes{table_name=\"Orders\"} 256.0\n"
+            ),
+            this.requests,
+            "PrometheusMetricPublisher.flush() should push all buffered metrics once in text exposition format."
+        );
+    }
+
+    @Test
+    public void flushFailed() {
+        var publisher = this.createPublisher();
+        this.status = 400;
+
+        publisher.add(PrometheusMetricPublisherTest.buildDatum("ItemCount", 10, "Orders", null));
+
+        Assertions.assertThrows(
+            IllegalStateException.class,
+            publisher::flush,
+            "PrometheusMetricPublisher.flush() should fail when gateway rejects metrics."
+        );
+
+        this.status = 200;
+        publisher.flush();
+
+        Assertions.assertEquals(
+            2,
+            this.requests.size(),
+            "PrometheusMetricPublisher.flush() should keep metrics buffered after failure."
+        );
+    }
+
+    private PrometheusMetricPublisher createPublisher() {
+        return new PrometheusMetricPublisher(
+            HttpClient.newHttpClient(),
+            String.format("http://localhost:%d/", this.server.getAddress().getPort()),
+            "dynamodb",
+            PrometheusMetricPublisherTest.NAMESPACE
+        );
+    }
+
+    private static MetricDatum buildDatum(String metricName, double value, String tableName, String indexName) {
+        var datum = new MetricDatum()
+            .withMetricName(metricName)
+            .withValue(value)
+            .withDimensions(
+                new Dimension()
+                    .withName("TableName")
+                    .withValue(tableName)
+            );
+        if (indexName != null) {
+            datum.withDimensions(
+                new Dimension()
+                    .withName("GlobalSecondaryIndexName")
+                    .withValue(indexName)
+            );
+        }
+        return datum;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.wrzasq.lambda.metrics.dynamodb.service.RateLimiter;
+
+public class RateLimiterTest {
+    @Test
+    public void acquire() throws InterruptedException {
+        var limiter = new RateLimiter(100);
+
+        var start = System.nanoTime();
+        for (var i = 0; i < 11; ++i) {
+            limiter.acquire();
+        }
+
+        Assertions.assertTrue(
+            System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100),
+            "RateLimiter.acquire() should space calls according to the rate."
+        );
+    }
+
+    @Test
+    public void invalidRate() {
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> new RateLimiter(0),
+            "RateLimiter() should reject non-positive rate."
+        );
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.wrzasq.lambda.metrics.dynamodb.model.InvocationPayload;
+import pl.wrzasq.lambda.metrics.dynamodb.model.QueuedMessage;
+import pl.wrzasq.lambda.metrics.dynamodb.service.RequestReader;
+
+public class RequestReaderTest {
+    private final RequestReader reader = new RequestReader(new ObjectMapper());
+
+    @Test
+    public void readDirect() throws IOException {
+        var payload = this.read(
+            "{\"tableName\":\"Orders\",\"tableNames\":[\"Users\"],\"tablePrefix\":\"app-\",\"tablePattern\":\".*\","
+                + "\"allTables\":true,\"targets\":[{\"roleArn\":\"arn\",\"regions\":[\"eu-west-1\"]}],"
+                + "\"unknown\":{\"nested\":[1,2]}}"
+        );
+        var request = payload.getRequest();
+
+        Assertions.assertNull(
+            payload.getMessages(),
+            "RequestReader.read() should not report messages for direct request."
+        );
+        Assertions.assertEquals(
+            "Orders",
+            request.getTableName(),
+            "RequestReader.read() should bind table name."
+        );
+        Assertions.assertEquals(
+            List.of("Users"),
+            request.getTableNames(),
+            "RequestReader.read() should bind table names."
+        );
+        Assertions.assertEquals(
+            "app-",
+            request.getTablePrefix(),
+            "RequestReader.read() should bind table prefix."
+        );
+        Assertions.assertEquals(
+            ".*",
+            request.getTablePattern(),
+            "RequestReader.read() should bind table pattern."
+        );
+        Assertions.assertTrue(
+            request.isAllTables(),
+            "RequestReader.read() should bind all tables flag."
+        );
+        Assertions.assertEquals(
+            List.of("eu-west-1"),
+            request.getTargets().get(0).getRegions(),
+            "RequestReader.read() should bind collector targets."
+        );
+    }
+
+    @Test
+    public void readEvent() throws IOException {
+        var payload = this.read(
+            "{\"version\":\"0\",\"detail-type\":\"Metrics Request\",\"source\":\"app\",\"resources\":[],"
+                + "\"detail\":{\"tablePrefix\":\"app-\"}}"
+        );
+
+        Assertions.assertEquals(
+            "app-",
+            payload.getRequest().getTablePrefix(),
+            "RequestReader.read() should take request from EventBridge event detail."
+        );
+    }
+
+    @Test
+    public void readBatch() throws IOException {
+        var payload = this.read(
+            "{\"Records\":["
+                + "{\"messageId\":\"id0\",\"attributes\":{\"ApproximateReceiveCount\":\"1\"},"
+                + "\"body\":\"{\\\"tableName\\\":\\\"Orders\\\"}\"},"
+                + "{\"messageId\":\"id1\",\"body\":\"{\\\"detail\\\":{\\\"tableName\\\":\\\"Users\\\"}}\"}"
+                + "]}"
+        );
+
+        Assertions.assertEquals(
+            List.of(
+                new QueuedMessage("id0", "{\"tableName\":\"Orders\"}"),
+                new QueuedMessage("id1", "{\"detail\":{\"tableName\":\"Users\"}}")
+            ),
+            payload.getMessages(),
+            "RequestReader.read() should extract SQS messages."
+        );
+        Assertions.assertEquals(
+            "Orders",
+            this.reader.readRequest(payload.getMessages().get(0).getBody()).getTableName(),
+            "RequestReader.readRequest() should read direct request from message body."
+        );
+        Assertions.assertEquals(
+            "Users",
+            this.reader.readRequest(payload.getMessages().get(1).getBody()).getTableName(),
+            "RequestReader.readRequest() should read EventBridge event from message body."
+        );
+    }
+
+    @Test
+    public void readInvalid() {
+        Assertions.assertThrows(
+            JsonParseException.class,
+            () -> this.read("[]"),
+            "RequestReader.read() should reject non-object payload."
+        );
+        Assertions.assertThrows(
+            JsonParseException.class,
+            () -> this.reader.readRequest("{\"Records\":[]}"),
+            "RequestReader.readRequest() should reject nested batch."
+        );
+    }
+
+    private InvocationPayload read(String json) throws IOException {
+        return this.reader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
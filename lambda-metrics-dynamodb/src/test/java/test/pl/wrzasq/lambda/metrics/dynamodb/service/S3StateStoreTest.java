@@ -0,0 +1,96 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.S3Object;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.metrics.dynamodb.service.S3StateStore;
+
+@ExtendWith(MockitoExtension.class)
+public class S3StateStoreTest {
+    private static final String BUCKET = "test";
+
+    private static final String KEY = "state.json";
+
+    private static final TypeReference<Map<String, Integer>> TYPE = new TypeReference<>() {
+    };
+
+    @Mock
+    private AmazonS3 s3;
+
+    @Test
+    public void load() {
+        var store = new S3StateStore<>(
+            this.s3,
+            new ObjectMapper(),
+            S3StateStoreTest.BUCKET,
+            S3StateStoreTest.KEY,
+            S3StateStoreTest.TYPE
+        );
+
+        var object = new S3Object();
+        object.setObjectContent(new ByteArrayInputStream("{\"a\":1}".getBytes(StandardCharsets.UTF_8)));
+
+        Mockito
+            .when(this.s3.doesObjectExist(S3StateStoreTest.BUCKET, S3StateStoreTest.KEY))
+            .thenReturn(true);
+        Mockito
+            .when(this.s3.getObject(S3StateStoreTest.BUCKET, S3StateStoreTest.KEY))
+            .thenReturn(object);
+
+        Assertions.assertEquals(
+            Map.of("a", 1),
+            store.load(Map::of),
+            "S3StateStore.load() should read persisted state."
+        );
+    }
+
+    @Test
+    public void loadInitial() {
+        var store = new S3StateStore<>(
+            this.s3,
+            new ObjectMapper(),
+            S3StateStoreTest.BUCKET,
+            S3StateStoreTest.KEY,
+            S3StateStoreTest.TYPE
+        );
+
+        Assertions.assertEquals(
+            Map.of(),
+            store.load(Map::of),
+            "S3StateStore.load() should return initial state if nothing is persisted."
+        );
+    }
+
+    @Test
+    public void save() {
+        var store = new S3StateStore<>(
+            this.s3,
+            new ObjectMapper(),
+            S3StateStoreTest.BUCKET,
+            S3StateStoreTest.KEY,
+            S3StateStoreTest.TYPE
+        );
+
+        store.save(Map.of("a", 1));
+
+        Mockito.verify(this.s3).putObject(S3StateStoreTest.BUCKET, S3StateStoreTest.KEY, "{\"a\":1}");
+    }
+}
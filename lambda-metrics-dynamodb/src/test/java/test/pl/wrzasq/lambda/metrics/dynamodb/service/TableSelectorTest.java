@@ -0,0 +1,118 @@
+/*
+ * This file is part of the pl.wrzasq.lambda.
+ *
+ * @license http://mit-license.org/ The MIT license
+ * @copyright 2021 © by Rafał Wrzeszcz - Wrzasq.pl.
+ */
+
+package test.pl.wrzasq.lambda.metrics.dynamodb.service;
+
+import java.util.List;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.ListTablesRequest;
+import com.amazonaws.services.dynamodbv2.model.ListTablesResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.wrzasq.lambda.metrics.dynamodb.model.TableMetricRequest;
+import pl.wrzasq.lambda.metrics.dynamodb.service.TableSelector;
+
+@ExtendWith(MockitoExtension.class)
+public class TableSelectorTest {
+    @Mock
+    private AmazonDynamoDB dynamoDb;
+
+    @Test
+    public void resolveExplicit() {
+        var selector = new TableSelector();
+
+        var request = new TableMetricRequest();
+        request.setTableName("Orders");
+        request.setTableNames(List.of("Users", "Orders"));
+
+        Assertions.assertEquals(
+            List.of("Orders", "Users"),
+            List.copyOf(selector.resolve(this.dynamoDb, request)),
+            "TableSelector.resolve() should return distinct explicitly specified tables."
+        );
+        Mockito.verifyNoInteractions(this.dynamoDb);
+    }
+
+    @Test
+    public void resolveAll() {
+        var selector = new TableSelector();
+        this.mockTables();
+
+        var request = new TableMetricRequest();
+        request.setAllTables(true);
+
+        Assertions.assertEquals(
+            List.of("app-orders", "app-users", "audit", "bpp-logs"),
+            List.copyOf(selector.resolve(this.dynamoDb, request)),
+            "TableSelector.resolve() should return all tables from all pages."
+        );
+    }
+
+    @Test
+    public void resolvePrefix() {
+        var selector = new TableSelector();
+
+        Mockito
+            .when(this.dynamoDb.listTables(new ListTablesRequest()))
+            .thenReturn(
+                new ListTablesResult()
+                    .withTableNames("app-orders", "app-users", "audit")
+                    .withLastEvaluatedTableName("audit")
+            );
+
+        var request = new TableMetricRequest();
+        request.setTablePrefix("app-");
+
+        Assertions.assertEquals(
+            List.of("app-orders", "app-users"),
+            List.copyOf(selector.resolve(this.dynamoDb, request)),
+            "TableSelector.resolve() should return tables with given prefix."
+        );
+        Mockito
+            .verify(
+                this.dynamoDb,
+                Mockito.never().description("TableSelector.resolve() should stop listing after last possible match.")
+            )
+            .listTables(new ListTablesRequest().withExclusiveStartTableName("audit"));
+    }
+
+    @Test
+    public void resolvePattern() {
+        var selector = new TableSelector();
+        this.mockTables();
+
+        var request = new TableMetricRequest();
+        request.setTablePattern(".*pp-.*s");
+
+        Assertions.assertEquals(
+            List.of("app-orders", "app-users", "bpp-logs"),
+            List.copyOf(selector.resolve(this.dynamoDb, request)),
+            "TableSelector.resolve() should return tables matching pattern."
+        );
+    }
+
+    private void mockTables() {
+        Mockito
+            .when(this.dynamoDb.listTables(new ListTablesRequest()))
+            .thenReturn(
+                new ListTablesResult()
+                    .withTableNames("app-orders", "app-users")
+                    .withLastEvaluatedTableName("app-users")
+            );
+        Mockito
+            .when(this.dynamoDb.listTables(new ListTablesRequest().withExclusiveStartTableName("app-users")))
+            .thenReturn(
+                new ListTablesResult()
+                    .withTableNames("audit", "bpp-logs")
+            );
+    }
+}